@@ -1,41 +1,102 @@
 package com.example.popularmovies;
 
+import android.content.Context;
 import android.content.Intent;
+import android.content.res.Resources;
 import android.net.Uri;
 import android.os.Bundle;
-import android.support.v4.app.LoaderManager;
-import android.support.v4.content.AsyncTaskLoader;
-import android.support.v4.content.Loader;
 import android.support.v7.app.AppCompatActivity;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewStub;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
+import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.example.popularmovies.data.IUIAppendableObject;
+import com.example.popularmovies.data.DataStream;
+import com.example.popularmovies.data.FavoritesStore;
 import com.example.popularmovies.data.MovieDetails;
-import com.example.popularmovies.utilities.NetworkUtils;
+import com.example.popularmovies.data.MoviesRepository;
+import com.example.popularmovies.utilities.ImageUrlResolver;
+import com.example.popularmovies.utilities.RequestScheduler;
 import com.squareup.picasso.Picasso;
 
-import java.util.List;
+import java.util.concurrent.Callable;
 
-public class DetailActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<MovieDetails> {
+public class DetailActivity extends AppCompatActivity {
 
     public static final String EXTRA_MOVIE_ID = "extra_movie_id";
     private static final int DEFAULT_MOVIE_ID = -1;
 
-    private static final String LOADER_MOVIE_ID = "loader_movie_id";
+    // The poster and the backdrop share one row of the screen.
+    private static final int IMAGE_COLUMNS = 2;
 
     private LinearLayout mContentContainerLl;
 
     private TextView mErrorMessageDisplay;
     private ProgressBar mLoadingIndicator;
 
-    private static final int MOVIE_DETAILS_LOADER_ID = 1;
+    private TextView mAdultTv;
+    private TextView mBudgetTv;
+    private TextView mGenresTv;
+    private TextView mHomepageTv;
+    private TextView mOriginalLanguageTv;
+    private TextView mOriginalTitleTv;
+    private TextView mOverviewTv;
+    private TextView mPopularityTv;
+    private TextView mProductionCompaniesTv;
+    private TextView mProductionCountriesTv;
+    private TextView mReleaseDateTv;
+    private TextView mRevenueTv;
+    private TextView mRuntimeTv;
+    private TextView mSpokenLanguagesTv;
+    private TextView mStatusTv;
+    private TextView mTaglineTv;
+    private TextView mVoteAverageTv;
+    private TextView mVoteCountTv;
+
+    private ImageView mPosterIv;
+    private ImageView mBackdropIv;
+
+    private ScrollView mDetailSv;
+    private ViewStub mExtrasStub;
+    private View mExtrasContainer;
+    // Waiting for the user to scroll close enough to the extras section to inflate it.
+    private MovieDetailsPresentation mPendingExtras;
+
+    private final ViewTreeObserver.OnScrollChangedListener mExtrasScrollListener =
+            new ViewTreeObserver.OnScrollChangedListener() {
+                @Override
+                public void onScrollChanged() {
+                    showPendingExtrasIfNear();
+                }
+            };
+
+    private final Runnable mShowPendingExtrasIfNear = new Runnable() {
+        @Override
+        public void run() {
+            showPendingExtrasIfNear();
+        }
+    };
+
+    private DataStream.Subscription mMovieDetailsSubscription;
+    private int mPresentationsRequested;
+
+    private FavoritesStore mFavorites;
+    // The latest details, which starring the movie stores.
+    private MovieDetails mMovieDetails;
+
+    private final FavoritesStore.Observer mFavoritesObserver = new FavoritesStore.Observer() {
+        @Override
+        public void onFavoritesChanged() {
+            invalidateOptionsMenu();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,65 +120,99 @@ public class DetailActivity extends AppCompatActivity implements LoaderManager.L
 
         mLoadingIndicator = findViewById(R.id.pb_loading_indicator);
 
-        Bundle loaderBundle = new Bundle();
-        loaderBundle.putInt(LOADER_MOVIE_ID, movieId);
-        getSupportLoaderManager().initLoader(MOVIE_DETAILS_LOADER_ID, loaderBundle, DetailActivity.this);
+        mAdultTv = findViewById(R.id.adult_tv);
+        mBudgetTv = findViewById(R.id.budget_tv);
+        mGenresTv = findViewById(R.id.genres_tv);
+        mHomepageTv = findViewById(R.id.homepage_tv);
+        mOriginalLanguageTv = findViewById(R.id.original_language_tv);
+        mOriginalTitleTv = findViewById(R.id.original_title_tv);
+        mOverviewTv = findViewById(R.id.overview_tv);
+        mPopularityTv = findViewById(R.id.popularity_tv);
+        mProductionCompaniesTv = findViewById(R.id.production_companies_tv);
+        mProductionCountriesTv = findViewById(R.id.production_countries_tv);
+        mReleaseDateTv = findViewById(R.id.release_date_tv);
+        mRevenueTv = findViewById(R.id.revenue_tv);
+        mRuntimeTv = findViewById(R.id.runtime_tv);
+        mSpokenLanguagesTv = findViewById(R.id.spoken_languages_tv);
+        mStatusTv = findViewById(R.id.status_tv);
+        mTaglineTv = findViewById(R.id.tagline_tv);
+        mVoteAverageTv = findViewById(R.id.vote_average_tv);
+        mVoteCountTv = findViewById(R.id.vote_count_tv);
+
+        mPosterIv = findViewById(R.id.poster_iv);
+        mBackdropIv = findViewById(R.id.backdrop_iv);
+
+        mDetailSv = findViewById(R.id.detail_sv);
+        mExtrasStub = findViewById(R.id.extras_stub);
+        mDetailSv.getViewTreeObserver().addOnScrollChangedListener(mExtrasScrollListener);
+
+        mFavorites = FavoritesStore.getInstance(this);
+        mFavorites.addObserver(mFavoritesObserver);
+
+        loadMovieDetails(movieId);
     }
 
     @Override
-    public Loader<MovieDetails> onCreateLoader(int id, final Bundle loaderArgs) {
-        final int movieId = loaderArgs.getInt(LOADER_MOVIE_ID, -1);
-        if (movieId == DEFAULT_MOVIE_ID)
-            return null;
-
-        return new AsyncTaskLoader<MovieDetails>(this) {
-            MovieDetails mMoviesData;
-
-            @Override
-            protected void onStartLoading() {
-                if (mMoviesData != null) {
-                    deliverResult(mMoviesData);
-                } else {
-                    mLoadingIndicator.setVisibility(View.VISIBLE);
-                    forceLoad();
-                }
-            }
-
-            @Override
-            public MovieDetails loadInBackground() {
-                MovieDetails movieDetails = null;
-                try {
-                    String apiKey = getString(R.string.tmdb_api_key);
-                    movieDetails = NetworkUtils.movieDetails(apiKey, movieId);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+    protected void onDestroy() {
+        super.onDestroy();
 
-                return movieDetails;
-            }
+        if (mMovieDetailsSubscription != null)
+            mMovieDetailsSubscription.unsubscribe();
+        RequestScheduler.getInstance().cancelAll(this);
 
-            @Override
-            public void deliverResult(MovieDetails data) {
-                mMoviesData = data;
-                super.deliverResult(data);
+        if (mFavorites != null)
+            mFavorites.removeObserver(mFavoritesObserver);
 
-            }
-        };
-    }
-
-    @Override
-    public void onLoadFinished(Loader<MovieDetails> loader, MovieDetails data) {
-        mLoadingIndicator.setVisibility(View.INVISIBLE);
-        if (data == null) {
-            showErrorMessage();
-        } else {
-            populateUI(data);
+        if (mDetailSv != null) {
+            mDetailSv.removeCallbacks(mShowPendingExtrasIfNear);
+            if (mDetailSv.getViewTreeObserver().isAlive())
+                mDetailSv.getViewTreeObserver().removeOnScrollChangedListener(mExtrasScrollListener);
         }
     }
 
-    @Override
-    public void onLoaderReset(Loader<MovieDetails> loader) {
+    private void loadMovieDetails(int movieId) {
         mLoadingIndicator.setVisibility(View.VISIBLE);
+
+        mMovieDetailsSubscription = MoviesRepository.getInstance(this).movieDetails(movieId).subscribe(
+                new DataStream.Observer<MovieDetails>() {
+                    @Override
+                    public void onNext(MovieDetails value) {
+                        mMovieDetails = value;
+                        invalidateOptionsMenu();
+                        presentMovieDetails(value);
+                    }
+
+                    @Override
+                    public void onError() {
+                        showErrorMessage();
+                    }
+                });
+    }
+
+    private void presentMovieDetails(final MovieDetails movieDetails) {
+        // Each value gets its own key so that it does not join the formatting of an older one.
+        final int presentation = ++mPresentationsRequested;
+        final Context appContext = getApplicationContext();
+        RequestScheduler.getInstance().submit(
+                "movie_details_presentation/" + movieDetails.getId() + "/" + presentation,
+                RequestScheduler.PRIORITY_INTERACTIVE, this,
+                new Callable<MovieDetailsPresentation>() {
+                    @Override
+                    public MovieDetailsPresentation call() throws Exception {
+                        return MovieDetailsPresentation.from(appContext, movieDetails);
+                    }
+                },
+                new RequestScheduler.Callback<MovieDetailsPresentation>() {
+                    @Override
+                    public void onResult(MovieDetailsPresentation result) {
+                        // An older value formatted late must not replace a newer one.
+                        if (result == null || presentation != mPresentationsRequested)
+                            return;
+
+                        mLoadingIndicator.setVisibility(View.INVISIBLE);
+                        populateUI(result);
+                    }
+                });
     }
 
     private void closeOnError() {
@@ -131,95 +226,132 @@ public class DetailActivity extends AppCompatActivity implements LoaderManager.L
         mErrorMessageDisplay.setVisibility(View.VISIBLE);
     }
 
-    private void populateUI(MovieDetails movieDetails) {
+    private void populateUI(MovieDetailsPresentation movieDetails) {
         mContentContainerLl.setVisibility(View.VISIBLE);
         mErrorMessageDisplay.setVisibility(View.GONE);
 
-        TextView adultTv = findViewById(R.id.adult_tv);
-        TextView budgetTv = findViewById(R.id.budget_tv);
-        TextView genresTv = findViewById(R.id.genres_tv);
-        TextView homepageTv = findViewById(R.id.homepage_tv);
-        TextView originalLanguageTv = findViewById(R.id.original_language_tv);
-        TextView originalTitleTv = findViewById(R.id.original_title_tv);
-        TextView overviewTv = findViewById(R.id.overview_tv);
-        TextView popularityTv = findViewById(R.id.popularity_tv);
-        TextView productionCompaniesTv = findViewById(R.id.production_companies_tv);
-        TextView productionCountriesTv = findViewById(R.id.production_countries_tv);
-        TextView releaseDateTv = findViewById(R.id.release_date_tv);
-        TextView revenueTv = findViewById(R.id.revenue_tv);
-        TextView runtimeTv = findViewById(R.id.runtime_tv);
-        TextView spokenLanguagesTv = findViewById(R.id.spoken_languages_tv);
-        TextView statusTv = findViewById(R.id.status_tv);
-        TextView taglineTv = findViewById(R.id.tagline_tv);
-        TextView voteAverageTv = findViewById(R.id.vote_average_tv);
-        TextView voteCountTv = findViewById(R.id.vote_count_tv);
-
-        ImageView posterIv = findViewById(R.id.poster_iv);
-        ImageView backdropIv = findViewById(R.id.backdrop_iv);
-
-        if (movieDetails.isAdult())
-            adultTv.setText(R.string.yes);
-        else
-            adultTv.setText(R.string.no);
-
-        fillTextViewWithValueOrDataUnavailable(budgetTv, String.valueOf(movieDetails.getBudget()));
-        fillTextViewWithValueOrDataUnavailable(homepageTv, movieDetails.getHomepage());
-        fillTextViewWithValueOrDataUnavailable(originalLanguageTv, movieDetails.getOriginalLanguage());
-        fillTextViewWithValueOrDataUnavailable(originalTitleTv, movieDetails.getOriginalTitle());
-        fillTextViewWithValueOrDataUnavailable(overviewTv, movieDetails.getOverview());
-        fillTextViewWithValueOrDataUnavailable(popularityTv, String.valueOf(movieDetails.getPopularity()));
-        fillTextViewWithValueOrDataUnavailable(releaseDateTv, movieDetails.getReleaseDate());
-        fillTextViewWithValueOrDataUnavailable(revenueTv, String.valueOf(movieDetails.getRevenue()));
-        fillTextViewWithValueOrDataUnavailable(runtimeTv, String.valueOf(movieDetails.getRuntime()));
-        fillTextViewWithValueOrDataUnavailable(statusTv, movieDetails.getStatus());
-        fillTextViewWithValueOrDataUnavailable(taglineTv, movieDetails.getTagline());
-        fillTextViewWithValueOrDataUnavailable(voteAverageTv, String.valueOf(movieDetails.getVoteAverage()));
-        fillTextViewWithValueOrDataUnavailable(voteCountTv, String.valueOf(movieDetails.getVoteCount()));
-
-        fillTextViewWithListData(genresTv, movieDetails.getGenres());
-        fillTextViewWithListData(productionCompaniesTv, movieDetails.getProductionCompanies());
-        fillTextViewWithListData(productionCountriesTv, movieDetails.getProductionCountries());
-        fillTextViewWithListData(spokenLanguagesTv, movieDetails.getSpokenLanguages());
+        mAdultTv.setText(movieDetails.getAdult());
+        mBudgetTv.setText(movieDetails.getBudget());
+        mGenresTv.setText(movieDetails.getGenres());
+        mHomepageTv.setText(movieDetails.getHomepage());
+        mOriginalLanguageTv.setText(movieDetails.getOriginalLanguage());
+        mOriginalTitleTv.setText(movieDetails.getOriginalTitle());
+        mOverviewTv.setText(movieDetails.getOverview());
+        mPopularityTv.setText(movieDetails.getPopularity());
+        mProductionCompaniesTv.setText(movieDetails.getProductionCompanies());
+        mProductionCountriesTv.setText(movieDetails.getProductionCountries());
+        mReleaseDateTv.setText(movieDetails.getReleaseDate());
+        mRevenueTv.setText(movieDetails.getRevenue());
+        mRuntimeTv.setText(movieDetails.getRuntime());
+        mSpokenLanguagesTv.setText(movieDetails.getSpokenLanguages());
+        mStatusTv.setText(movieDetails.getStatus());
+        mTaglineTv.setText(movieDetails.getTagline());
+        mVoteAverageTv.setText(movieDetails.getVoteAverage());
+        mVoteCountTv.setText(movieDetails.getVoteCount());
 
         setTitle(movieDetails.getTitle());
 
-        Uri moviePosterUri = NetworkUtils.buildMovieImageUri(movieDetails.getPosterPath());
         Picasso.with(DetailActivity.this)
-                .load(moviePosterUri)
-                .into(posterIv);
+                .load(movieDetails.getPosterUri())
+                .fit()
+                .centerCrop()
+                .into(mPosterIv);
 
-        Uri movieBackdropUri = NetworkUtils.buildMovieImageUri(movieDetails.getBackdropPath());
         Picasso.with(DetailActivity.this)
-                .load(movieBackdropUri)
-                .into(backdropIv);
+                .load(movieDetails.getBackdropUri())
+                .fit()
+                .centerCrop()
+                .into(mBackdropIv);
+
+        showExtras(movieDetails);
     }
 
-    private void fillTextViewWithValueOrDataUnavailable(TextView textView, String value) {
-        if (value == null || value.isEmpty()) {
-            textView.setText(R.string.data_unavailable);
+    /**
+     * Videos, cast and reviews sit below the fold, their views are only inflated once the user
+     * scrolls near them.
+     */
+    private void showExtras(MovieDetailsPresentation movieDetails) {
+        mPendingExtras = null;
+
+        if (mExtrasContainer != null) {
+            populateExtras(movieDetails);
             return;
         }
 
-        textView.setText(value);
+        if (!movieDetails.hasExtras())
+            return;
+
+        mPendingExtras = movieDetails;
+        // The new content has not been laid out yet.
+        mDetailSv.post(mShowPendingExtrasIfNear);
+    }
+
+    private void showPendingExtrasIfNear() {
+        if (mPendingExtras == null)
+            return;
+
+        int viewportHeight = mDetailSv.getHeight();
+        int prefetchBottom = mDetailSv.getScrollY() + 2 * viewportHeight;
+        if (viewportHeight == 0 || mExtrasStub.getTop() > prefetchBottom)
+            return;
+
+        MovieDetailsPresentation movieDetails = mPendingExtras;
+        mPendingExtras = null;
+        mExtrasContainer = mExtrasStub.inflate();
+        populateExtras(movieDetails);
+    }
+
+    private void populateExtras(MovieDetailsPresentation movieDetails) {
+        mExtrasContainer.setVisibility(movieDetails.hasExtras() ? View.VISIBLE : View.GONE);
+
+        fillExtrasRow(R.id.videos_row_ll, R.id.videos_tv, movieDetails.getVideos());
+        fillExtrasRow(R.id.cast_row_ll, R.id.cast_tv, movieDetails.getCast());
+        fillExtrasRow(R.id.reviews_row_ll, R.id.reviews_tv, movieDetails.getReviews());
     }
 
-    private <T extends IUIAppendableObject> void fillTextViewWithListData(TextView textView, List<T> data) {
-        if (data == null || data.isEmpty()) {
-            textView.setText(R.string.data_unavailable);
+    private void fillExtrasRow(int rowId, int textViewId, String value) {
+        View row = mExtrasContainer.findViewById(rowId);
+        if (value == null) {
+            row.setVisibility(View.GONE);
             return;
         }
 
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < data.size(); i++) {
-            String value = data.get(i).getUIAppendableValue();
-            stringBuilder.append(value);
+        row.setVisibility(View.VISIBLE);
+        TextView textView = mExtrasContainer.findViewById(textViewId);
+        textView.setText(value);
+    }
+
+    static Uri buildPosterUri(Context context, String posterPath) {
+        Resources resources = context.getResources();
+        return ImageUrlResolver.posterUri(posterPath,
+                resources.getDisplayMetrics().widthPixels / IMAGE_COLUMNS,
+                resources.getDimensionPixelSize(R.dimen.movie_image_height),
+                ImageUrlResolver.shouldReduceResolution(context));
+    }
 
-            if (i < data.size() - 1)
-                stringBuilder.append("\n");
+    static Uri buildBackdropUri(Context context, String backdropPath) {
+        Resources resources = context.getResources();
+        return ImageUrlResolver.backdropUri(backdropPath,
+                resources.getDisplayMetrics().widthPixels / IMAGE_COLUMNS,
+                resources.getDimensionPixelSize(R.dimen.movie_image_height),
+                ImageUrlResolver.shouldReduceResolution(context));
+    }
+
+    private void toggleFavorite() {
+        if (mMovieDetails == null)
+            return;
+
+        int movieId = mMovieDetails.getId();
+        if (mFavorites.isFavorite(movieId)) {
+            mFavorites.remove(movieId);
+            return;
         }
 
-        String valueToDisplay = stringBuilder.toString();
-        fillTextViewWithValueOrDataUnavailable(textView, valueToDisplay);
+        String posterPath = mMovieDetails.getPosterPath();
+        String backdropPath = mMovieDetails.getBackdropPath();
+        mFavorites.add(mMovieDetails,
+                posterPath != null ? buildPosterUri(this, posterPath) : null,
+                backdropPath != null ? buildBackdropUri(this, backdropPath) : null);
     }
 
     @Override
@@ -228,17 +360,29 @@ public class DetailActivity extends AppCompatActivity implements LoaderManager.L
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        MenuItem favoriteItem = menu.findItem(R.id.action_favorite);
+        boolean favorite = mMovieDetails != null && mFavorites.isFavorite(mMovieDetails.getId());
+        favoriteItem.setEnabled(mMovieDetails != null && mFavorites.isLoaded());
+        favoriteItem.setIcon(favorite ? android.R.drawable.btn_star_big_on : android.R.drawable.btn_star_big_off);
+        favoriteItem.setTitle(favorite ? R.string.action_remove_favorite : R.string.action_add_favorite);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
 
+        if (id == R.id.action_favorite) {
+            toggleFavorite();
+            return true;
+        }
+
         if (id == R.id.action_refresh) {
             int movieId = getIntent().getIntExtra(EXTRA_MOVIE_ID, DEFAULT_MOVIE_ID);
-            Bundle loaderBundle = new Bundle();
-            loaderBundle.putInt(LOADER_MOVIE_ID, movieId);
-
             mLoadingIndicator.setVisibility(View.VISIBLE);
-            getSupportLoaderManager().restartLoader(MOVIE_DETAILS_LOADER_ID, loaderBundle, this);
+            MoviesRepository.getInstance(this).movieDetails(movieId).refresh();
             return true;
         }
 
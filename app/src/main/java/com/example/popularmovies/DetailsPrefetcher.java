@@ -0,0 +1,197 @@
+package com.example.popularmovies;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
+
+import com.example.popularmovies.data.FavoritesStore;
+import com.example.popularmovies.data.Movie;
+import com.example.popularmovies.data.MovieDetails;
+import com.example.popularmovies.utilities.MoviesRequests;
+import com.example.popularmovies.utilities.NetworkMetrics;
+import com.example.popularmovies.utilities.RequestScheduler;
+import com.squareup.picasso.Picasso;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fetches the details and backdrop of the movies in and around the visible part of the grid, so
+ * that opening one of them usually finds its details already stored locally.
+ */
+public class DetailsPrefetcher extends RecyclerView.OnScrollListener {
+
+    // As many as the repository keeps details streams for, older prefetches no longer count as hits.
+    private static final int MAX_PREFETCHED_MOVIES = 20;
+
+    private final Context mContext;
+    private final MoviesAdapter mMoviesAdapter;
+    private final int mPrefetchWindow;
+    private final int mMaxConcurrentPrefetches;
+    private final FavoritesStore mFavorites;
+
+    private final Map<Integer, RequestScheduler.Request> mPendingPrefetches = new HashMap<>();
+    private final Set<Integer> mPrefetchedMovieIds = Collections.newSetFromMap(
+            new LinkedHashMap<Integer, Boolean>(MAX_PREFETCHED_MOVIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                    return size() > MAX_PREFETCHED_MOVIES;
+                }
+            });
+
+    private int mWindowStart = RecyclerView.NO_POSITION;
+    private int mWindowEnd = RecyclerView.NO_POSITION;
+
+    public DetailsPrefetcher(Context context, MoviesAdapter moviesAdapter, int prefetchWindow, int maxConcurrentPrefetches) {
+        mContext = context.getApplicationContext();
+        mMoviesAdapter = moviesAdapter;
+        mPrefetchWindow = prefetchWindow;
+        mMaxConcurrentPrefetches = maxConcurrentPrefetches;
+        mFavorites = FavoritesStore.getInstance(context);
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        // Flings move through too many items to be worth prefetching, wait for them to settle.
+        if (recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_SETTLING)
+            return;
+
+        updateWindow(recyclerView);
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE)
+            updateWindow(recyclerView);
+    }
+
+    private void updateWindow(RecyclerView recyclerView) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager))
+            return;
+
+        LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+        int firstVisiblePosition = linearLayoutManager.findFirstVisibleItemPosition();
+        int lastVisiblePosition = linearLayoutManager.findLastVisibleItemPosition();
+        if (firstVisiblePosition == RecyclerView.NO_POSITION || lastVisiblePosition == RecyclerView.NO_POSITION)
+            return;
+
+        mWindowStart = Math.max(0, firstVisiblePosition - mPrefetchWindow);
+        mWindowEnd = Math.min(mMoviesAdapter.getItemCount() - 1, lastVisiblePosition + mPrefetchWindow);
+
+        cancelOutsideWindow();
+        schedulePrefetches(firstVisiblePosition, lastVisiblePosition);
+    }
+
+    private void cancelOutsideWindow() {
+        Set<Integer> movieIdsInWindow = new HashSet<>();
+        for (int position = mWindowStart; position <= mWindowEnd; position++) {
+            movieIdsInWindow.add(mMoviesAdapter.getMovie(position).getId());
+        }
+
+        List<Integer> movieIdsToCancel = new ArrayList<>();
+        for (Integer movieId : mPendingPrefetches.keySet()) {
+            if (!movieIdsInWindow.contains(movieId))
+                movieIdsToCancel.add(movieId);
+        }
+
+        for (Integer movieId : movieIdsToCancel) {
+            mPendingPrefetches.remove(movieId).cancel();
+            NetworkMetrics.recordPrefetchEvent(NetworkMetrics.PREFETCH_CANCELLED);
+        }
+    }
+
+    private void schedulePrefetches(int firstVisiblePosition, int lastVisiblePosition) {
+        // Visible items first, then the rest of the window growing outwards from them.
+        for (int position = firstVisiblePosition; position <= lastVisiblePosition; position++) {
+            if (!prefetch(position))
+                return;
+        }
+
+        for (int offset = 1; offset <= mPrefetchWindow; offset++) {
+            if (!prefetch(lastVisiblePosition + offset) || !prefetch(firstVisiblePosition - offset))
+                return;
+        }
+    }
+
+    /**
+     * Returns false once no more prefetches can be scheduled.
+     */
+    private boolean prefetch(int position) {
+        if (mPendingPrefetches.size() >= mMaxConcurrentPrefetches)
+            return false;
+
+        if (position < mWindowStart || position > mWindowEnd)
+            return true;
+
+        final Movie movie = mMoviesAdapter.getMovie(position);
+        final int movieId = movie.getId();
+        if (mPrefetchedMovieIds.contains(movieId) || mPendingPrefetches.containsKey(movieId))
+            return true;
+
+        // Their details are stored with them, opening one never waits on the network.
+        if (mFavorites.isFavorite(movieId))
+            return true;
+
+        NetworkMetrics.recordPrefetchEvent(NetworkMetrics.PREFETCH_ISSUED);
+        RequestScheduler.Request request = RequestScheduler.getInstance().submit(
+                MoviesRequests.movieDetailsKey(movieId),
+                RequestScheduler.PRIORITY_PREFETCH, this,
+                MoviesRequests.movieDetails(mContext, movieId),
+                new RequestScheduler.Callback<MovieDetails>() {
+                    @Override
+                    public void onResult(MovieDetails result) {
+                        onPrefetchFinished(movie, result);
+                    }
+                });
+        mPendingPrefetches.put(movieId, request);
+        return true;
+    }
+
+    private void onPrefetchFinished(Movie movie, MovieDetails movieDetails) {
+        mPendingPrefetches.remove(movie.getId());
+
+        if (movieDetails != null) {
+            mPrefetchedMovieIds.add(movie.getId());
+
+            String backdropPath = movieDetails.getBackdropPath();
+            if (!TextUtils.isEmpty(backdropPath)) {
+                Uri movieBackdropUri = DetailActivity.buildBackdropUri(mContext, backdropPath);
+                Picasso.with(mContext)
+                        .load(movieBackdropUri)
+                        .tag(this)
+                        .fetch();
+            }
+        }
+
+        if (mWindowStart != RecyclerView.NO_POSITION && mWindowEnd < mMoviesAdapter.getItemCount())
+            schedulePrefetches(mWindowStart, mWindowEnd);
+    }
+
+    /**
+     * Records whether the details of the opened movie were already prefetched, still being
+     * prefetched or not requested at all.
+     */
+    public void onMovieOpened(int movieId) {
+        if (mPrefetchedMovieIds.contains(movieId))
+            NetworkMetrics.recordPrefetchEvent(NetworkMetrics.PREFETCH_HIT);
+        else if (mPendingPrefetches.containsKey(movieId))
+            NetworkMetrics.recordPrefetchEvent(NetworkMetrics.PREFETCH_IN_FLIGHT);
+        else
+            NetworkMetrics.recordPrefetchEvent(NetworkMetrics.PREFETCH_MISS);
+    }
+
+    public void cancelAll() {
+        RequestScheduler.getInstance().cancelAll(this);
+        Picasso.with(mContext).cancelTag(this);
+        mPendingPrefetches.clear();
+    }
+}
@@ -16,32 +16,38 @@
 package com.example.popularmovies;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.os.Bundle;
-import android.support.v4.app.LoaderManager.LoaderCallbacks;
-import android.support.v4.content.AsyncTaskLoader;
-import android.support.v4.content.Loader;
 import android.support.v7.app.AppCompatActivity;
-import android.support.v7.preference.PreferenceManager;
+import android.support.v7.widget.SearchView;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import com.example.popularmovies.data.DataStream;
 import com.example.popularmovies.data.Movie;
+import com.example.popularmovies.data.MoviesPageList;
 import com.example.popularmovies.data.MoviesPreferences;
+import com.example.popularmovies.data.MoviesRepository;
 import com.example.popularmovies.data.MoviesResponse;
-import com.example.popularmovies.utilities.NetworkUtils;
+import com.example.popularmovies.utilities.ImageUrlResolver;
+import com.example.popularmovies.utilities.RequestScheduler;
+import com.example.popularmovies.utilities.StartupTrace;
+import com.squareup.picasso.Picasso;
+
+import java.util.List;
 
 public class MainActivity extends AppCompatActivity implements
         MoviesAdapter.MoviesAdapterOnClickHandler,
-        LoaderCallbacks<MoviesResponse>,
-        SharedPreferences.OnSharedPreferenceChangeListener {
+        MoviesPagingScrollListener.PageRequestHandler,
+        MovieSearchController.SearchResultsHandler,
+        MoviesPreferences.Observer {
 
     private RecyclerView mRecyclerView;
     private MoviesAdapter mMoviesAdapter;
@@ -49,29 +55,77 @@ public class MainActivity extends AppCompatActivity implements
     private TextView mErrorMessageDisplay;
     private ProgressBar mLoadingIndicator;
 
-    private static final int MOVIES_LOADER_ID = 0;
-    private static boolean PREFERENCES_HAVE_BEEN_UPDATED = false;
+    private static final int PAGE_PREFETCH_DISTANCE = 10;
+    private static final int DETAILS_PREFETCH_WINDOW = 6;
+    private static final int MAX_CONCURRENT_DETAILS_PREFETCHES = 2;
+
+    private DetailsPrefetcher mDetailsPrefetcher;
+    private MovieSearchController mSearchController;
+
+    private boolean mPageLoading;
+    private DataStream.Subscription mMoviesSubscription;
+    private boolean mMoviesDelivered;
+    private MoviesPreferences mPreferences;
+    private boolean mMoviesListChanged;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.beginSection(StartupTrace.ACTIVITY_CREATE);
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        traceFirstFrame();
 
         mErrorMessageDisplay = findViewById(R.id.tv_error_message_display);
 
-        mMoviesAdapter = new MoviesAdapter(this);
+        mMoviesAdapter = new MoviesAdapter(this, this);
+        mPreferences = MoviesPreferences.getInstance(this);
+        mMoviesAdapter.setQuery(mPreferences.get().getMovieQuery());
 
         mRecyclerView = findViewById(R.id.recyclerview_movies);
         mRecyclerView.setHasFixedSize(true);
         mRecyclerView.setAdapter(mMoviesAdapter);
+        mRecyclerView.addOnScrollListener(new MoviesPagingScrollListener(PAGE_PREFETCH_DISTANCE, this));
+
+        mDetailsPrefetcher = new DetailsPrefetcher(this, mMoviesAdapter,
+                DETAILS_PREFETCH_WINDOW, MAX_CONCURRENT_DETAILS_PREFETCHES);
+        mRecyclerView.addOnScrollListener(mDetailsPrefetcher);
+
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                Picasso picasso = Picasso.with(MainActivity.this);
+                if (newState == RecyclerView.SCROLL_STATE_SETTLING)
+                    picasso.pauseTag(MoviesAdapter.POSTER_REQUEST_TAG);
+                else
+                    picasso.resumeTag(MoviesAdapter.POSTER_REQUEST_TAG);
+            }
+        });
         updateRecyclerViewGridLayout();
 
+        mSearchController = new MovieSearchController(this, this);
+
         mLoadingIndicator = findViewById(R.id.pb_loading_indicator);
 
-        LoaderCallbacks<MoviesResponse> callback = MainActivity.this;
-        getSupportLoaderManager().initLoader(MOVIES_LOADER_ID, null, callback);
+        loadMovies();
 
-        PreferenceManager.getDefaultSharedPreferences(this).registerOnSharedPreferenceChangeListener(this);
+        mPreferences.addObserver(this);
+        StartupTrace.endSection(StartupTrace.ACTIVITY_CREATE);
+    }
+
+    private void traceFirstFrame() {
+        if (StartupTrace.isEnded(StartupTrace.FIRST_FRAME))
+            return;
+
+        final ViewTreeObserver viewTreeObserver = getWindow().getDecorView().getViewTreeObserver();
+        viewTreeObserver.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                StartupTrace.mark(StartupTrace.FIRST_FRAME);
+                if (viewTreeObserver.isAlive())
+                    viewTreeObserver.removeOnPreDrawListener(this);
+                return true;
+            }
+        });
     }
 
     private void updateRecyclerViewGridLayout() {
@@ -85,78 +139,113 @@ public class MainActivity extends AppCompatActivity implements
 
         GridLayoutManager gridLayoutManager = new GridLayoutManager(this, numberOfColumns);
         mRecyclerView.setLayoutManager(gridLayoutManager);
+
+        int posterWidth = getResources().getDisplayMetrics().widthPixels / numberOfColumns;
+        int posterHeight = getResources().getDimensionPixelSize(R.dimen.grid_item_height);
+        mMoviesAdapter.setPosterSize(posterWidth, posterHeight);
     }
 
-    @Override
-    public Loader<MoviesResponse> onCreateLoader(int id, final Bundle loaderArgs) {
+    private String currentMoviesList() {
+        return mPreferences.get().getMoviesList();
+    }
 
-        return new AsyncTaskLoader<MoviesResponse>(this) {
-            MoviesResponse mMoviesData;
-            boolean forSortOrderPopular;
+    private void loadMovies() {
+        mPageLoading = false;
+        RequestScheduler.getInstance().cancelAll(this);
+        if (mMoviesSubscription != null)
+            mMoviesSubscription.unsubscribe();
+
+        mMoviesDelivered = false;
+        mLoadingIndicator.setVisibility(View.VISIBLE);
+
+        // Delivers the stored page right away when it is already in memory, as it usually is at startup.
+        mMoviesSubscription = MoviesRepository.getInstance(this).movies(currentMoviesList()).subscribe(
+                new DataStream.Observer<MoviesResponse>() {
+                    @Override
+                    public void onNext(MoviesResponse value) {
+                        onMoviesLoaded(value);
+                    }
+
+                    @Override
+                    public void onError() {
+                        onMoviesLoadFailed();
+                    }
+                });
+    }
 
-            @Override
-            protected void onStartLoading() {
-                boolean sortOrderPopular = MoviesPreferences.sorOrderPopular(MainActivity.this);
-                if (mMoviesData != null && forSortOrderPopular == sortOrderPopular) {
-                    deliverResult(mMoviesData);
-                } else {
-                    mLoadingIndicator.setVisibility(View.VISIBLE);
-                    forceLoad();
-                }
+    private void onMoviesLoaded(MoviesResponse data) {
+        StartupTrace.mark(StartupTrace.FIRST_DATA);
+        mLoadingIndicator.setVisibility(View.INVISIBLE);
 
-            }
+        // Later values of the same list update its first page, keeping the pages loaded after it.
+        if (mMoviesDelivered)
+            mMoviesAdapter.replaceMoviesPage(data);
+        else
+            mMoviesAdapter.setMoviesData(data);
+        mMoviesDelivered = true;
+        showMoviesDataView();
+    }
 
-            @Override
-            public MoviesResponse loadInBackground() {
-                boolean sortOrderPopular = MoviesPreferences.sorOrderPopular(MainActivity.this);
-
-                MoviesResponse moviesResponse = null;
-                try {
-                    String apiKey = getString(R.string.tmdb_api_key);
-
-                    if (sortOrderPopular)
-                        moviesResponse = NetworkUtils.popular(apiKey);
-                    else
-                        moviesResponse = NetworkUtils.topRated(apiKey);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-
-                return moviesResponse;
-            }
+    private void onMoviesLoadFailed() {
+        mLoadingIndicator.setVisibility(View.INVISIBLE);
+        // A failed refresh leaves the stored page on screen.
+        if (mMoviesDelivered)
+            return;
 
-            @Override
-            public void deliverResult(MoviesResponse data) {
-                forSortOrderPopular = MoviesPreferences.sorOrderPopular(MainActivity.this);
-                mMoviesData = data;
-                super.deliverResult(data);
+        mMoviesAdapter.setMoviesData(null);
+        showErrorMessage();
+    }
 
-            }
-        };
+    private void onMoviesPageLoaded(String moviesList, MoviesResponse data) {
+        mPageLoading = false;
+        if (!moviesList.equals(currentMoviesList()))
+            return;
+
+        mMoviesAdapter.addMoviesPage(data);
     }
 
     @Override
-    public void onLoadFinished(Loader<MoviesResponse> loader, MoviesResponse data) {
-        mLoadingIndicator.setVisibility(View.INVISIBLE);
-        if (data == null) {
-            mMoviesAdapter.setMoviesData(null);
-            showErrorMessage();
-        } else {
-            mMoviesAdapter.setMoviesData(data.getResults());
-            showMoviesDataView();
-        }
+    public void onNextPageRequested() {
+        if (mMoviesAdapter.isShowingSearchResults())
+            return;
+
+        loadPage(mMoviesAdapter.getNextPage());
     }
 
     @Override
-    public void onLoaderReset(Loader<MoviesResponse> loader) {
+    public void onPreviousPageRequested() {
+        if (mMoviesAdapter.isShowingSearchResults())
+            return;
+
+        loadPage(mMoviesAdapter.getPreviousPage());
     }
 
-    private void invalidateData() {
-        mMoviesAdapter.setMoviesData(null);
+    private void loadPage(int page) {
+        if (mPageLoading || page == MoviesPageList.NO_PAGE || mMoviesAdapter.getLoadedItemCount() == 0)
+            return;
+
+        mPageLoading = true;
+
+        final String moviesList = currentMoviesList();
+        MoviesRepository.getInstance(this).moviesPage(moviesList, page, this,
+                new RequestScheduler.Callback<MoviesResponse>() {
+                    @Override
+                    public void onResult(MoviesResponse result) {
+                        onMoviesPageLoaded(moviesList, result);
+                    }
+                });
+    }
+
+    @Override
+    public void onSearchResults(List<Movie> movies) {
+        mMoviesAdapter.setSearchResults(movies);
+        mRecyclerView.scrollToPosition(0);
     }
 
     @Override
     public void onClick(Movie movie) {
+        mDetailsPrefetcher.onMovieOpened(movie.getId());
+
         Intent intentToStartDetailActivity = new Intent(this, DetailActivity.class);
         intentToStartDetailActivity.putExtra(DetailActivity.EXTRA_MOVIE_ID, movie.getId());
         startActivity(intentToStartDetailActivity);
@@ -176,9 +265,11 @@ public class MainActivity extends AppCompatActivity implements
     protected void onStart() {
         super.onStart();
 
-        if (PREFERENCES_HAVE_BEEN_UPDATED) {
-            getSupportLoaderManager().restartLoader(MOVIES_LOADER_ID, null, this);
-            PREFERENCES_HAVE_BEEN_UPDATED = false;
+        mMoviesAdapter.setReduceImageResolution(ImageUrlResolver.shouldReduceResolution(this));
+
+        if (mMoviesListChanged) {
+            mMoviesListChanged = false;
+            loadMovies();
         }
     }
 
@@ -186,13 +277,48 @@ public class MainActivity extends AppCompatActivity implements
     protected void onDestroy() {
         super.onDestroy();
 
-        PreferenceManager.getDefaultSharedPreferences(this).unregisterOnSharedPreferenceChangeListener(this);
+        mPreferences.removeObserver(this);
+        mMoviesSubscription.unsubscribe();
+        RequestScheduler.getInstance().cancelAll(this);
+        mDetailsPrefetcher.cancelAll();
+        mSearchController.cancel();
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.main, menu);
+        menu.findItem(R.id.action_metrics).setVisible(BuildConfig.DEBUG);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        final SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                mSearchController.onQueryChanged(newText);
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                mSearchController.reset();
+                mMoviesAdapter.setSearchResults(null);
+                return true;
+            }
+        });
         return true;
     }
 
@@ -201,8 +327,8 @@ public class MainActivity extends AppCompatActivity implements
         int id = item.getItemId();
 
         if (id == R.id.action_refresh) {
-            invalidateData();
-            getSupportLoaderManager().restartLoader(MOVIES_LOADER_ID, null, this);
+            mLoadingIndicator.setVisibility(View.VISIBLE);
+            MoviesRepository.getInstance(this).movies(currentMoviesList()).refresh();
             return true;
         }
 
@@ -212,11 +338,20 @@ public class MainActivity extends AppCompatActivity implements
             return true;
         }
 
+        if (id == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        }
+
         return super.onOptionsItemSelected(item);
     }
 
     @Override
-    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String s) {
-        PREFERENCES_HAVE_BEEN_UPDATED = true;
+    public void onPreferencesChanged(MoviesPreferences.Snapshot oldSnapshot, MoviesPreferences.Snapshot newSnapshot) {
+        // Filters and client side sort orders only rearrange what is already loaded.
+        mMoviesAdapter.setQuery(newSnapshot.getMovieQuery());
+
+        if (!newSnapshot.getMoviesList().equals(oldSnapshot.getMoviesList()))
+            mMoviesListChanged = true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.example.popularmovies;
+
+import android.os.Bundle;
+import android.support.v7.app.ActionBar;
+import android.support.v7.app.AppCompatActivity;
+import android.text.format.Formatter;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import com.example.popularmovies.utilities.LatencyHistogram;
+import com.example.popularmovies.utilities.NetworkMetrics;
+import com.example.popularmovies.utilities.StartupTrace;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.StatsSnapshot;
+
+import java.util.Locale;
+
+/**
+ * Debug screen listing the startup trace and the network metrics of this process.
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    private TextView mMetricsTv;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        setTitle(R.string.title_activity_metrics);
+
+        ActionBar actionBar = getSupportActionBar();
+        if (actionBar != null)
+            actionBar.setDisplayHomeAsUpEnabled(true);
+
+        mMetricsTv = findViewById(R.id.metrics_tv);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        StringBuilder report = new StringBuilder();
+
+        report.append("Startup (ms from process start)\n");
+        for (StartupTrace.Section section : StartupTrace.getSections()) {
+            report.append(String.format(Locale.US, "  %-18s %6d %+6d\n",
+                    section.getName(), section.getStartMillis(), section.getDurationMillis()));
+        }
+
+        for (NetworkMetrics.EndpointMetrics endpoint : NetworkMetrics.getEndpoints()) {
+            report.append('\n').append(endpoint.getName()).append('\n');
+            appendHistogram(report, "latency", endpoint.getLatency());
+            appendHistogram(report, "parse", endpoint.getParseTime());
+            report.append(String.format(Locale.US, "  bytes    %s on the wire, %s decoded\n",
+                    Formatter.formatShortFileSize(this, endpoint.getCompressedBytes()),
+                    Formatter.formatShortFileSize(this, endpoint.getDecompressedBytes())));
+            report.append(String.format(Locale.US, "  cache    hit %d, stale %d, revalidated %d, miss %d (%.0f%%)\n",
+                    endpoint.getCacheResultCount(NetworkMetrics.CACHE_HIT),
+                    endpoint.getCacheResultCount(NetworkMetrics.CACHE_STALE),
+                    endpoint.getCacheResultCount(NetworkMetrics.CACHE_REVALIDATED),
+                    endpoint.getCacheResultCount(NetworkMetrics.CACHE_MISS),
+                    100 * endpoint.getCacheHitRate()));
+            report.append(String.format(Locale.US, "  errors   timeout %d, connection %d, 4xx %d, 5xx %d, parse %d, throttled %d\n",
+                    endpoint.getErrorCount(NetworkMetrics.ERROR_TIMEOUT),
+                    endpoint.getErrorCount(NetworkMetrics.ERROR_CONNECTION),
+                    endpoint.getErrorCount(NetworkMetrics.ERROR_HTTP_CLIENT),
+                    endpoint.getErrorCount(NetworkMetrics.ERROR_HTTP_SERVER),
+                    endpoint.getErrorCount(NetworkMetrics.ERROR_PARSE),
+                    endpoint.getErrorCount(NetworkMetrics.ERROR_RATE_LIMITED)));
+        }
+
+        report.append(String.format(Locale.US, "\ndetails prefetch\n  issued %d, cancelled %d\n"
+                        + "  opened   hit %d, in flight %d, miss %d (%.0f%%)\n",
+                NetworkMetrics.getPrefetchEventCount(NetworkMetrics.PREFETCH_ISSUED),
+                NetworkMetrics.getPrefetchEventCount(NetworkMetrics.PREFETCH_CANCELLED),
+                NetworkMetrics.getPrefetchEventCount(NetworkMetrics.PREFETCH_HIT),
+                NetworkMetrics.getPrefetchEventCount(NetworkMetrics.PREFETCH_IN_FLIGHT),
+                NetworkMetrics.getPrefetchEventCount(NetworkMetrics.PREFETCH_MISS),
+                100 * NetworkMetrics.getPrefetchHitRate()));
+
+        StatsSnapshot imageStats = Picasso.with(this).getSnapshot();
+        report.append(String.format(Locale.US, "\nimage memory cache\n  hit %d, miss %d, %s of %s\n",
+                imageStats.cacheHits, imageStats.cacheMisses,
+                Formatter.formatShortFileSize(this, imageStats.size),
+                Formatter.formatShortFileSize(this, imageStats.maxSize)));
+
+        mMetricsTv.setText(report);
+    }
+
+    private static void appendHistogram(StringBuilder report, String label, LatencyHistogram histogram) {
+        report.append(String.format(Locale.US, "  %-8s n %d, p50 %d, p90 %d, p99 %d, max %d ms\n",
+                label, histogram.getCount(),
+                histogram.getPercentileMillis(0.5),
+                histogram.getPercentileMillis(0.9),
+                histogram.getPercentileMillis(0.99),
+                histogram.getMaxMillis()));
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+
+        if (id == android.R.id.home) {
+            onBackPressed();
+            return true;
+        }
+
+        if (id == R.id.action_refresh) {
+            showMetrics();
+            return true;
+        }
+
+        if (id == R.id.action_reset_metrics) {
+            NetworkMetrics.reset();
+            showMetrics();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.popularmovies;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.example.popularmovies.data.FavoritesStore;
+import com.example.popularmovies.data.IUIAppendableObject;
+import com.example.popularmovies.data.MovieDetails;
+import com.example.popularmovies.utilities.DisplayUtils;
+
+import java.io.File;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The text and images of the detail screen, formatted off the main thread so that showing a
+ * movie only means assigning them to views.
+ */
+public final class MovieDetailsPresentation {
+
+    // TMDb reports money in US dollars and uses zero for unknown amounts and runtimes.
+    private static final Locale AMOUNTS_LOCALE = Locale.US;
+    private static final String RELEASE_DATE_PATTERN = "yyyy-MM-dd";
+
+    private final String title;
+    private final String adult;
+    private final String budget;
+    private final String genres;
+    private final String homepage;
+    private final String originalLanguage;
+    private final String originalTitle;
+    private final String overview;
+    private final String popularity;
+    private final String productionCompanies;
+    private final String productionCountries;
+    private final String releaseDate;
+    private final String revenue;
+    private final String runtime;
+    private final String spokenLanguages;
+    private final String status;
+    private final String tagline;
+    private final String voteAverage;
+    private final String voteCount;
+    private final Uri posterUri;
+    private final Uri backdropUri;
+
+    // Null when the response had none, the screen then leaves their section out.
+    private final String videos;
+    private final String cast;
+    private final String reviews;
+
+    /**
+     * Does the formatting, call it on a background thread.
+     */
+    public static MovieDetailsPresentation from(Context context, MovieDetails movieDetails) {
+        return new MovieDetailsPresentation(context, movieDetails);
+    }
+
+    private MovieDetailsPresentation(Context context, MovieDetails movieDetails) {
+        String dataUnavailable = context.getString(R.string.data_unavailable);
+
+        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(AMOUNTS_LOCALE);
+        currencyFormat.setMaximumFractionDigits(0);
+        NumberFormat decimalFormat = NumberFormat.getNumberInstance();
+        decimalFormat.setMaximumFractionDigits(1);
+        NumberFormat integerFormat = NumberFormat.getIntegerInstance();
+
+        title = movieDetails.getTitle();
+        adult = context.getString(movieDetails.isAdult() ? R.string.yes : R.string.no);
+        budget = formatAmount(currencyFormat, movieDetails.getBudget(), dataUnavailable);
+        genres = joinOrUnavailable(movieDetails.getGenres(), dataUnavailable);
+        homepage = valueOrUnavailable(movieDetails.getHomepage(), dataUnavailable);
+        originalLanguage = valueOrUnavailable(movieDetails.getOriginalLanguage(), dataUnavailable);
+        originalTitle = valueOrUnavailable(movieDetails.getOriginalTitle(), dataUnavailable);
+        overview = valueOrUnavailable(movieDetails.getOverview(), dataUnavailable);
+        popularity = decimalFormat.format(movieDetails.getPopularity());
+        productionCompanies = joinOrUnavailable(movieDetails.getProductionCompanies(), dataUnavailable);
+        productionCountries = joinOrUnavailable(movieDetails.getProductionCountries(), dataUnavailable);
+        releaseDate = formatReleaseDate(movieDetails.getReleaseDate(), dataUnavailable);
+        revenue = formatAmount(currencyFormat, movieDetails.getRevenue(), dataUnavailable);
+        runtime = formatRuntime(movieDetails.getRuntime(), dataUnavailable);
+        spokenLanguages = joinOrUnavailable(movieDetails.getSpokenLanguages(), dataUnavailable);
+        status = valueOrUnavailable(movieDetails.getStatus(), dataUnavailable);
+        tagline = valueOrUnavailable(movieDetails.getTagline(), dataUnavailable);
+        voteAverage = decimalFormat.format(movieDetails.getVoteAverage());
+        voteCount = integerFormat.format(movieDetails.getVoteCount());
+
+        // Favorites show the images stored with them, which also works offline.
+        FavoritesStore favorites = FavoritesStore.getInstance(context);
+        File posterFile = favorites.getPosterFile(movieDetails.getId());
+        File backdropFile = favorites.getBackdropFile(movieDetails.getId());
+        posterUri = posterFile != null
+                ? Uri.fromFile(posterFile)
+                : DetailActivity.buildPosterUri(context, movieDetails.getPosterPath());
+        backdropUri = backdropFile != null
+                ? Uri.fromFile(backdropFile)
+                : DetailActivity.buildBackdropUri(context, movieDetails.getBackdropPath());
+
+        videos = joinOrNull(movieDetails.getVideos(), "\n");
+        cast = joinOrNull(movieDetails.getCast(), "\n");
+        reviews = joinOrNull(movieDetails.getReviews(), "\n\n");
+    }
+
+    private static String valueOrUnavailable(String value, String dataUnavailable) {
+        if (value == null || value.isEmpty())
+            return dataUnavailable;
+
+        return value;
+    }
+
+    private static <T extends IUIAppendableObject> String joinOrUnavailable(List<T> data, String dataUnavailable) {
+        if (data == null || data.isEmpty())
+            return dataUnavailable;
+
+        return valueOrUnavailable(DisplayUtils.joinUIAppendableValues(data), dataUnavailable);
+    }
+
+    private static <T extends IUIAppendableObject> String joinOrNull(List<T> data, String separator) {
+        if (data == null || data.isEmpty())
+            return null;
+
+        return DisplayUtils.joinUIAppendableValues(data, separator);
+    }
+
+    private static String formatAmount(NumberFormat currencyFormat, int amount, String dataUnavailable) {
+        if (amount <= 0)
+            return dataUnavailable;
+
+        return currencyFormat.format(amount);
+    }
+
+    private static String formatRuntime(int runtimeMinutes, String dataUnavailable) {
+        if (runtimeMinutes <= 0)
+            return dataUnavailable;
+
+        long hours = TimeUnit.MINUTES.toHours(runtimeMinutes);
+        long minutes = runtimeMinutes - TimeUnit.HOURS.toMinutes(hours);
+        return String.format(Locale.getDefault(), "%d:%02d", hours, minutes);
+    }
+
+    private static String formatReleaseDate(String releaseDate, String dataUnavailable) {
+        if (releaseDate == null || releaseDate.isEmpty())
+            return dataUnavailable;
+
+        try {
+            Date date = new SimpleDateFormat(RELEASE_DATE_PATTERN, Locale.US).parse(releaseDate);
+            return DateFormat.getDateInstance(DateFormat.MEDIUM).format(date);
+        } catch (ParseException e) {
+            return releaseDate;
+        }
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAdult() {
+        return adult;
+    }
+
+    public String getBudget() {
+        return budget;
+    }
+
+    public String getGenres() {
+        return genres;
+    }
+
+    public String getHomepage() {
+        return homepage;
+    }
+
+    public String getOriginalLanguage() {
+        return originalLanguage;
+    }
+
+    public String getOriginalTitle() {
+        return originalTitle;
+    }
+
+    public String getOverview() {
+        return overview;
+    }
+
+    public String getPopularity() {
+        return popularity;
+    }
+
+    public String getProductionCompanies() {
+        return productionCompanies;
+    }
+
+    public String getProductionCountries() {
+        return productionCountries;
+    }
+
+    public String getReleaseDate() {
+        return releaseDate;
+    }
+
+    public String getRevenue() {
+        return revenue;
+    }
+
+    public String getRuntime() {
+        return runtime;
+    }
+
+    public String getSpokenLanguages() {
+        return spokenLanguages;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getTagline() {
+        return tagline;
+    }
+
+    public String getVoteAverage() {
+        return voteAverage;
+    }
+
+    public String getVoteCount() {
+        return voteCount;
+    }
+
+    public Uri getPosterUri() {
+        return posterUri;
+    }
+
+    public Uri getBackdropUri() {
+        return backdropUri;
+    }
+
+    public String getVideos() {
+        return videos;
+    }
+
+    public String getCast() {
+        return cast;
+    }
+
+    public String getReviews() {
+        return reviews;
+    }
+
+    public boolean hasExtras() {
+        return videos != null || cast != null || reviews != null;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.popularmovies;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.popularmovies.data.Movie;
+import com.example.popularmovies.data.MovieSearchIndex;
+import com.example.popularmovies.data.MoviesResponse;
+import com.example.popularmovies.utilities.MoviesRequests;
+import com.example.popularmovies.utilities.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers type-ahead queries from the local search index right away, then asks TMDB once the
+ * user stops typing and appends whatever it finds that the index did not.
+ */
+public class MovieSearchController {
+
+    private static final int MAX_RESULTS = 40;
+    private static final long ONLINE_SEARCH_DEBOUNCE_MILLIS = 350;
+    private static final int MIN_ONLINE_QUERY_LENGTH = 2;
+
+    private final Context mContext;
+    private final SearchResultsHandler mResultsHandler;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private String mQuery;
+    private List<Movie> mLocalResults;
+    private Runnable mPendingOnlineSearch;
+
+    public interface SearchResultsHandler {
+        /**
+         * Receives null when there is nothing to search for and the regular list should show.
+         */
+        void onSearchResults(List<Movie> movies);
+    }
+
+    public MovieSearchController(Context context, SearchResultsHandler resultsHandler) {
+        mContext = context.getApplicationContext();
+        mResultsHandler = resultsHandler;
+    }
+
+    public void onQueryChanged(String query) {
+        final String trimmedQuery = query == null ? "" : query.trim();
+        if (trimmedQuery.equals(mQuery))
+            return;
+
+        cancel();
+        mQuery = trimmedQuery;
+
+        if (trimmedQuery.isEmpty()) {
+            mLocalResults = null;
+            mResultsHandler.onSearchResults(null);
+            return;
+        }
+
+        mLocalResults = MovieSearchIndex.getInstance().search(trimmedQuery, MAX_RESULTS);
+        mResultsHandler.onSearchResults(mLocalResults);
+
+        if (trimmedQuery.length() < MIN_ONLINE_QUERY_LENGTH)
+            return;
+
+        mPendingOnlineSearch = new Runnable() {
+            @Override
+            public void run() {
+                mPendingOnlineSearch = null;
+                searchOnline(trimmedQuery);
+            }
+        };
+        mHandler.postDelayed(mPendingOnlineSearch, ONLINE_SEARCH_DEBOUNCE_MILLIS);
+    }
+
+    private void searchOnline(final String query) {
+        RequestScheduler.getInstance().submit(MoviesRequests.searchMoviesKey(query),
+                RequestScheduler.PRIORITY_INTERACTIVE, this,
+                MoviesRequests.searchMovies(mContext, query),
+                new RequestScheduler.Callback<MoviesResponse>() {
+                    @Override
+                    public void onResult(MoviesResponse result) {
+                        onOnlineResults(query, result);
+                    }
+                });
+    }
+
+    private void onOnlineResults(String query, MoviesResponse moviesResponse) {
+        if (!query.equals(mQuery) || moviesResponse == null
+                || moviesResponse.getResults() == null)
+            return;
+
+        List<Movie> mergedResults = new ArrayList<>(mLocalResults);
+        Set<Integer> movieIds = new HashSet<>();
+        for (Movie movie : mLocalResults) {
+            movieIds.add(movie.getId());
+        }
+
+        for (Movie movie : moviesResponse.getResults()) {
+            if (mergedResults.size() >= MAX_RESULTS)
+                break;
+
+            if (movieIds.add(movie.getId()))
+                mergedResults.add(movie);
+        }
+
+        if (mergedResults.size() > mLocalResults.size())
+            mResultsHandler.onSearchResults(mergedResults);
+    }
+
+    /**
+     * Drops the pending online search, if any. The current results stay where they are.
+     */
+    public void cancel() {
+        if (mPendingOnlineSearch != null) {
+            mHandler.removeCallbacks(mPendingOnlineSearch);
+            mPendingOnlineSearch = null;
+        }
+
+        RequestScheduler.getInstance().cancelAll(this);
+    }
+
+    public void reset() {
+        cancel();
+        mQuery = null;
+        mLocalResults = null;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.popularmovies;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.AsyncTask;
+import android.support.v4.content.ContextCompat;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import com.example.popularmovies.data.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text layouts of the titles in the grid, built on a background thread as soon as a page of
+ * movies arrives and cached by movie id and width, so that binding a cell while scrolling does
+ * not measure any text.
+ */
+public class MovieTitleLayouts {
+
+    private static final int MAX_LINES = 2;
+    private static final int MAX_CACHED_LAYOUTS = 400;
+
+    private final TextPaint mPaint;
+    private final int mHorizontalPadding;
+    private final LruCache<String, Layout> mLayouts = new LruCache<>(MAX_CACHED_LAYOUTS);
+
+    private volatile int mWidth;
+
+    public MovieTitleLayouts(Context context) {
+        Resources resources = context.getResources();
+
+        mPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        mPaint.density = resources.getDisplayMetrics().density;
+        mPaint.setTextSize(resources.getDimension(R.dimen.movie_title_text_size));
+        mPaint.setColor(ContextCompat.getColor(context, android.R.color.white));
+
+        mHorizontalPadding = 2 * resources.getDimensionPixelSize(R.dimen.movie_title_padding_horizontal);
+    }
+
+    /**
+     * Sets the width of the cells the titles are shown in.
+     */
+    public void setCellWidth(int cellWidth) {
+        mWidth = Math.max(0, cellWidth - mHorizontalPadding);
+    }
+
+    public void precompute(List<Movie> movies) {
+        final int width = mWidth;
+        if (movies == null || movies.isEmpty() || width == 0)
+            return;
+
+        final List<Movie> moviesToLayout = new ArrayList<>(movies);
+        // Layouts keep the paint they are built with, each batch gets its own copy.
+        final TextPaint paint = new TextPaint(mPaint);
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Movie movie : moviesToLayout) {
+                    String key = key(movie, width);
+                    if (mLayouts.get(key) == null)
+                        mLayouts.put(key, buildLayout(movie.getTitle(), paint, width));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the layout of the movie's title, building it right away if it has not been
+     * precomputed yet. Returns null while the cell width is unknown.
+     */
+    public Layout get(Movie movie) {
+        int width = mWidth;
+        if (width == 0)
+            return null;
+
+        String key = key(movie, width);
+        Layout layout = mLayouts.get(key);
+        if (layout == null) {
+            layout = buildLayout(movie.getTitle(), mPaint, width);
+            mLayouts.put(key, layout);
+        }
+
+        return layout;
+    }
+
+    private static String key(Movie movie, int width) {
+        return movie.getId() + "/" + width;
+    }
+
+    private static Layout buildLayout(String title, TextPaint paint, int width) {
+        if (title == null)
+            title = "";
+
+        StaticLayout layout = new StaticLayout(title, paint, width,
+                Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+        if (layout.getLineCount() <= MAX_LINES)
+            return layout;
+
+        // Older platforms can't limit the lines of a StaticLayout, ellipsize the last one by hand.
+        int lastLineStart = layout.getLineStart(MAX_LINES - 1);
+        CharSequence lastLine = TextUtils.ellipsize(title.substring(lastLineStart), paint, width,
+                TextUtils.TruncateAt.END);
+        return new StaticLayout(title.substring(0, lastLineStart) + lastLine, paint, width,
+                Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+    }
+}
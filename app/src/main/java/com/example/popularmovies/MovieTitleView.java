@@ -0,0 +1,56 @@
+package com.example.popularmovies;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.text.Layout;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Draws a title laid out ahead of time by {@link MovieTitleLayouts}, vertically centered within
+ * its padding.
+ */
+public class MovieTitleView extends View {
+
+    private Layout mLayout;
+
+    public MovieTitleView(Context context) {
+        super(context);
+    }
+
+    public MovieTitleView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public MovieTitleView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    public void setTitle(CharSequence title, Layout layout) {
+        setContentDescription(title);
+
+        if (layout == mLayout)
+            return;
+
+        mLayout = layout;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        if (mLayout == null)
+            return;
+
+        int contentHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+        int top = getPaddingTop() + Math.max(0, (contentHeight - mLayout.getHeight()) / 2);
+
+        canvas.save();
+        canvas.clipRect(getPaddingLeft(), getPaddingTop(),
+                getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+        canvas.translate(getPaddingLeft(), top);
+        mLayout.draw(canvas);
+        canvas.restore();
+    }
+}
@@ -15,37 +15,135 @@
  */
 package com.example.popularmovies;
 
+import android.content.Context;
 import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
+import android.text.TextUtils;
 import android.view.ViewGroup;
 import android.widget.ImageView;
-import android.widget.TextView;
 
+import com.example.popularmovies.data.FavoritesStore;
 import com.example.popularmovies.data.Movie;
-import com.example.popularmovies.utilities.NetworkUtils;
+import com.example.popularmovies.data.MovieQuery;
+import com.example.popularmovies.data.MovieQueryEngine;
+import com.example.popularmovies.data.MoviesPageList;
+import com.example.popularmovies.data.MoviesResponse;
+import com.example.popularmovies.utilities.ImagePipeline;
+import com.example.popularmovies.utilities.ImageUrlResolver;
+import com.example.popularmovies.utilities.StartupTrace;
+import com.squareup.picasso.Callback;
 import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesAdapterViewHolder> {
 
-    private List<Movie> mMoviesData;
+    private static final int MAX_RETAINED_PAGES = 10;
+
+    public static final Object POSTER_REQUEST_TAG = new Object();
+
+    private static final Callback FIRST_POSTER_CALLBACK = new Callback() {
+        @Override
+        public void onSuccess() {
+            if (StartupTrace.isEnded(StartupTrace.FIRST_POSTER))
+                return;
+
+            StartupTrace.mark(StartupTrace.FIRST_POSTER);
+            StartupTrace.log();
+        }
+
+        @Override
+        public void onError() {
+        }
+    };
+
+    private final MoviesPageList mMoviesData;
     final private MoviesAdapterOnClickHandler mClickHandler;
+    private final MovieTitleLayouts mTitleLayouts;
+    private final FavoritesStore mFavorites;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private int mMoviesDataVersion;
+    private int mResetGeneration;
+    private boolean mResetPending;
+
+    private final MovieQueryEngine mQueryEngine = new MovieQueryEngine();
+    private MovieQuery mQuery = new MovieQuery();
+    // Null while the query leaves the loaded movies untouched.
+    private List<Movie> mDisplayedMovies;
+    private List<Movie> mMoviesSnapshot;
+    private int mMoviesSnapshotVersion = -1;
+    private int mQueryGeneration;
+
+    // Replaces everything else while the user is searching.
+    private List<Movie> mSearchResults;
+
+    private int mPosterWidth;
+    private int mPosterHeight;
+    private boolean mReduceImageResolution;
 
     public interface MoviesAdapterOnClickHandler {
         void onClick(Movie movie);
     }
 
-    public MoviesAdapter(MoviesAdapterOnClickHandler clickHandler) {
+    public MoviesAdapter(Context context, MoviesAdapterOnClickHandler clickHandler) {
         mClickHandler = clickHandler;
+        mTitleLayouts = new MovieTitleLayouts(context);
+        mFavorites = FavoritesStore.getInstance(context);
+        setHasStableIds(true);
+
+        mMoviesData = new MoviesPageList(MAX_RETAINED_PAGES, new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                mMoviesDataVersion++;
+                if (isQueryActive())
+                    refreshQueryResults();
+                else if (!isShowingSearchResults())
+                    notifyItemRangeInserted(position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                mMoviesDataVersion++;
+                if (isQueryActive())
+                    refreshQueryResults();
+                else if (!isShowingSearchResults())
+                    notifyItemRangeRemoved(position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                mMoviesDataVersion++;
+                if (isQueryActive())
+                    refreshQueryResults();
+                else if (!isShowingSearchResults())
+                    notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                if (isQueryActive())
+                    refreshQueryResults();
+                else if (!isShowingSearchResults())
+                    notifyItemRangeChanged(position, count, payload);
+            }
+        });
     }
 
     public class MoviesAdapterViewHolder extends RecyclerView.ViewHolder implements OnClickListener {
         public final ImageView mPosterIv;
-        public final TextView mTitleTv;
+        public final MovieTitleView mTitleTv;
 
         public MoviesAdapterViewHolder(View view) {
             super(view);
@@ -57,17 +155,36 @@ public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesAdap
         @Override
         public void onClick(View v) {
             int adapterPosition = getAdapterPosition();
-            Movie movie = mMoviesData.get(adapterPosition);
+            if (adapterPosition == RecyclerView.NO_POSITION)
+                return;
+
+            Movie movie = getMovie(adapterPosition);
             mClickHandler.onClick(movie);
         }
 
         public void bindToData(Movie movie) {
-            mTitleTv.setText(movie.getTitle());
+            mTitleTv.setTitle(movie.getTitle(), mTitleLayouts.get(movie));
 
-            Uri moviePosterUri = NetworkUtils.buildMovieImageUri(movie.getPosterPath());
-            Picasso.with(mPosterIv.getContext())
+            // Stored posters of favorites are used even online, they are already on the device.
+            File posterFile = mFavorites.getPosterFile(movie.getId());
+            Uri moviePosterUri = posterFile != null
+                    ? Uri.fromFile(posterFile)
+                    : ImageUrlResolver.posterUri(movie.getPosterPath(), mPosterWidth, mPosterHeight, mReduceImageResolution);
+            RequestCreator requestCreator = Picasso.with(mPosterIv.getContext())
                     .load(moviePosterUri)
-                    .into(mPosterIv);
+                    .config(ImagePipeline.THUMBNAIL_BITMAP_CONFIG)
+                    .tag(POSTER_REQUEST_TAG);
+
+            if (mPosterWidth > 0 && mPosterHeight > 0) {
+                requestCreator.resize(mPosterWidth, mPosterHeight)
+                        .centerCrop()
+                        .onlyScaleDown();
+            }
+
+            if (StartupTrace.isEnded(StartupTrace.FIRST_POSTER))
+                requestCreator.into(mPosterIv);
+            else
+                requestCreator.into(mPosterIv, FIRST_POSTER_CALLBACK);
         }
     }
 
@@ -79,20 +196,266 @@ public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesAdap
 
     @Override
     public void onBindViewHolder(MoviesAdapterViewHolder moviesAdapterViewHolder, int position) {
-        Movie movie = mMoviesData.get(position);
+        Movie movie = getMovie(position);
         moviesAdapterViewHolder.bindToData(movie);
     }
 
+    @Override
+    public void onViewRecycled(MoviesAdapterViewHolder moviesAdapterViewHolder) {
+        Picasso.with(moviesAdapterViewHolder.mPosterIv.getContext()).cancelRequest(moviesAdapterViewHolder.mPosterIv);
+    }
+
     @Override
     public int getItemCount() {
-        if (mMoviesData == null)
-            return 0;
+        if (mSearchResults != null)
+            return mSearchResults.size();
+
+        if (mDisplayedMovies != null)
+            return mDisplayedMovies.size();
 
         return mMoviesData.size();
     }
 
-    public void setMoviesData(List<Movie> moviesData) {
-        this.mMoviesData = moviesData;
-        notifyDataSetChanged();
+    public void setPosterSize(int posterWidth, int posterHeight) {
+        mPosterWidth = posterWidth;
+        mPosterHeight = posterHeight;
+
+        mTitleLayouts.setCellWidth(posterWidth);
+        mTitleLayouts.precompute(mMoviesData.getMovies());
+    }
+
+    public void setReduceImageResolution(boolean reduceImageResolution) {
+        mReduceImageResolution = reduceImageResolution;
+    }
+
+    public Movie getMovie(int position) {
+        if (mSearchResults != null)
+            return mSearchResults.get(position);
+
+        if (mDisplayedMovies != null)
+            return mDisplayedMovies.get(position);
+
+        return mMoviesData.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getMovie(position).getId();
+    }
+
+    /**
+     * Number of movies loaded from the lists, regardless of how many of them the query shows.
+     */
+    public int getLoadedItemCount() {
+        return mMoviesData.size();
+    }
+
+    public void setQuery(MovieQuery query) {
+        if (query.equals(mQuery))
+            return;
+
+        mQuery = query;
+        refreshQueryResults();
+    }
+
+    private boolean isQueryActive() {
+        return !mQuery.isIdentity();
+    }
+
+    /**
+     * Filters and sorts the loaded movies off the main thread, then dispatches the difference to
+     * what is currently displayed. Results of superseded runs are dropped.
+     */
+    private void refreshQueryResults() {
+        final int queryGeneration = ++mQueryGeneration;
+        final MovieQuery query = mQuery;
+        final List<Movie> oldMovies = currentMovies();
+
+        if (query.isIdentity()) {
+            if (mDisplayedMovies == null)
+                return;
+
+            List<Movie> newMovies = new ArrayList<>(mMoviesData.getMovies());
+            mDisplayedMovies = null;
+            if (!isShowingSearchResults())
+                DiffUtil.calculateDiff(new MoviesDiffCallback(oldMovies, newMovies)).dispatchUpdatesTo(this);
+            return;
+        }
+
+        if (mMoviesSnapshotVersion != mMoviesDataVersion || mMoviesSnapshot == null) {
+            mMoviesSnapshot = new ArrayList<>(mMoviesData.getMovies());
+            mMoviesSnapshotVersion = mMoviesDataVersion;
+        }
+        final List<Movie> movies = mMoviesSnapshot;
+        final int moviesVersion = mMoviesSnapshotVersion;
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Movie> newMovies = mQueryEngine.query(movies, moviesVersion, query);
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new MoviesDiffCallback(oldMovies, newMovies));
+
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (queryGeneration != mQueryGeneration)
+                            return;
+
+                        mDisplayedMovies = newMovies;
+                        if (!isShowingSearchResults())
+                            diffResult.dispatchUpdatesTo(MoviesAdapter.this);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Shows the given search results instead of the loaded movies, or goes back to them when the
+     * results are null.
+     */
+    public void setSearchResults(List<Movie> searchResults) {
+        List<Movie> oldSearchResults = mSearchResults;
+        mSearchResults = searchResults;
+        mTitleLayouts.precompute(searchResults);
+
+        if (oldSearchResults == null || searchResults == null)
+            notifyDataSetChanged();
+        else
+            DiffUtil.calculateDiff(new MoviesDiffCallback(oldSearchResults, searchResults)).dispatchUpdatesTo(this);
+    }
+
+    public boolean isShowingSearchResults() {
+        return mSearchResults != null;
+    }
+
+    private List<Movie> currentMovies() {
+        if (mDisplayedMovies != null)
+            return mDisplayedMovies;
+
+        return new ArrayList<>(mMoviesData.getMovies());
+    }
+
+    public void setMoviesData(MoviesResponse moviesResponse) {
+        updateMoviesData(moviesResponse, false);
+    }
+
+    /**
+     * Merges a newer version of one of the loaded pages, such as the refreshed first page, keeping
+     * the other pages and the scroll position. A page that is no longer loaded is ignored.
+     */
+    public void replaceMoviesPage(MoviesResponse moviesResponse) {
+        // Until a pending reset lands the loaded pages may belong to another list.
+        if (mMoviesData.isEmpty() || mResetPending) {
+            setMoviesData(moviesResponse);
+            return;
+        }
+
+        if (moviesResponse != null && mMoviesData.previewReplacePage(moviesResponse) != null)
+            updateMoviesData(moviesResponse, true);
+    }
+
+    private void updateMoviesData(final MoviesResponse moviesResponse, final boolean replacePage) {
+        final int resetGeneration = ++mResetGeneration;
+        if (moviesResponse != null)
+            mTitleLayouts.precompute(moviesResponse.getResults());
+
+        // Nothing to diff against on first load, so skip the round trip through the background.
+        if (mMoviesData.isEmpty()) {
+            mResetPending = false;
+            mMoviesData.reset(moviesResponse);
+            mMoviesDataVersion++;
+
+            if (isQueryActive())
+                refreshQueryResults();
+            else if (!isShowingSearchResults())
+                notifyDataSetChanged();
+            return;
+        }
+
+        final int moviesDataVersion = mMoviesDataVersion;
+        final List<Movie> oldMovies = new ArrayList<>(mMoviesData.getMovies());
+        final List<Movie> replacedMovies = replacePage ? mMoviesData.previewReplacePage(moviesResponse) : null;
+        mResetPending = !replacePage;
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<Movie> newMovies = replacePage ? replacedMovies : MoviesPageList.previewReset(moviesResponse);
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new MoviesDiffCallback(oldMovies, newMovies));
+
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (resetGeneration != mResetGeneration)
+                            return;
+
+                        mResetPending = false;
+                        boolean changedSinceDiff = moviesDataVersion != mMoviesDataVersion;
+                        if (replacePage)
+                            mMoviesData.replacePage(moviesResponse);
+                        else
+                            mMoviesData.reset(moviesResponse);
+                        mMoviesDataVersion++;
+
+                        if (isQueryActive())
+                            refreshQueryResults();
+                        else if (isShowingSearchResults())
+                            return;
+                        else if (changedSinceDiff)
+                            notifyDataSetChanged();
+                        else
+                            diffResult.dispatchUpdatesTo(MoviesAdapter.this);
+                    }
+                });
+            }
+        });
+    }
+
+    public boolean addMoviesPage(MoviesResponse moviesResponse) {
+        if (moviesResponse != null)
+            mTitleLayouts.precompute(moviesResponse.getResults());
+        return mMoviesData.addPage(moviesResponse);
+    }
+
+    public int getNextPage() {
+        return mMoviesData.getNextPage();
+    }
+
+    public int getPreviousPage() {
+        return mMoviesData.getPreviousPage();
+    }
+
+    private static class MoviesDiffCallback extends DiffUtil.Callback {
+        private final List<Movie> mOldMovies;
+        private final List<Movie> mNewMovies;
+
+        MoviesDiffCallback(List<Movie> oldMovies, List<Movie> newMovies) {
+            mOldMovies = oldMovies;
+            mNewMovies = newMovies;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldMovies.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewMovies.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldMovies.get(oldItemPosition).getId() == mNewMovies.get(newItemPosition).getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            Movie oldMovie = mOldMovies.get(oldItemPosition);
+            Movie newMovie = mNewMovies.get(newItemPosition);
+            return TextUtils.equals(oldMovie.getTitle(), newMovie.getTitle())
+                    && TextUtils.equals(oldMovie.getPosterPath(), newMovie.getPosterPath());
+        }
     }
-}
\ No newline at end of file
+}
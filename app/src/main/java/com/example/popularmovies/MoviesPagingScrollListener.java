@@ -0,0 +1,45 @@
+package com.example.popularmovies;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+public class MoviesPagingScrollListener extends RecyclerView.OnScrollListener {
+
+    private final int mPrefetchDistance;
+    private final PageRequestHandler mPageRequestHandler;
+
+    public interface PageRequestHandler {
+        void onNextPageRequested();
+
+        void onPreviousPageRequested();
+    }
+
+    public MoviesPagingScrollListener(int prefetchDistance, PageRequestHandler pageRequestHandler) {
+        mPrefetchDistance = prefetchDistance;
+        mPageRequestHandler = pageRequestHandler;
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager))
+            return;
+
+        LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+        int itemCount = linearLayoutManager.getItemCount();
+        if (itemCount == 0)
+            return;
+
+        if (dy >= 0) {
+            int lastVisiblePosition = linearLayoutManager.findLastVisibleItemPosition();
+            if (lastVisiblePosition != RecyclerView.NO_POSITION && lastVisiblePosition + mPrefetchDistance >= itemCount)
+                mPageRequestHandler.onNextPageRequested();
+        }
+
+        if (dy <= 0) {
+            int firstVisiblePosition = linearLayoutManager.findFirstVisibleItemPosition();
+            if (firstVisiblePosition != RecyclerView.NO_POSITION && firstVisiblePosition - mPrefetchDistance <= 0)
+                mPageRequestHandler.onPreviousPageRequested();
+        }
+    }
+}
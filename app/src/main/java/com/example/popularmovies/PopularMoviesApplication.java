@@ -0,0 +1,72 @@
+package com.example.popularmovies;
+
+import android.app.Application;
+
+import com.example.popularmovies.data.FavoritesStore;
+import com.example.popularmovies.data.LastKnownGrid;
+import com.example.popularmovies.sync.MoviesSyncUtils;
+import com.example.popularmovies.utilities.ImagePipeline;
+import com.example.popularmovies.utilities.NetworkUtils;
+import com.example.popularmovies.utilities.OkHttpTransport;
+import com.example.popularmovies.utilities.RateLimitingTransport;
+import com.example.popularmovies.utilities.ResponseDiskCache;
+import com.example.popularmovies.utilities.RetryingTransport;
+import com.example.popularmovies.utilities.StartupTrace;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+public class PopularMoviesApplication extends Application {
+
+    public static final long RESPONSE_CACHE_STALE_WHILE_REVALIDATE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private static final String RESPONSE_CACHE_DIRECTORY = "responses";
+    private static final long RESPONSE_CACHE_MAX_BYTES = 5 * 1024 * 1024;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_REQUEST_ATTEMPTS = 3;
+    private static final long RETRY_BASE_DELAY_MILLIS = 250;
+    private static final long RETRY_MAX_DELAY_MILLIS = 2000;
+
+    // Below the limit TMDB enforces per IP, with room for a full screen of requests at once.
+    private static final double MAX_REQUESTS_PER_SECOND = 20;
+    private static final int MAX_REQUEST_BURST = 40;
+    private static final long INTERACTIVE_MAX_THROTTLE_WAIT_MILLIS = 2000;
+    // Long enough for a few tokens, a throttled background request gives its worker back instead.
+    private static final long BACKGROUND_MAX_THROTTLE_WAIT_MILLIS = 250;
+
+    @Override
+    public void onCreate() {
+        StartupTrace.endSection(StartupTrace.PROCESS_START);
+        StartupTrace.beginSection(StartupTrace.APPLICATION_CREATE);
+        super.onCreate();
+
+        // Started first so that the disk reads overlap with the rest of the startup.
+        LastKnownGrid.preload(this);
+        FavoritesStore.getInstance(this);
+
+        File responseCacheDirectory = new File(getCacheDir(), RESPONSE_CACHE_DIRECTORY);
+        ResponseDiskCache.install(responseCacheDirectory,
+                RESPONSE_CACHE_MAX_BYTES,
+                RESPONSE_CACHE_STALE_WHILE_REVALIDATE_MILLIS);
+
+        ImagePipeline.install(this);
+
+        // Retries go through the limiter like any other request.
+        NetworkUtils.setTransport(new RetryingTransport(
+                new RateLimitingTransport(
+                        new OkHttpTransport(CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS),
+                        MAX_REQUESTS_PER_SECOND,
+                        MAX_REQUEST_BURST,
+                        INTERACTIVE_MAX_THROTTLE_WAIT_MILLIS,
+                        BACKGROUND_MAX_THROTTLE_WAIT_MILLIS),
+                MAX_REQUEST_ATTEMPTS,
+                RETRY_BASE_DELAY_MILLIS,
+                RETRY_MAX_DELAY_MILLIS));
+
+        MoviesSyncUtils.scheduleSync(this);
+
+        StartupTrace.endSection(StartupTrace.APPLICATION_CREATE);
+    }
+}
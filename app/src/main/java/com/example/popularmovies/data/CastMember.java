@@ -0,0 +1,107 @@
+package com.example.popularmovies.data;
+
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+public class CastMember implements IJsonDeserialize, IJsonStreamDeserialize, IUIAppendableObject {
+    public static final IJsonFactory<CastMember> FACTORY = new IJsonFactory<CastMember>() {
+        @Override
+        public CastMember create() {
+            return new CastMember();
+        }
+    };
+
+    private int id;
+    private String name;
+    private String character;
+    private String profilePath;
+    private int order;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCharacter() {
+        return character;
+    }
+
+    public void setCharacter(String character) {
+        this.character = character;
+    }
+
+    public String getProfilePath() {
+        return profilePath;
+    }
+
+    public void setProfilePath(String profilePath) {
+        this.profilePath = profilePath;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    @Override
+    public void fillPropertiesByJsonObject(JSONObject jsonObject) {
+        id = jsonObject.optInt("id");
+        name = jsonObject.optString("name");
+        character = jsonObject.optString("character");
+        profilePath = jsonObject.optString("profile_path");
+        order = jsonObject.optInt("order");
+    }
+
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "id":
+                    id = JsonUtils.optInt(jsonReader);
+                    break;
+                case "name":
+                    name = JsonUtils.optString(jsonReader);
+                    break;
+                case "character":
+                    character = JsonUtils.optString(jsonReader);
+                    break;
+                case "profile_path":
+                    profilePath = JsonUtils.optString(jsonReader);
+                    break;
+                case "order":
+                    order = JsonUtils.optInt(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+    @Override
+    public String getUIAppendableValue() {
+        if (character == null || character.isEmpty())
+            return name;
+
+        return name + " (" + character + ")";
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.popularmovies.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.popularmovies.utilities.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A value that is loaded from the local database first and from the network next, observed by
+ * any number of subscribers. The first subscriber starts both loads, later ones share them and
+ * get the latest value right away; once the last one leaves the loads are cancelled. Values are
+ * delivered on the main thread, and values arriving within the same frame are delivered once.
+ *
+ * Must only be used from the main thread.
+ */
+public class DataStream<T> {
+
+    public interface Observer<T> {
+        void onNext(T value);
+
+        /**
+         * The fresh value could not be loaded. The last value delivered, if any, is still valid.
+         */
+        void onError();
+    }
+
+    public interface Subscription {
+        void unsubscribe();
+    }
+
+    private final String mCachedKey;
+    private final Callable<T> mCachedSource;
+    private final String mFreshKey;
+    private final Callable<T> mFreshSource;
+    private final String mRefreshKey;
+    private final Callable<T> mRefreshSource;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<Observer<T>> mObservers = new ArrayList<>();
+
+    private T mValue;
+    private boolean mFreshLoaded;
+    private boolean mFreshLoading;
+
+    private boolean mValuePending;
+    private boolean mErrorPending;
+    private boolean mDispatchPosted;
+
+    private final Runnable mDispatch = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    DataStream(String cachedKey, Callable<T> cachedSource, String freshKey, Callable<T> freshSource) {
+        this(cachedKey, cachedSource, freshKey, freshSource, freshKey, freshSource);
+    }
+
+    /**
+     * The refresh source replaces the fresh source when the user asks for a refresh, such as one
+     * that skips the response cache.
+     */
+    DataStream(String cachedKey, Callable<T> cachedSource, String freshKey, Callable<T> freshSource,
+               String refreshKey, Callable<T> refreshSource) {
+        mCachedKey = cachedKey;
+        mCachedSource = cachedSource;
+        mFreshKey = freshKey;
+        mFreshSource = freshSource;
+        mRefreshKey = refreshKey;
+        mRefreshSource = refreshSource;
+    }
+
+    /**
+     * Sets the value new subscribers start from, if none has been loaded yet.
+     */
+    void seed(T value) {
+        if (mValue == null)
+            mValue = value;
+    }
+
+    public T getValue() {
+        return mValue;
+    }
+
+    public Subscription subscribe(final Observer<T> observer) {
+        mObservers.add(observer);
+
+        // A pending dispatch is going to deliver the value anyway.
+        if (mValue != null && !mValuePending)
+            observer.onNext(mValue);
+
+        if (!mFreshLoaded && !mFreshLoading)
+            load(mFreshKey, mFreshSource);
+
+        return new Subscription() {
+            private boolean mUnsubscribed;
+
+            @Override
+            public void unsubscribe() {
+                if (mUnsubscribed)
+                    return;
+
+                mUnsubscribed = true;
+                mObservers.remove(observer);
+                if (mObservers.isEmpty())
+                    stop();
+            }
+        };
+    }
+
+    /**
+     * Loads the fresh value again for the current subscribers, from the refresh source.
+     */
+    public void refresh() {
+        RequestScheduler.getInstance().cancelAll(this);
+        mFreshLoaded = false;
+        mFreshLoading = false;
+
+        if (!mObservers.isEmpty())
+            load(mRefreshKey, mRefreshSource);
+    }
+
+    private void load(String freshKey, Callable<T> freshSource) {
+        RequestScheduler requestScheduler = RequestScheduler.getInstance();
+
+        if (mValue == null && mCachedSource != null) {
+            requestScheduler.submit(mCachedKey, RequestScheduler.PRIORITY_INTERACTIVE, this, mCachedSource,
+                    new RequestScheduler.Callback<T>() {
+                        @Override
+                        public void onResult(T result) {
+                            onCachedValue(result);
+                        }
+                    });
+        }
+
+        mFreshLoading = true;
+        requestScheduler.submit(freshKey, RequestScheduler.PRIORITY_INTERACTIVE, this, freshSource,
+                new RequestScheduler.Callback<T>() {
+                    @Override
+                    public void onResult(T result) {
+                        onFreshValue(result);
+                    }
+                });
+    }
+
+    // Subscribers coming back later load the fresh value again, starting from the last one.
+    private void stop() {
+        RequestScheduler.getInstance().cancelAll(this);
+        mFreshLoaded = false;
+        mFreshLoading = false;
+    }
+
+    private void onCachedValue(T value) {
+        if (value == null || mFreshLoaded)
+            return;
+
+        publish(value);
+    }
+
+    private void onFreshValue(T value) {
+        mFreshLoading = false;
+        mFreshLoaded = true;
+
+        if (value == null) {
+            mErrorPending = true;
+            postDispatch();
+        } else {
+            publish(value);
+        }
+    }
+
+    private void publish(T value) {
+        mValue = value;
+        mValuePending = true;
+        mErrorPending = false;
+        postDispatch();
+    }
+
+    private void postDispatch() {
+        if (mDispatchPosted)
+            return;
+
+        mDispatchPosted = true;
+        mMainHandler.post(mDispatch);
+    }
+
+    private void dispatch() {
+        mDispatchPosted = false;
+        boolean valuePending = mValuePending;
+        boolean errorPending = mErrorPending;
+        mValuePending = false;
+        mErrorPending = false;
+
+        for (Observer<T> observer : new ArrayList<>(mObservers)) {
+            if (valuePending)
+                observer.onNext(mValue);
+            if (errorPending)
+                observer.onError();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.popularmovies.data;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.squareup.picasso.Picasso;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The movies the user starred, kept on the device with their details, poster and backdrop so that
+ * they can be shown without a network. Toggles change the in-memory set right away, the database
+ * and the image files follow in batches on a background thread, so that starring never waits on
+ * the disk and quick toggles of the same movie are written once.
+ *
+ * Must only be used from the main thread, except for the image files, which can be looked up
+ * from any thread.
+ */
+public final class FavoritesStore {
+
+    public interface Observer {
+        /**
+         * Called on the main thread when a movie was starred or unstarred, and once the stored
+         * favorites have been loaded.
+         */
+        void onFavoritesChanged();
+    }
+
+    // Toggles within this window are written together.
+    private static final long WRITE_DELAY_MILLIS = 500;
+
+    private static final String IMAGES_DIRECTORY = "favorites";
+    private static final int IMAGE_JPEG_QUALITY = 90;
+
+    private static FavoritesStore sInstance;
+
+    private final Context mContext;
+    private final MoviesDao mMoviesDao;
+    private final File mImagesDirectory;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ScheduledExecutorService mWriter = Executors.newSingleThreadScheduledExecutor();
+    private final List<Observer> mObservers = new ArrayList<>();
+
+    private final Set<Integer> mMovieIds = new HashSet<>();
+    private final Set<Integer> mToggledWhileLoading = new HashSet<>();
+    private boolean mLoaded;
+
+    // Latest change of each movie not written yet, guarded by itself.
+    private final Map<Integer, PendingChange> mPendingChanges = new LinkedHashMap<>();
+    private boolean mWriteScheduled;
+
+    private final Set<Integer> mSavedPosters = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private final Set<Integer> mSavedBackdrops = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private static class PendingChange {
+        final int movieId;
+        // Null when the movie was unstarred.
+        final MovieDetails movieDetails;
+        final Uri posterUri;
+        final Uri backdropUri;
+
+        PendingChange(int movieId, MovieDetails movieDetails, Uri posterUri, Uri backdropUri) {
+            this.movieId = movieId;
+            this.movieDetails = movieDetails;
+            this.posterUri = posterUri;
+            this.backdropUri = backdropUri;
+        }
+    }
+
+    private final Runnable mWrite = new Runnable() {
+        @Override
+        public void run() {
+            write();
+        }
+    };
+
+    public static synchronized FavoritesStore getInstance(Context context) {
+        if (sInstance == null)
+            sInstance = new FavoritesStore(context.getApplicationContext());
+
+        return sInstance;
+    }
+
+    private FavoritesStore(Context context) {
+        mContext = context;
+        mMoviesDao = new MoviesDao(context);
+        mImagesDirectory = new File(context.getFilesDir(), IMAGES_DIRECTORY);
+
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+    }
+
+    /**
+     * Whether the stored favorites have been read, until then no movie is a favorite.
+     */
+    public boolean isLoaded() {
+        return mLoaded;
+    }
+
+    public boolean isFavorite(int movieId) {
+        return mMovieIds.contains(movieId);
+    }
+
+    /**
+     * Stars the movie, the images are downloaded from the given URIs, either of which can be null.
+     */
+    public void add(MovieDetails movieDetails, Uri posterUri, Uri backdropUri) {
+        int movieId = movieDetails.getId();
+        mMovieIds.add(movieId);
+        if (!mLoaded)
+            mToggledWhileLoading.add(movieId);
+        enqueue(new PendingChange(movieId, movieDetails, posterUri, backdropUri));
+        notifyObservers();
+    }
+
+    public void remove(int movieId) {
+        mMovieIds.remove(movieId);
+        if (!mLoaded)
+            mToggledWhileLoading.add(movieId);
+        enqueue(new PendingChange(movieId, null, null, null));
+        notifyObservers();
+    }
+
+    /**
+     * Returns the stored poster of a favorite, or null if it has none yet.
+     */
+    public File getPosterFile(int movieId) {
+        return mSavedPosters.contains(movieId) ? posterFile(movieId) : null;
+    }
+
+    public File getBackdropFile(int movieId) {
+        return mSavedBackdrops.contains(movieId) ? backdropFile(movieId) : null;
+    }
+
+    public void addObserver(Observer observer) {
+        mObservers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        mObservers.remove(observer);
+    }
+
+    private void notifyObservers() {
+        for (Observer observer : new ArrayList<>(mObservers)) {
+            observer.onFavoritesChanged();
+        }
+    }
+
+    private void enqueue(PendingChange change) {
+        synchronized (mPendingChanges) {
+            // Re-inserted so that the batch keeps the order of the last toggles.
+            mPendingChanges.remove(change.movieId);
+            mPendingChanges.put(change.movieId, change);
+
+            if (mWriteScheduled)
+                return;
+
+            mWriteScheduled = true;
+        }
+
+        mWriter.schedule(mWrite, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void load() {
+        List<Integer> movieIds = new ArrayList<>();
+        try {
+            movieIds = mMoviesDao.queryFavoriteMovieIds();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        for (int movieId : movieIds) {
+            if (posterFile(movieId).exists())
+                mSavedPosters.add(movieId);
+            if (backdropFile(movieId).exists())
+                mSavedBackdrops.add(movieId);
+        }
+
+        final List<Integer> storedMovieIds = movieIds;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Toggles made while loading win over what was stored.
+                for (int movieId : storedMovieIds) {
+                    if (!mToggledWhileLoading.contains(movieId))
+                        mMovieIds.add(movieId);
+                }
+
+                mToggledWhileLoading.clear();
+                mLoaded = true;
+                notifyObservers();
+            }
+        });
+    }
+
+    private void write() {
+        List<PendingChange> changes;
+        synchronized (mPendingChanges) {
+            mWriteScheduled = false;
+            changes = new ArrayList<>(mPendingChanges.values());
+            mPendingChanges.clear();
+        }
+
+        List<MovieDetails> addedMovies = new ArrayList<>();
+        List<Integer> removedMovieIds = new ArrayList<>();
+        for (PendingChange change : changes) {
+            if (change.movieDetails != null)
+                addedMovies.add(change.movieDetails);
+            else
+                removedMovieIds.add(change.movieId);
+        }
+
+        try {
+            mMoviesDao.saveFavorites(addedMovies, removedMovieIds);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+
+        for (PendingChange change : changes) {
+            int movieId = change.movieId;
+            if (change.movieDetails != null) {
+                if (saveImage(change.posterUri, posterFile(movieId)))
+                    mSavedPosters.add(movieId);
+                if (saveImage(change.backdropUri, backdropFile(movieId)))
+                    mSavedBackdrops.add(movieId);
+            } else {
+                mSavedPosters.remove(movieId);
+                mSavedBackdrops.remove(movieId);
+                posterFile(movieId).delete();
+                backdropFile(movieId).delete();
+            }
+        }
+
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                MoviesRepository.getInstance(mContext).onFavoritesWritten();
+            }
+        });
+    }
+
+    private boolean saveImage(Uri uri, File file) {
+        if (uri == null)
+            return false;
+
+        if (!mImagesDirectory.isDirectory() && !mImagesDirectory.mkdirs())
+            return false;
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            Bitmap bitmap = Picasso.with(mContext).load(uri).get();
+            outputStream = new FileOutputStream(temporaryFile);
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, IMAGE_JPEG_QUALITY, outputStream))
+                return false;
+
+            outputStream.close();
+            outputStream = null;
+            return temporaryFile.renameTo(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            temporaryFile.delete();
+        }
+    }
+
+    private File posterFile(int movieId) {
+        return new File(mImagesDirectory, movieId + "_poster.jpg");
+    }
+
+    private File backdropFile(int movieId) {
+        return new File(mImagesDirectory, movieId + "_backdrop.jpg");
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.popularmovies.data;
+
+public interface IJsonFactory<T> {
+    T create();
+}
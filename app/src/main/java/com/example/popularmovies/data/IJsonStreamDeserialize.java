@@ -0,0 +1,9 @@
+package com.example.popularmovies.data;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+public interface IJsonStreamDeserialize {
+    void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.example.popularmovies.data;
+
+import android.content.Context;
+import android.os.AsyncTask;
+
+/**
+ * Reads the first stored page of the list the user last looked at while the process is still
+ * starting, so that the main screen can render its grid straight away instead of queueing a
+ * database read of its own after it has been created.
+ */
+public final class LastKnownGrid {
+
+    private static boolean sLoading;
+    private static String sMoviesList;
+    private static MoviesResponse sMoviesResponse;
+
+    public static synchronized void preload(Context context) {
+        if (sLoading || sMoviesResponse != null)
+            return;
+
+        sLoading = true;
+        final Context appContext = context.getApplicationContext();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Also loads the preferences, which the main screen needs next.
+                String moviesList = MoviesPreferences.getInstance(appContext).get().getMoviesList();
+
+                MoviesResponse moviesResponse = null;
+                try {
+                    moviesResponse = new MoviesDao(appContext).queryMoviesPage(moviesList, MoviesPageList.FIRST_PAGE);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                synchronized (LastKnownGrid.class) {
+                    sLoading = false;
+                    sMoviesList = moviesList;
+                    sMoviesResponse = moviesResponse;
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the preloaded page once, if it has been read already and belongs to the given list.
+     */
+    public static synchronized MoviesResponse take(String moviesList) {
+        MoviesResponse moviesResponse = sMoviesResponse;
+        sMoviesResponse = null;
+
+        if (moviesResponse == null || !moviesList.equals(sMoviesList))
+            return null;
+
+        return moviesResponse;
+    }
+}
@@ -2,17 +2,25 @@ package com.example.popularmovies.data;
 
 
 import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
 
 import org.json.JSONObject;
 
-import java.util.List;
+import java.io.IOException;
+
+public class Movie implements IJsonDeserialize, IJsonStreamDeserialize {
+    public static final IJsonFactory<Movie> FACTORY = new IJsonFactory<Movie>() {
+        @Override
+        public Movie create() {
+            return new Movie();
+        }
+    };
 
-public class Movie implements IJsonDeserialize {
     private String posterPath;
     private boolean adult;
     private String overview;
     private String releaseDate;
-    private List<Integer> genreIds;
+    private int[] genreIds = JsonUtils.EMPTY_INT_ARRAY;
     private int id;
     private String originalTitle;
     private String originalLanguage;
@@ -27,65 +35,148 @@ public class Movie implements IJsonDeserialize {
         return posterPath;
     }
 
+    public void setPosterPath(String posterPath) {
+        this.posterPath = posterPath;
+    }
+
     public boolean isAdult() {
         return adult;
     }
 
+    public void setAdult(boolean adult) {
+        this.adult = adult;
+    }
+
     public String getOverview() {
         return overview;
     }
 
+    public void setOverview(String overview) {
+        this.overview = overview;
+    }
+
     public String getReleaseDate() {
         return releaseDate;
     }
 
-    public List<Integer> getGenreIds() {
+    public void setReleaseDate(String releaseDate) {
+        this.releaseDate = releaseDate;
+    }
+
+    public int[] getGenreIds() {
         return genreIds;
     }
 
+    public void setGenreIds(int[] genreIds) {
+        this.genreIds = genreIds == null ? JsonUtils.EMPTY_INT_ARRAY : genreIds;
+    }
+
+    public boolean hasGenre(int genreId) {
+        for (int id : genreIds) {
+            if (id == genreId)
+                return true;
+        }
+
+        return false;
+    }
+
+    public boolean hasAnyGenre(int[] genreIds) {
+        for (int genreId : genreIds) {
+            if (hasGenre(genreId))
+                return true;
+        }
+
+        return false;
+    }
+
+    public boolean hasAllGenres(int[] genreIds) {
+        for (int genreId : genreIds) {
+            if (!hasGenre(genreId))
+                return false;
+        }
+
+        return true;
+    }
+
     public int getId() {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getOriginalTitle() {
         return originalTitle;
     }
 
+    public void setOriginalTitle(String originalTitle) {
+        this.originalTitle = originalTitle;
+    }
+
     public String getOriginalLanguage() {
         return originalLanguage;
     }
 
+    public void setOriginalLanguage(String originalLanguage) {
+        this.originalLanguage = originalLanguage;
+    }
+
     public String getTitle() {
         return title;
     }
 
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
     public String getBackdropPath() {
         return backdropPath;
     }
 
+    public void setBackdropPath(String backdropPath) {
+        this.backdropPath = backdropPath;
+    }
+
     public double getPopularity() {
         return popularity;
     }
 
+    public void setPopularity(double popularity) {
+        this.popularity = popularity;
+    }
+
     public int getVoteCount() {
         return voteCount;
     }
 
+    public void setVoteCount(int voteCount) {
+        this.voteCount = voteCount;
+    }
+
     public boolean isVideo() {
         return video;
     }
 
+    public void setVideo(boolean video) {
+        this.video = video;
+    }
+
     public double getVoteAverage() {
         return voteAverage;
     }
 
+    public void setVoteAverage(double voteAverage) {
+        this.voteAverage = voteAverage;
+    }
+
     @Override
     public void fillPropertiesByJsonObject(JSONObject jsonObject) {
         posterPath = jsonObject.optString("poster_path");
         adult = jsonObject.optBoolean("adult");
         overview = jsonObject.optString("overview");
         releaseDate = jsonObject.optString("release_date");
-        genreIds = JsonUtils.optIntList(jsonObject, "genre_ids");
+        genreIds = JsonUtils.optIntArray(jsonObject, "genre_ids");
         id = jsonObject.optInt("id");
         originalTitle = jsonObject.optString("original_title");
         originalLanguage = jsonObject.optString("original_language");
@@ -96,4 +187,58 @@ public class Movie implements IJsonDeserialize {
         video = jsonObject.optBoolean("video");
         voteAverage = jsonObject.optDouble("vote_average");
     }
+
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "poster_path":
+                    posterPath = JsonUtils.optString(jsonReader);
+                    break;
+                case "adult":
+                    adult = JsonUtils.optBoolean(jsonReader);
+                    break;
+                case "overview":
+                    overview = JsonUtils.optString(jsonReader);
+                    break;
+                case "release_date":
+                    releaseDate = JsonUtils.optString(jsonReader);
+                    break;
+                case "genre_ids":
+                    genreIds = JsonUtils.optIntArray(jsonReader);
+                    break;
+                case "id":
+                    id = JsonUtils.optInt(jsonReader);
+                    break;
+                case "original_title":
+                    originalTitle = JsonUtils.optString(jsonReader);
+                    break;
+                case "original_language":
+                    originalLanguage = JsonUtils.optString(jsonReader);
+                    break;
+                case "title":
+                    title = JsonUtils.optString(jsonReader);
+                    break;
+                case "backdrop_path":
+                    backdropPath = JsonUtils.optString(jsonReader);
+                    break;
+                case "popularity":
+                    popularity = JsonUtils.optDouble(jsonReader);
+                    break;
+                case "vote_count":
+                    voteCount = JsonUtils.optInt(jsonReader);
+                    break;
+                case "video":
+                    video = JsonUtils.optBoolean(jsonReader);
+                    break;
+                case "vote_average":
+                    voteAverage = JsonUtils.optDouble(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
 }
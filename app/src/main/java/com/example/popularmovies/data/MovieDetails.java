@@ -1,12 +1,24 @@
 package com.example.popularmovies.data;
 
 import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
 
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.List;
 
-public class MovieDetails implements IJsonDeserialize {
+public class MovieDetails implements IJsonDeserialize, IJsonStreamDeserialize {
+    public static final IJsonFactory<MovieDetails> FACTORY = new IJsonFactory<MovieDetails>() {
+        @Override
+        public MovieDetails create() {
+            return new MovieDetails();
+        }
+    };
+
+    // Cast lists run into the hundreds, only the top billed actors are shown.
+    public static final int MAX_CAST_MEMBERS = 10;
+
     private boolean adult;
     private String backdropPath;
     private int budget;
@@ -32,108 +44,233 @@ public class MovieDetails implements IJsonDeserialize {
     private double voteAverage;
     private int voteCount;
 
+    // Appended to the details response, not stored locally.
+    private List<Video> videos;
+    private List<CastMember> cast;
+    private List<Review> reviews;
+
     public boolean isAdult() {
         return adult;
     }
 
+    public void setAdult(boolean adult) {
+        this.adult = adult;
+    }
+
     public String getBackdropPath() {
         return backdropPath;
     }
 
+    public void setBackdropPath(String backdropPath) {
+        this.backdropPath = backdropPath;
+    }
+
     public int getBudget() {
         return budget;
     }
 
+    public void setBudget(int budget) {
+        this.budget = budget;
+    }
+
     public List<Genre> getGenres() {
         return genres;
     }
 
+    public void setGenres(List<Genre> genres) {
+        this.genres = genres;
+    }
+
     public String getHomepage() {
         return homepage;
     }
 
+    public void setHomepage(String homepage) {
+        this.homepage = homepage;
+    }
+
     public int getId() {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getImdbId() {
         return imdbId;
     }
 
+    public void setImdbId(String imdbId) {
+        this.imdbId = imdbId;
+    }
+
     public String getOriginalLanguage() {
         return originalLanguage;
     }
 
+    public void setOriginalLanguage(String originalLanguage) {
+        this.originalLanguage = originalLanguage;
+    }
+
     public String getOriginalTitle() {
         return originalTitle;
     }
 
+    public void setOriginalTitle(String originalTitle) {
+        this.originalTitle = originalTitle;
+    }
+
     public String getOverview() {
         return overview;
     }
 
+    public void setOverview(String overview) {
+        this.overview = overview;
+    }
+
     public double getPopularity() {
         return popularity;
     }
 
+    public void setPopularity(double popularity) {
+        this.popularity = popularity;
+    }
+
     public String getPosterPath() {
         return posterPath;
     }
 
+    public void setPosterPath(String posterPath) {
+        this.posterPath = posterPath;
+    }
+
     public List<ProductionCompany> getProductionCompanies() {
         return productionCompanies;
     }
 
+    public void setProductionCompanies(List<ProductionCompany> productionCompanies) {
+        this.productionCompanies = productionCompanies;
+    }
+
     public List<ProductionCountry> getProductionCountries() {
         return productionCountries;
     }
 
+    public void setProductionCountries(List<ProductionCountry> productionCountries) {
+        this.productionCountries = productionCountries;
+    }
+
     public String getReleaseDate() {
         return releaseDate;
     }
 
+    public void setReleaseDate(String releaseDate) {
+        this.releaseDate = releaseDate;
+    }
+
     public int getRevenue() {
         return revenue;
     }
 
+    public void setRevenue(int revenue) {
+        this.revenue = revenue;
+    }
+
     public int getRuntime() {
         return runtime;
     }
 
+    public void setRuntime(int runtime) {
+        this.runtime = runtime;
+    }
+
     public List<SpokenLanguage> getSpokenLanguages() {
         return spokenLanguages;
     }
 
+    public void setSpokenLanguages(List<SpokenLanguage> spokenLanguages) {
+        this.spokenLanguages = spokenLanguages;
+    }
+
     public String getStatus() {
         return status;
     }
 
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
     public String getTagline() {
         return tagline;
     }
 
+    public void setTagline(String tagline) {
+        this.tagline = tagline;
+    }
+
     public String getTitle() {
         return title;
     }
 
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
     public boolean isVideo() {
         return video;
     }
 
+    public void setVideo(boolean video) {
+        this.video = video;
+    }
+
     public double getVoteAverage() {
         return voteAverage;
     }
 
+    public void setVoteAverage(double voteAverage) {
+        this.voteAverage = voteAverage;
+    }
+
     public int getVoteCount() {
         return voteCount;
     }
 
+    public void setVoteCount(int voteCount) {
+        this.voteCount = voteCount;
+    }
+
+    public List<Video> getVideos() {
+        return videos;
+    }
+
+    public void setVideos(List<Video> videos) {
+        this.videos = videos;
+    }
+
+    public List<CastMember> getCast() {
+        return cast;
+    }
+
+    public void setCast(List<CastMember> cast) {
+        this.cast = cast;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public void setReviews(List<Review> reviews) {
+        this.reviews = reviews;
+    }
+
     @Override
     public void fillPropertiesByJsonObject(JSONObject jsonObject) {
         adult = jsonObject.optBoolean("adult");
         backdropPath = jsonObject.optString("backdrop_path");
         budget = jsonObject.optInt("budget");
-        genres = JsonUtils.optArrayList(jsonObject, "genres", Genre.class);
+        genres = JsonUtils.optArrayList(jsonObject, "genres", Genre.FACTORY);
         homepage = jsonObject.optString("homepage");
         id = jsonObject.optInt("id");
         imdbId = jsonObject.optString("imdb_id");
@@ -142,19 +279,113 @@ public class MovieDetails implements IJsonDeserialize {
         overview = jsonObject.optString("overview");
         popularity = jsonObject.optDouble("popularity");
         posterPath = jsonObject.optString("poster_path");
-        productionCompanies = JsonUtils.optArrayList(jsonObject, "production_companies", ProductionCompany.class);
-        productionCountries = JsonUtils.optArrayList(jsonObject, "production_countries", ProductionCountry.class);
+        productionCompanies = JsonUtils.optArrayList(jsonObject, "production_companies", ProductionCompany.FACTORY);
+        productionCountries = JsonUtils.optArrayList(jsonObject, "production_countries", ProductionCountry.FACTORY);
         releaseDate = jsonObject.optString("release_date");
         revenue = jsonObject.optInt("revenue");
         runtime = jsonObject.optInt("runtime");
-        spokenLanguages = JsonUtils.optArrayList(jsonObject, "spoken_languages", SpokenLanguage.class);
+        spokenLanguages = JsonUtils.optArrayList(jsonObject, "spoken_languages", SpokenLanguage.FACTORY);
         status = jsonObject.optString("status");
         tagline = jsonObject.optString("tagline");
         title = jsonObject.optString("title");
         video = jsonObject.optBoolean("video");
         voteAverage = jsonObject.optDouble("vote_average");
         voteCount = jsonObject.optInt("vote_count");
+        videos = JsonUtils.optNestedArrayList(jsonObject, "videos", "results", Video.FACTORY, Integer.MAX_VALUE);
+        cast = JsonUtils.optNestedArrayList(jsonObject, "credits", "cast", CastMember.FACTORY, MAX_CAST_MEMBERS);
+        reviews = JsonUtils.optNestedArrayList(jsonObject, "reviews", "results", Review.FACTORY, Integer.MAX_VALUE);
     }
-}
-
 
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "adult":
+                    adult = JsonUtils.optBoolean(jsonReader);
+                    break;
+                case "backdrop_path":
+                    backdropPath = JsonUtils.optString(jsonReader);
+                    break;
+                case "budget":
+                    budget = JsonUtils.optInt(jsonReader);
+                    break;
+                case "genres":
+                    genres = JsonUtils.optArrayList(jsonReader, Genre.FACTORY);
+                    break;
+                case "homepage":
+                    homepage = JsonUtils.optString(jsonReader);
+                    break;
+                case "id":
+                    id = JsonUtils.optInt(jsonReader);
+                    break;
+                case "imdb_id":
+                    imdbId = JsonUtils.optString(jsonReader);
+                    break;
+                case "original_language":
+                    originalLanguage = JsonUtils.optString(jsonReader);
+                    break;
+                case "original_title":
+                    originalTitle = JsonUtils.optString(jsonReader);
+                    break;
+                case "overview":
+                    overview = JsonUtils.optString(jsonReader);
+                    break;
+                case "popularity":
+                    popularity = JsonUtils.optDouble(jsonReader);
+                    break;
+                case "poster_path":
+                    posterPath = JsonUtils.optString(jsonReader);
+                    break;
+                case "production_companies":
+                    productionCompanies = JsonUtils.optArrayList(jsonReader, ProductionCompany.FACTORY);
+                    break;
+                case "production_countries":
+                    productionCountries = JsonUtils.optArrayList(jsonReader, ProductionCountry.FACTORY);
+                    break;
+                case "release_date":
+                    releaseDate = JsonUtils.optString(jsonReader);
+                    break;
+                case "revenue":
+                    revenue = JsonUtils.optInt(jsonReader);
+                    break;
+                case "runtime":
+                    runtime = JsonUtils.optInt(jsonReader);
+                    break;
+                case "spoken_languages":
+                    spokenLanguages = JsonUtils.optArrayList(jsonReader, SpokenLanguage.FACTORY);
+                    break;
+                case "status":
+                    status = JsonUtils.optString(jsonReader);
+                    break;
+                case "tagline":
+                    tagline = JsonUtils.optString(jsonReader);
+                    break;
+                case "title":
+                    title = JsonUtils.optString(jsonReader);
+                    break;
+                case "video":
+                    video = JsonUtils.optBoolean(jsonReader);
+                    break;
+                case "vote_average":
+                    voteAverage = JsonUtils.optDouble(jsonReader);
+                    break;
+                case "vote_count":
+                    voteCount = JsonUtils.optInt(jsonReader);
+                    break;
+                case "videos":
+                    videos = JsonUtils.optNestedArrayList(jsonReader, "results", Video.FACTORY, Integer.MAX_VALUE);
+                    break;
+                case "credits":
+                    cast = JsonUtils.optNestedArrayList(jsonReader, "cast", CastMember.FACTORY, MAX_CAST_MEMBERS);
+                    break;
+                case "reviews":
+                    reviews = JsonUtils.optNestedArrayList(jsonReader, "results", Review.FACTORY, Integer.MAX_VALUE);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+}
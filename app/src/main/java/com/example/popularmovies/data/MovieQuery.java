@@ -0,0 +1,158 @@
+package com.example.popularmovies.data;
+
+/**
+ * Filters and sort order applied on the device to the movies that are already loaded.
+ */
+public class MovieQuery {
+
+    public static final int SORT_LIST_ORDER = 0;
+    public static final int SORT_POPULARITY = 1;
+    public static final int SORT_VOTE_AVERAGE = 2;
+    public static final int SORT_RELEASE_DATE = 3;
+
+    public static final int ANY_GENRE = -1;
+    public static final int ANY_YEAR = 0;
+
+    private int genreId = ANY_GENRE;
+    private String originalLanguage;
+    private int minReleaseYear = ANY_YEAR;
+    private int maxReleaseYear = ANY_YEAR;
+    private boolean hideAdult;
+    private int minVoteCount;
+    private int sortOrder = SORT_LIST_ORDER;
+
+    public MovieQuery() {
+    }
+
+    public MovieQuery(MovieQuery other) {
+        genreId = other.genreId;
+        originalLanguage = other.originalLanguage;
+        minReleaseYear = other.minReleaseYear;
+        maxReleaseYear = other.maxReleaseYear;
+        hideAdult = other.hideAdult;
+        minVoteCount = other.minVoteCount;
+        sortOrder = other.sortOrder;
+    }
+
+    public int getGenreId() {
+        return genreId;
+    }
+
+    public void setGenreId(int genreId) {
+        this.genreId = genreId;
+    }
+
+    public String getOriginalLanguage() {
+        return originalLanguage;
+    }
+
+    public void setOriginalLanguage(String originalLanguage) {
+        this.originalLanguage = originalLanguage;
+    }
+
+    public int getMinReleaseYear() {
+        return minReleaseYear;
+    }
+
+    public void setMinReleaseYear(int minReleaseYear) {
+        this.minReleaseYear = minReleaseYear;
+    }
+
+    public int getMaxReleaseYear() {
+        return maxReleaseYear;
+    }
+
+    public void setMaxReleaseYear(int maxReleaseYear) {
+        this.maxReleaseYear = maxReleaseYear;
+    }
+
+    public boolean isHideAdult() {
+        return hideAdult;
+    }
+
+    public void setHideAdult(boolean hideAdult) {
+        this.hideAdult = hideAdult;
+    }
+
+    public int getMinVoteCount() {
+        return minVoteCount;
+    }
+
+    public void setMinVoteCount(int minVoteCount) {
+        this.minVoteCount = minVoteCount;
+    }
+
+    public int getSortOrder() {
+        return sortOrder;
+    }
+
+    public void setSortOrder(int sortOrder) {
+        this.sortOrder = sortOrder;
+    }
+
+    /**
+     * Returns true when the query keeps every movie in list order, so it can be skipped.
+     */
+    public boolean isIdentity() {
+        return !hasFilters() && sortOrder == SORT_LIST_ORDER;
+    }
+
+    public boolean hasFilters() {
+        return genreId != ANY_GENRE
+                || (originalLanguage != null && !originalLanguage.isEmpty())
+                || minReleaseYear != ANY_YEAR
+                || maxReleaseYear != ANY_YEAR
+                || hideAdult
+                || minVoteCount > 0;
+    }
+
+    public boolean matches(Movie movie, int releaseYear) {
+        if (genreId != ANY_GENRE && !movie.hasGenre(genreId))
+            return false;
+
+        if (originalLanguage != null && !originalLanguage.isEmpty()
+                && !originalLanguage.equalsIgnoreCase(movie.getOriginalLanguage()))
+            return false;
+
+        if (minReleaseYear != ANY_YEAR && (releaseYear == ANY_YEAR || releaseYear < minReleaseYear))
+            return false;
+
+        if (maxReleaseYear != ANY_YEAR && (releaseYear == ANY_YEAR || releaseYear > maxReleaseYear))
+            return false;
+
+        if (hideAdult && movie.isAdult())
+            return false;
+
+        return movie.getVoteCount() >= minVoteCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof MovieQuery))
+            return false;
+
+        MovieQuery other = (MovieQuery) o;
+        return genreId == other.genreId
+                && minReleaseYear == other.minReleaseYear
+                && maxReleaseYear == other.maxReleaseYear
+                && hideAdult == other.hideAdult
+                && minVoteCount == other.minVoteCount
+                && sortOrder == other.sortOrder
+                && (originalLanguage == null ? other.originalLanguage == null : originalLanguage.equals(other.originalLanguage));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = genreId;
+        result = 31 * result + (originalLanguage != null ? originalLanguage.hashCode() : 0);
+        result = 31 * result + minReleaseYear;
+        result = 31 * result + maxReleaseYear;
+        result = 31 * result + (hideAdult ? 1 : 0);
+        result = 31 * result + minVoteCount;
+        result = 31 * result + sortOrder;
+        return result;
+    }
+}
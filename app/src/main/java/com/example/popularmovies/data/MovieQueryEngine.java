@@ -0,0 +1,140 @@
+package com.example.popularmovies.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs {@link MovieQuery} instances over a list of movies. Release years and one position index
+ * per sort order are computed once per version of the list, so changing filters or switching
+ * between sort orders only walks an index instead of sorting again.
+ */
+public class MovieQueryEngine {
+
+    private static final int SORT_ORDER_COUNT = 4;
+
+    private List<Movie> mMovies;
+    private int mMoviesVersion = -1;
+    private int[] mReleaseYears;
+    private final int[][] mSortIndexes = new int[SORT_ORDER_COUNT][];
+
+    public synchronized List<Movie> query(List<Movie> movies, int moviesVersion, MovieQuery query) {
+        if (mMovies != movies || mMoviesVersion != moviesVersion)
+            index(movies, moviesVersion);
+
+        int[] sortIndex = sortIndex(query.getSortOrder());
+
+        List<Movie> results = new ArrayList<>();
+        for (int position : sortIndex) {
+            Movie movie = movies.get(position);
+            if (query.matches(movie, mReleaseYears[position]))
+                results.add(movie);
+        }
+
+        return results;
+    }
+
+    private void index(List<Movie> movies, int moviesVersion) {
+        mMovies = movies;
+        mMoviesVersion = moviesVersion;
+        Arrays.fill(mSortIndexes, null);
+
+        mReleaseYears = new int[movies.size()];
+        for (int i = 0; i < mReleaseYears.length; i++) {
+            mReleaseYears[i] = parseReleaseYear(movies.get(i).getReleaseDate());
+        }
+    }
+
+    private int[] sortIndex(int sortOrder) {
+        if (sortOrder < 0 || sortOrder >= SORT_ORDER_COUNT)
+            sortOrder = MovieQuery.SORT_LIST_ORDER;
+
+        int[] sortIndex = mSortIndexes[sortOrder];
+        if (sortIndex == null) {
+            sortIndex = buildSortIndex(sortOrder);
+            mSortIndexes[sortOrder] = sortIndex;
+        }
+
+        return sortIndex;
+    }
+
+    private int[] buildSortIndex(int sortOrder) {
+        int size = mMovies.size();
+        Integer[] positions = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = i;
+        }
+
+        if (sortOrder != MovieQuery.SORT_LIST_ORDER)
+            Arrays.sort(positions, comparatorFor(sortOrder));
+
+        int[] sortIndex = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortIndex[i] = positions[i];
+        }
+
+        return sortIndex;
+    }
+
+    /**
+     * Orders by the given key first and breaks ties by popularity, vote average, release date and
+     * finally by list position, so that every sort order is total and stable.
+     */
+    private Comparator<Integer> comparatorFor(final int sortOrder) {
+        return new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                Movie lhsMovie = mMovies.get(lhs);
+                Movie rhsMovie = mMovies.get(rhs);
+
+                int result = compareBy(sortOrder, lhsMovie, rhsMovie);
+                if (result == 0 && sortOrder != MovieQuery.SORT_POPULARITY)
+                    result = compareBy(MovieQuery.SORT_POPULARITY, lhsMovie, rhsMovie);
+                if (result == 0 && sortOrder != MovieQuery.SORT_VOTE_AVERAGE)
+                    result = compareBy(MovieQuery.SORT_VOTE_AVERAGE, lhsMovie, rhsMovie);
+                if (result == 0 && sortOrder != MovieQuery.SORT_RELEASE_DATE)
+                    result = compareBy(MovieQuery.SORT_RELEASE_DATE, lhsMovie, rhsMovie);
+                if (result == 0)
+                    result = lhs.compareTo(rhs);
+
+                return result;
+            }
+        };
+    }
+
+    // All keys sort in descending order: most popular, best rated and newest first.
+    private static int compareBy(int sortOrder, Movie lhs, Movie rhs) {
+        switch (sortOrder) {
+            case MovieQuery.SORT_POPULARITY:
+                return Double.compare(rhs.getPopularity(), lhs.getPopularity());
+            case MovieQuery.SORT_VOTE_AVERAGE:
+                return Double.compare(rhs.getVoteAverage(), lhs.getVoteAverage());
+            case MovieQuery.SORT_RELEASE_DATE:
+                return compareReleaseDates(rhs.getReleaseDate(), lhs.getReleaseDate());
+            default:
+                return 0;
+        }
+    }
+
+    // Release dates are ISO formatted, so they compare correctly as strings; missing dates are oldest.
+    private static int compareReleaseDates(String lhs, String rhs) {
+        boolean lhsMissing = lhs == null || lhs.isEmpty();
+        boolean rhsMissing = rhs == null || rhs.isEmpty();
+        if (lhsMissing || rhsMissing)
+            return lhsMissing == rhsMissing ? 0 : (lhsMissing ? -1 : 1);
+
+        return lhs.compareTo(rhs);
+    }
+
+    static int parseReleaseYear(String releaseDate) {
+        if (releaseDate == null || releaseDate.length() < 4)
+            return MovieQuery.ANY_YEAR;
+
+        try {
+            return Integer.parseInt(releaseDate.substring(0, 4));
+        } catch (NumberFormatException e) {
+            return MovieQuery.ANY_YEAR;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.popularmovies.data;
+
+import android.util.Log;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Inverted index over the titles, original titles and overviews of every movie the app has seen.
+ * Movies are added from background threads as pages and details arrive; after each burst of
+ * additions an immutable snapshot is rebuilt on a dedicated thread, so searching never waits for
+ * a writer and is cheap enough to run on the main thread while the user types.
+ */
+public final class MovieSearchIndex {
+
+    private static final String TAG = MovieSearchIndex.class.getSimpleName();
+
+    private static final int TITLE_WEIGHT = 8;
+    private static final int ORIGINAL_TITLE_WEIGHT = 4;
+    private static final int OVERVIEW_WEIGHT = 1;
+
+    private static final double POPULARITY_WEIGHT = 0.25;
+    private static final int MAX_DOCUMENTS = 5000;
+
+    private static final long FRAME_BUDGET_NANOS = 16 * 1000 * 1000;
+
+    private static MovieSearchIndex sInstance;
+
+    // Mutable side, guarded by this.
+    private final LinkedHashMap<Integer, Movie> mMovies = new LinkedHashMap<>();
+    private final Map<Integer, Map<String, Integer>> mMovieTerms = new HashMap<>();
+    private final TreeMap<String, Map<Integer, Integer>> mPostings = new TreeMap<>();
+    private boolean mPublishScheduled;
+
+    private final ExecutorService mPublishExecutor;
+    private volatile Snapshot mSnapshot = new Snapshot();
+
+    public static synchronized MovieSearchIndex getInstance() {
+        if (sInstance == null)
+            sInstance = new MovieSearchIndex();
+
+        return sInstance;
+    }
+
+    private MovieSearchIndex() {
+        mPublishExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "MovieSearchIndex");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    public void addMovies(List<Movie> movies) {
+        if (movies == null || movies.isEmpty())
+            return;
+
+        synchronized (this) {
+            for (Movie movie : movies) {
+                putMovie(movie);
+            }
+        }
+
+        schedulePublish();
+    }
+
+    public void addMovieDetails(MovieDetails movieDetails) {
+        if (movieDetails == null)
+            return;
+
+        synchronized (this) {
+            putMovie(movieFromDetails(movieDetails));
+        }
+
+        schedulePublish();
+    }
+
+    public int size() {
+        return mSnapshot.movies.length;
+    }
+
+    /**
+     * Returns up to maxResults movies containing every word of the query, the last word of which
+     * may be incomplete. Matches in titles weigh more than matches in overviews, whole words more
+     * than prefixes, and popular movies are ranked above obscure ones with similar relevance.
+     */
+    public List<Movie> search(String query, int maxResults) {
+        long startNanos = System.nanoTime();
+
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty())
+            return Collections.emptyList();
+
+        final Snapshot snapshot = mSnapshot;
+        int movieCount = snapshot.movies.length;
+        final float[] scores = new float[movieCount];
+        int[] matchedTokens = new int[movieCount];
+
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+
+            for (int i = firstTermWithPrefix(snapshot.terms, token); i < snapshot.terms.length; i++) {
+                String term = snapshot.terms[i];
+                if (!term.startsWith(token))
+                    break;
+
+                float completeness = (float) token.length() / term.length();
+                int[] postingMovies = snapshot.postingMovies[i];
+                int[] postingWeights = snapshot.postingWeights[i];
+                for (int p = 0; p < postingMovies.length; p++) {
+                    int movie = postingMovies[p];
+                    // A movie has to match every token, so anything that missed an earlier one is out.
+                    if (matchedTokens[movie] < t)
+                        continue;
+
+                    matchedTokens[movie] = t + 1;
+                    scores[movie] += postingWeights[p] * completeness;
+                }
+            }
+        }
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int movie = 0; movie < movieCount; movie++) {
+            if (matchedTokens[movie] == tokens.size()) {
+                scores[movie] *= snapshot.popularityBoosts[movie];
+                candidates.add(movie);
+            }
+        }
+
+        Collections.sort(candidates, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                int result = Float.compare(scores[rhs], scores[lhs]);
+                if (result == 0)
+                    result = Double.compare(snapshot.movies[rhs].getPopularity(), snapshot.movies[lhs].getPopularity());
+
+                return result;
+            }
+        });
+
+        int resultCount = Math.min(maxResults, candidates.size());
+        List<Movie> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            results.add(snapshot.movies[candidates.get(i)]);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos > FRAME_BUDGET_NANOS)
+            Log.w(TAG, "Searching " + movieCount + " movies for \"" + query + "\" took " + (elapsedNanos / 1000000) + " ms");
+
+        return results;
+    }
+
+    private void putMovie(Movie movie) {
+        removeMovie(movie.getId());
+
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, movie.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, movie.getOriginalTitle(), ORIGINAL_TITLE_WEIGHT);
+        addTerms(terms, movie.getOverview(), OVERVIEW_WEIGHT);
+
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            Map<Integer, Integer> postings = mPostings.get(term.getKey());
+            if (postings == null) {
+                postings = new HashMap<>();
+                mPostings.put(term.getKey(), postings);
+            }
+            postings.put(movie.getId(), term.getValue());
+        }
+
+        mMovies.put(movie.getId(), movie);
+        mMovieTerms.put(movie.getId(), terms);
+
+        // The movies seen longest ago go first.
+        Iterator<Integer> movieIds = mMovies.keySet().iterator();
+        while (mMovies.size() > MAX_DOCUMENTS && movieIds.hasNext()) {
+            int movieId = movieIds.next();
+            movieIds.remove();
+            removeTerms(movieId);
+        }
+    }
+
+    private void removeMovie(int movieId) {
+        if (mMovies.remove(movieId) != null)
+            removeTerms(movieId);
+    }
+
+    private void removeTerms(int movieId) {
+        Map<String, Integer> terms = mMovieTerms.remove(movieId);
+        if (terms == null)
+            return;
+
+        for (String term : terms.keySet()) {
+            Map<Integer, Integer> postings = mPostings.get(term);
+            postings.remove(movieId);
+            if (postings.isEmpty())
+                mPostings.remove(term);
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            Integer currentWeight = terms.get(token);
+            terms.put(token, currentWeight == null ? weight : currentWeight + weight);
+        }
+    }
+
+    private void schedulePublish() {
+        synchronized (this) {
+            if (mPublishScheduled)
+                return;
+
+            mPublishScheduled = true;
+        }
+
+        mPublishExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (MovieSearchIndex.this) {
+                    mPublishScheduled = false;
+                    mSnapshot = buildSnapshot();
+                }
+            }
+        });
+    }
+
+    private Snapshot buildSnapshot() {
+        Snapshot snapshot = new Snapshot();
+
+        int movieCount = mMovies.size();
+        snapshot.movies = new Movie[movieCount];
+        snapshot.popularityBoosts = new float[movieCount];
+
+        Map<Integer, Integer> ordinals = new HashMap<>(movieCount * 2);
+        int ordinal = 0;
+        for (Movie movie : mMovies.values()) {
+            snapshot.movies[ordinal] = movie;
+            snapshot.popularityBoosts[ordinal] = (float) (1 + POPULARITY_WEIGHT * Math.log1p(Math.max(0, movie.getPopularity())));
+            ordinals.put(movie.getId(), ordinal);
+            ordinal++;
+        }
+
+        int termCount = mPostings.size();
+        snapshot.terms = new String[termCount];
+        snapshot.postingMovies = new int[termCount][];
+        snapshot.postingWeights = new int[termCount][];
+
+        int termIndex = 0;
+        for (Map.Entry<String, Map<Integer, Integer>> term : mPostings.entrySet()) {
+            Map<Integer, Integer> postings = term.getValue();
+            int[] postingMovies = new int[postings.size()];
+            int[] postingWeights = new int[postings.size()];
+
+            int p = 0;
+            for (Map.Entry<Integer, Integer> posting : postings.entrySet()) {
+                postingMovies[p] = ordinals.get(posting.getKey());
+                postingWeights[p] = posting.getValue();
+                p++;
+            }
+
+            snapshot.terms[termIndex] = term.getKey();
+            snapshot.postingMovies[termIndex] = postingMovies;
+            snapshot.postingWeights[termIndex] = postingWeights;
+            termIndex++;
+        }
+
+        return snapshot;
+    }
+
+    private static int firstTermWithPrefix(String[] terms, String prefix) {
+        int index = Arrays.binarySearch(terms, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Splits text into lower case words without diacritics, dropping punctuation, so that
+     * "Amélie" and "amelie" or "don't" and "dont" index the same way.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty())
+            return tokens;
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (c == '\'' || c == '\u2019' || Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Apostrophes and combining marks stay inside the current word.
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+
+        if (token.length() > 0)
+            tokens.add(token.toString());
+
+        return tokens;
+    }
+
+    private static Movie movieFromDetails(MovieDetails movieDetails) {
+        Movie movie = new Movie();
+        movie.setId(movieDetails.getId());
+        movie.setTitle(movieDetails.getTitle());
+        movie.setOriginalTitle(movieDetails.getOriginalTitle());
+        movie.setOriginalLanguage(movieDetails.getOriginalLanguage());
+        movie.setOverview(movieDetails.getOverview());
+        movie.setPosterPath(movieDetails.getPosterPath());
+        movie.setBackdropPath(movieDetails.getBackdropPath());
+        movie.setReleaseDate(movieDetails.getReleaseDate());
+        movie.setAdult(movieDetails.isAdult());
+        movie.setPopularity(movieDetails.getPopularity());
+        movie.setVoteAverage(movieDetails.getVoteAverage());
+        movie.setVoteCount(movieDetails.getVoteCount());
+
+        List<Genre> genres = movieDetails.getGenres();
+        if (genres != null) {
+            int[] genreIds = new int[genres.size()];
+            for (int i = 0; i < genreIds.length; i++) {
+                genreIds[i] = genres.get(i).getId();
+            }
+            movie.setGenreIds(genreIds);
+        }
+
+        return movie;
+    }
+
+    private static final class Snapshot {
+        String[] terms = new String[0];
+        int[][] postingMovies = new int[0][];
+        int[][] postingWeights = new int[0][];
+        Movie[] movies = new Movie[0];
+        float[] popularityBoosts = new float[0];
+    }
+}
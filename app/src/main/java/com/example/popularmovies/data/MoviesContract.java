@@ -0,0 +1,151 @@
+package com.example.popularmovies.data;
+
+import android.provider.BaseColumns;
+
+public class MoviesContract {
+
+    public static final String LIST_POPULAR = "popular";
+    public static final String LIST_TOP_RATED = "top_rated";
+    // Kept only on the device, as a single page ordered by when each movie was starred.
+    public static final String LIST_FAVORITES = "favorites";
+
+    public static final class MovieEntry implements BaseColumns {
+        public static final String TABLE_NAME = "movies";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSTER_PATH = "poster_path";
+        public static final String COLUMN_ADULT = "adult";
+        public static final String COLUMN_OVERVIEW = "overview";
+        public static final String COLUMN_RELEASE_DATE = "release_date";
+        public static final String COLUMN_GENRE_IDS = "genre_ids";
+        public static final String COLUMN_ORIGINAL_TITLE = "original_title";
+        public static final String COLUMN_ORIGINAL_LANGUAGE = "original_language";
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_BACKDROP_PATH = "backdrop_path";
+        public static final String COLUMN_POPULARITY = "popularity";
+        public static final String COLUMN_VOTE_COUNT = "vote_count";
+        public static final String COLUMN_VIDEO = "video";
+        public static final String COLUMN_VOTE_AVERAGE = "vote_average";
+    }
+
+    public static final class MovieListPageEntry implements BaseColumns {
+        public static final String TABLE_NAME = "movie_list_pages";
+
+        public static final String COLUMN_LIST = "list";
+        public static final String COLUMN_PAGE = "page";
+        public static final String COLUMN_TOTAL_PAGES = "total_pages";
+        public static final String COLUMN_TOTAL_RESULTS = "total_results";
+        public static final String COLUMN_UPDATED_AT = "updated_at";
+    }
+
+    public static final class MovieListItemEntry implements BaseColumns {
+        public static final String TABLE_NAME = "movie_list_items";
+
+        public static final String COLUMN_LIST = "list";
+        public static final String COLUMN_PAGE = "page";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+    }
+
+    public static final class MovieDetailsEntry implements BaseColumns {
+        public static final String TABLE_NAME = "movie_details";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_ADULT = "adult";
+        public static final String COLUMN_BACKDROP_PATH = "backdrop_path";
+        public static final String COLUMN_BUDGET = "budget";
+        public static final String COLUMN_HOMEPAGE = "homepage";
+        public static final String COLUMN_IMDB_ID = "imdb_id";
+        public static final String COLUMN_ORIGINAL_LANGUAGE = "original_language";
+        public static final String COLUMN_ORIGINAL_TITLE = "original_title";
+        public static final String COLUMN_OVERVIEW = "overview";
+        public static final String COLUMN_POPULARITY = "popularity";
+        public static final String COLUMN_POSTER_PATH = "poster_path";
+        public static final String COLUMN_RELEASE_DATE = "release_date";
+        public static final String COLUMN_REVENUE = "revenue";
+        public static final String COLUMN_RUNTIME = "runtime";
+        public static final String COLUMN_STATUS = "status";
+        public static final String COLUMN_TAGLINE = "tagline";
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_VIDEO = "video";
+        public static final String COLUMN_VOTE_AVERAGE = "vote_average";
+        public static final String COLUMN_VOTE_COUNT = "vote_count";
+    }
+
+    public static final class GenreEntry implements BaseColumns {
+        public static final String TABLE_NAME = "genres";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_GENRE_ID = "genre_id";
+        public static final String COLUMN_NAME = "name";
+    }
+
+    public static final class ProductionCompanyEntry implements BaseColumns {
+        public static final String TABLE_NAME = "production_companies";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_COMPANY_ID = "company_id";
+        public static final String COLUMN_NAME = "name";
+    }
+
+    public static final class ProductionCountryEntry implements BaseColumns {
+        public static final String TABLE_NAME = "production_countries";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_ISO_3166_1 = "iso_3166_1";
+        public static final String COLUMN_NAME = "name";
+    }
+
+    public static final class SpokenLanguageEntry implements BaseColumns {
+        public static final String TABLE_NAME = "spoken_languages";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_ISO_639_1 = "iso_639_1";
+        public static final String COLUMN_NAME = "name";
+    }
+
+    public static final class VideoEntry implements BaseColumns {
+        public static final String TABLE_NAME = "videos";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_KEY = "key";
+        public static final String COLUMN_NAME = "name";
+        public static final String COLUMN_SITE = "site";
+        public static final String COLUMN_TYPE = "type";
+    }
+
+    public static final class CastMemberEntry implements BaseColumns {
+        public static final String TABLE_NAME = "cast_members";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_PERSON_ID = "person_id";
+        public static final String COLUMN_NAME = "name";
+        public static final String COLUMN_CHARACTER = "character";
+        public static final String COLUMN_PROFILE_PATH = "profile_path";
+        public static final String COLUMN_CAST_ORDER = "cast_order";
+    }
+
+    public static final class ReviewEntry implements BaseColumns {
+        public static final String TABLE_NAME = "reviews";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_POSITION = "position";
+        public static final String COLUMN_REVIEW_ID = "review_id";
+        public static final String COLUMN_AUTHOR = "author";
+        public static final String COLUMN_CONTENT = "content";
+        public static final String COLUMN_URL = "url";
+    }
+
+    public static final class FavoriteEntry implements BaseColumns {
+        public static final String TABLE_NAME = "favorites";
+
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+        public static final String COLUMN_ADDED_AT = "added_at";
+    }
+}
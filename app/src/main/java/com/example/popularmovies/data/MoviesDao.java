@@ -0,0 +1,741 @@
+package com.example.popularmovies.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.text.TextUtils;
+
+import com.example.popularmovies.data.MoviesContract.CastMemberEntry;
+import com.example.popularmovies.data.MoviesContract.FavoriteEntry;
+import com.example.popularmovies.data.MoviesContract.GenreEntry;
+import com.example.popularmovies.data.MoviesContract.MovieDetailsEntry;
+import com.example.popularmovies.data.MoviesContract.MovieEntry;
+import com.example.popularmovies.data.MoviesContract.MovieListItemEntry;
+import com.example.popularmovies.data.MoviesContract.MovieListPageEntry;
+import com.example.popularmovies.data.MoviesContract.ProductionCompanyEntry;
+import com.example.popularmovies.data.MoviesContract.ProductionCountryEntry;
+import com.example.popularmovies.data.MoviesContract.ReviewEntry;
+import com.example.popularmovies.data.MoviesContract.SpokenLanguageEntry;
+import com.example.popularmovies.data.MoviesContract.VideoEntry;
+import com.example.popularmovies.utilities.Clock;
+import com.example.popularmovies.utilities.JsonUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MoviesDao {
+
+    private static final String GENRE_IDS_SEPARATOR = ",";
+
+    private final MoviesDbHelper mDbHelper;
+    private final Clock mClock;
+
+    public MoviesDao(Context context) {
+        this(context, Clock.SYSTEM);
+    }
+
+    public MoviesDao(Context context, Clock clock) {
+        mDbHelper = MoviesDbHelper.getInstance(context);
+        mClock = clock;
+    }
+
+    public MoviesResponse queryMoviesPage(String list, int page) {
+        if (MoviesContract.LIST_FAVORITES.equals(list))
+            return page == MoviesPageList.FIRST_PAGE ? queryFavoriteMovies() : null;
+
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+        MoviesResponse moviesResponse;
+        Cursor pageCursor = database.query(MovieListPageEntry.TABLE_NAME,
+                new String[]{MovieListPageEntry.COLUMN_TOTAL_PAGES, MovieListPageEntry.COLUMN_TOTAL_RESULTS},
+                MovieListPageEntry.COLUMN_LIST + " = ? AND " + MovieListPageEntry.COLUMN_PAGE + " = ?",
+                new String[]{list, String.valueOf(page)},
+                null, null, null);
+        try {
+            if (!pageCursor.moveToFirst())
+                return null;
+
+            moviesResponse = new MoviesResponse();
+            moviesResponse.setPage(page);
+            moviesResponse.setTotalPages(pageCursor.getInt(0));
+            moviesResponse.setTotalResults(pageCursor.getInt(1));
+        } finally {
+            pageCursor.close();
+        }
+
+        String moviesQuery = "SELECT m.* FROM " + MovieListItemEntry.TABLE_NAME + " i" +
+                " INNER JOIN " + MovieEntry.TABLE_NAME + " m" +
+                " ON m." + MovieEntry.COLUMN_MOVIE_ID + " = i." + MovieListItemEntry.COLUMN_MOVIE_ID +
+                " WHERE i." + MovieListItemEntry.COLUMN_LIST + " = ? AND i." + MovieListItemEntry.COLUMN_PAGE + " = ?" +
+                " ORDER BY i." + MovieListItemEntry.COLUMN_POSITION;
+
+        List<Movie> movies = new ArrayList<>();
+        Cursor moviesCursor = database.rawQuery(moviesQuery, new String[]{list, String.valueOf(page)});
+        try {
+            while (moviesCursor.moveToNext()) {
+                movies.add(readMovie(moviesCursor));
+            }
+        } finally {
+            moviesCursor.close();
+        }
+
+        moviesResponse.setResults(movies);
+        return moviesResponse;
+    }
+
+    /**
+     * Returns when the given page was last saved, or 0 if it never was.
+     */
+    public long queryMoviesPageUpdatedAt(String list, int page) {
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+        Cursor cursor = database.query(MovieListPageEntry.TABLE_NAME,
+                new String[]{MovieListPageEntry.COLUMN_UPDATED_AT},
+                MovieListPageEntry.COLUMN_LIST + " = ? AND " + MovieListPageEntry.COLUMN_PAGE + " = ?",
+                new String[]{list, String.valueOf(page)},
+                null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Stores the page, writing only the movies whose stored row differs from the response and
+     * rewriting the list items only if the order of the page changed. Returns the number of movie
+     * and list item rows written. The page counts as updated only if the response came from the
+     * network, a cached response keeps the time the page was last fetched.
+     */
+    public int saveMoviesPage(String list, MoviesResponse moviesResponse) {
+        if (moviesResponse == null)
+            return 0;
+
+        List<Movie> movies = moviesResponse.getResults();
+        if (movies == null)
+            movies = new ArrayList<>();
+
+        int changedRows = 0;
+        SQLiteDatabase database = mDbHelper.getWritableDatabase();
+        database.beginTransaction();
+        try {
+            Map<Integer, ContentValues> storedMovies = queryMovieValues(database, movies);
+            for (Movie movie : movies) {
+                ContentValues movieValues = toContentValues(movie);
+                if (movieValues.equals(storedMovies.get(movie.getId())))
+                    continue;
+
+                database.insert(MovieEntry.TABLE_NAME, null, movieValues);
+                changedRows++;
+            }
+
+            String page = String.valueOf(moviesResponse.getPage());
+            if (!sameMovieIds(queryListItemMovieIds(database, list, page), movies)) {
+                database.delete(MovieListItemEntry.TABLE_NAME,
+                        MovieListItemEntry.COLUMN_LIST + " = ? AND " + MovieListItemEntry.COLUMN_PAGE + " = ?",
+                        new String[]{list, page});
+
+                for (int i = 0; i < movies.size(); i++) {
+                    ContentValues itemValues = new ContentValues();
+                    itemValues.put(MovieListItemEntry.COLUMN_LIST, list);
+                    itemValues.put(MovieListItemEntry.COLUMN_PAGE, moviesResponse.getPage());
+                    itemValues.put(MovieListItemEntry.COLUMN_POSITION, i);
+                    itemValues.put(MovieListItemEntry.COLUMN_MOVIE_ID, movies.get(i).getId());
+                    database.insert(MovieListItemEntry.TABLE_NAME, null, itemValues);
+                    changedRows++;
+                }
+            }
+
+            ContentValues pageValues = new ContentValues();
+            pageValues.put(MovieListPageEntry.COLUMN_LIST, list);
+            pageValues.put(MovieListPageEntry.COLUMN_PAGE, moviesResponse.getPage());
+            pageValues.put(MovieListPageEntry.COLUMN_TOTAL_PAGES, moviesResponse.getTotalPages());
+            pageValues.put(MovieListPageEntry.COLUMN_TOTAL_RESULTS, moviesResponse.getTotalResults());
+            pageValues.put(MovieListPageEntry.COLUMN_UPDATED_AT, moviesResponse.isFromNetwork()
+                    ? mClock.currentTimeMillis()
+                    : queryMoviesPageUpdatedAt(list, moviesResponse.getPage()));
+            database.insert(MovieListPageEntry.TABLE_NAME, null, pageValues);
+
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+
+        return changedRows;
+    }
+
+    private static Map<Integer, ContentValues> queryMovieValues(SQLiteDatabase database, List<Movie> movies) {
+        Map<Integer, ContentValues> movieValues = new HashMap<>();
+        if (movies.isEmpty())
+            return movieValues;
+
+        String[] selectionArgs = new String[movies.size()];
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < selectionArgs.length; i++) {
+            selectionArgs[i] = String.valueOf(movies.get(i).getId());
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+
+        Cursor cursor = database.query(MovieEntry.TABLE_NAME, null,
+                MovieEntry.COLUMN_MOVIE_ID + " IN (" + placeholders + ")", selectionArgs,
+                null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                Movie storedMovie = readMovie(cursor);
+                movieValues.put(storedMovie.getId(), toContentValues(storedMovie));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return movieValues;
+    }
+
+    private static List<Integer> queryListItemMovieIds(SQLiteDatabase database, String list, String page) {
+        List<Integer> movieIds = new ArrayList<>();
+        Cursor cursor = database.query(MovieListItemEntry.TABLE_NAME,
+                new String[]{MovieListItemEntry.COLUMN_MOVIE_ID},
+                MovieListItemEntry.COLUMN_LIST + " = ? AND " + MovieListItemEntry.COLUMN_PAGE + " = ?",
+                new String[]{list, page},
+                null, null, MovieListItemEntry.COLUMN_POSITION);
+        try {
+            while (cursor.moveToNext()) {
+                movieIds.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return movieIds;
+    }
+
+    private static boolean sameMovieIds(List<Integer> movieIds, List<Movie> movies) {
+        if (movieIds.size() != movies.size())
+            return false;
+
+        for (int i = 0; i < movies.size(); i++) {
+            if (movieIds.get(i) != movies.get(i).getId())
+                return false;
+        }
+
+        return true;
+    }
+
+    public MovieDetails queryMovieDetails(int movieId) {
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+        String[] selectionArgs = new String[]{String.valueOf(movieId)};
+
+        MovieDetails movieDetails;
+        Cursor cursor = database.query(MovieDetailsEntry.TABLE_NAME, null,
+                MovieDetailsEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs,
+                null, null, null);
+        try {
+            if (!cursor.moveToFirst())
+                return null;
+
+            movieDetails = readMovieDetails(cursor);
+        } finally {
+            cursor.close();
+        }
+
+        List<Genre> genres = new ArrayList<>();
+        cursor = queryMovieChildren(database, GenreEntry.TABLE_NAME, GenreEntry.COLUMN_MOVIE_ID, GenreEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                Genre genre = new Genre();
+                genre.setId(cursor.getInt(cursor.getColumnIndex(GenreEntry.COLUMN_GENRE_ID)));
+                genre.setName(cursor.getString(cursor.getColumnIndex(GenreEntry.COLUMN_NAME)));
+                genres.add(genre);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setGenres(genres);
+
+        List<ProductionCompany> productionCompanies = new ArrayList<>();
+        cursor = queryMovieChildren(database, ProductionCompanyEntry.TABLE_NAME, ProductionCompanyEntry.COLUMN_MOVIE_ID, ProductionCompanyEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                ProductionCompany productionCompany = new ProductionCompany();
+                productionCompany.setId(cursor.getInt(cursor.getColumnIndex(ProductionCompanyEntry.COLUMN_COMPANY_ID)));
+                productionCompany.setName(cursor.getString(cursor.getColumnIndex(ProductionCompanyEntry.COLUMN_NAME)));
+                productionCompanies.add(productionCompany);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setProductionCompanies(productionCompanies);
+
+        List<ProductionCountry> productionCountries = new ArrayList<>();
+        cursor = queryMovieChildren(database, ProductionCountryEntry.TABLE_NAME, ProductionCountryEntry.COLUMN_MOVIE_ID, ProductionCountryEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                ProductionCountry productionCountry = new ProductionCountry();
+                productionCountry.setIso31661(cursor.getString(cursor.getColumnIndex(ProductionCountryEntry.COLUMN_ISO_3166_1)));
+                productionCountry.setName(cursor.getString(cursor.getColumnIndex(ProductionCountryEntry.COLUMN_NAME)));
+                productionCountries.add(productionCountry);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setProductionCountries(productionCountries);
+
+        List<SpokenLanguage> spokenLanguages = new ArrayList<>();
+        cursor = queryMovieChildren(database, SpokenLanguageEntry.TABLE_NAME, SpokenLanguageEntry.COLUMN_MOVIE_ID, SpokenLanguageEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                SpokenLanguage spokenLanguage = new SpokenLanguage();
+                spokenLanguage.setIso6391(cursor.getString(cursor.getColumnIndex(SpokenLanguageEntry.COLUMN_ISO_639_1)));
+                spokenLanguage.setName(cursor.getString(cursor.getColumnIndex(SpokenLanguageEntry.COLUMN_NAME)));
+                spokenLanguages.add(spokenLanguage);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setSpokenLanguages(spokenLanguages);
+
+        List<Video> videos = new ArrayList<>();
+        cursor = queryMovieChildren(database, VideoEntry.TABLE_NAME, VideoEntry.COLUMN_MOVIE_ID, VideoEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                Video video = new Video();
+                video.setKey(cursor.getString(cursor.getColumnIndex(VideoEntry.COLUMN_KEY)));
+                video.setName(cursor.getString(cursor.getColumnIndex(VideoEntry.COLUMN_NAME)));
+                video.setSite(cursor.getString(cursor.getColumnIndex(VideoEntry.COLUMN_SITE)));
+                video.setType(cursor.getString(cursor.getColumnIndex(VideoEntry.COLUMN_TYPE)));
+                videos.add(video);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setVideos(videos);
+
+        List<CastMember> cast = new ArrayList<>();
+        cursor = queryMovieChildren(database, CastMemberEntry.TABLE_NAME, CastMemberEntry.COLUMN_MOVIE_ID, CastMemberEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                CastMember castMember = new CastMember();
+                castMember.setId(cursor.getInt(cursor.getColumnIndex(CastMemberEntry.COLUMN_PERSON_ID)));
+                castMember.setName(cursor.getString(cursor.getColumnIndex(CastMemberEntry.COLUMN_NAME)));
+                castMember.setCharacter(cursor.getString(cursor.getColumnIndex(CastMemberEntry.COLUMN_CHARACTER)));
+                castMember.setProfilePath(cursor.getString(cursor.getColumnIndex(CastMemberEntry.COLUMN_PROFILE_PATH)));
+                castMember.setOrder(cursor.getInt(cursor.getColumnIndex(CastMemberEntry.COLUMN_CAST_ORDER)));
+                cast.add(castMember);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setCast(cast);
+
+        List<Review> reviews = new ArrayList<>();
+        cursor = queryMovieChildren(database, ReviewEntry.TABLE_NAME, ReviewEntry.COLUMN_MOVIE_ID, ReviewEntry.COLUMN_POSITION, selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                Review review = new Review();
+                review.setId(cursor.getString(cursor.getColumnIndex(ReviewEntry.COLUMN_REVIEW_ID)));
+                review.setAuthor(cursor.getString(cursor.getColumnIndex(ReviewEntry.COLUMN_AUTHOR)));
+                review.setContent(cursor.getString(cursor.getColumnIndex(ReviewEntry.COLUMN_CONTENT)));
+                review.setUrl(cursor.getString(cursor.getColumnIndex(ReviewEntry.COLUMN_URL)));
+                reviews.add(review);
+            }
+        } finally {
+            cursor.close();
+        }
+        movieDetails.setReviews(reviews);
+
+        return movieDetails;
+    }
+
+    public void saveMovieDetails(MovieDetails movieDetails) {
+        if (movieDetails == null)
+            return;
+
+        SQLiteDatabase database = mDbHelper.getWritableDatabase();
+        database.beginTransaction();
+        try {
+            int movieId = movieDetails.getId();
+            database.insert(MovieDetailsEntry.TABLE_NAME, null, toContentValues(movieDetails));
+
+            String[] selectionArgs = new String[]{String.valueOf(movieId)};
+            database.delete(GenreEntry.TABLE_NAME, GenreEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+            database.delete(ProductionCompanyEntry.TABLE_NAME, ProductionCompanyEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+            database.delete(ProductionCountryEntry.TABLE_NAME, ProductionCountryEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+            database.delete(SpokenLanguageEntry.TABLE_NAME, SpokenLanguageEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+            database.delete(VideoEntry.TABLE_NAME, VideoEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+            database.delete(CastMemberEntry.TABLE_NAME, CastMemberEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+            database.delete(ReviewEntry.TABLE_NAME, ReviewEntry.COLUMN_MOVIE_ID + " = ?", selectionArgs);
+
+            List<Genre> genres = movieDetails.getGenres();
+            for (int i = 0; genres != null && i < genres.size(); i++) {
+                Genre genre = genres.get(i);
+                if (genre == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(GenreEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(GenreEntry.COLUMN_POSITION, i);
+                values.put(GenreEntry.COLUMN_GENRE_ID, genre.getId());
+                values.put(GenreEntry.COLUMN_NAME, genre.getName());
+                database.insert(GenreEntry.TABLE_NAME, null, values);
+            }
+
+            List<ProductionCompany> productionCompanies = movieDetails.getProductionCompanies();
+            for (int i = 0; productionCompanies != null && i < productionCompanies.size(); i++) {
+                ProductionCompany productionCompany = productionCompanies.get(i);
+                if (productionCompany == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(ProductionCompanyEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(ProductionCompanyEntry.COLUMN_POSITION, i);
+                values.put(ProductionCompanyEntry.COLUMN_COMPANY_ID, productionCompany.getId());
+                values.put(ProductionCompanyEntry.COLUMN_NAME, productionCompany.getName());
+                database.insert(ProductionCompanyEntry.TABLE_NAME, null, values);
+            }
+
+            List<ProductionCountry> productionCountries = movieDetails.getProductionCountries();
+            for (int i = 0; productionCountries != null && i < productionCountries.size(); i++) {
+                ProductionCountry productionCountry = productionCountries.get(i);
+                if (productionCountry == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(ProductionCountryEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(ProductionCountryEntry.COLUMN_POSITION, i);
+                values.put(ProductionCountryEntry.COLUMN_ISO_3166_1, productionCountry.getIso31661());
+                values.put(ProductionCountryEntry.COLUMN_NAME, productionCountry.getName());
+                database.insert(ProductionCountryEntry.TABLE_NAME, null, values);
+            }
+
+            List<SpokenLanguage> spokenLanguages = movieDetails.getSpokenLanguages();
+            for (int i = 0; spokenLanguages != null && i < spokenLanguages.size(); i++) {
+                SpokenLanguage spokenLanguage = spokenLanguages.get(i);
+                if (spokenLanguage == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(SpokenLanguageEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(SpokenLanguageEntry.COLUMN_POSITION, i);
+                values.put(SpokenLanguageEntry.COLUMN_ISO_639_1, spokenLanguage.getIso6391());
+                values.put(SpokenLanguageEntry.COLUMN_NAME, spokenLanguage.getName());
+                database.insert(SpokenLanguageEntry.TABLE_NAME, null, values);
+            }
+
+            List<Video> videos = movieDetails.getVideos();
+            for (int i = 0; videos != null && i < videos.size(); i++) {
+                Video video = videos.get(i);
+                if (video == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(VideoEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(VideoEntry.COLUMN_POSITION, i);
+                values.put(VideoEntry.COLUMN_KEY, video.getKey());
+                values.put(VideoEntry.COLUMN_NAME, video.getName());
+                values.put(VideoEntry.COLUMN_SITE, video.getSite());
+                values.put(VideoEntry.COLUMN_TYPE, video.getType());
+                database.insert(VideoEntry.TABLE_NAME, null, values);
+            }
+
+            List<CastMember> cast = movieDetails.getCast();
+            for (int i = 0; cast != null && i < cast.size(); i++) {
+                CastMember castMember = cast.get(i);
+                if (castMember == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(CastMemberEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(CastMemberEntry.COLUMN_POSITION, i);
+                values.put(CastMemberEntry.COLUMN_PERSON_ID, castMember.getId());
+                values.put(CastMemberEntry.COLUMN_NAME, castMember.getName());
+                values.put(CastMemberEntry.COLUMN_CHARACTER, castMember.getCharacter());
+                values.put(CastMemberEntry.COLUMN_PROFILE_PATH, castMember.getProfilePath());
+                values.put(CastMemberEntry.COLUMN_CAST_ORDER, castMember.getOrder());
+                database.insert(CastMemberEntry.TABLE_NAME, null, values);
+            }
+
+            List<Review> reviews = movieDetails.getReviews();
+            for (int i = 0; reviews != null && i < reviews.size(); i++) {
+                Review review = reviews.get(i);
+                if (review == null)
+                    continue;
+
+                ContentValues values = new ContentValues();
+                values.put(ReviewEntry.COLUMN_MOVIE_ID, movieId);
+                values.put(ReviewEntry.COLUMN_POSITION, i);
+                values.put(ReviewEntry.COLUMN_REVIEW_ID, review.getId());
+                values.put(ReviewEntry.COLUMN_AUTHOR, review.getAuthor());
+                values.put(ReviewEntry.COLUMN_CONTENT, review.getContent());
+                values.put(ReviewEntry.COLUMN_URL, review.getUrl());
+                database.insert(ReviewEntry.TABLE_NAME, null, values);
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    public List<Integer> queryFavoriteMovieIds() {
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+        List<Integer> movieIds = new ArrayList<>();
+        Cursor cursor = database.query(FavoriteEntry.TABLE_NAME,
+                new String[]{FavoriteEntry.COLUMN_MOVIE_ID},
+                null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                movieIds.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return movieIds;
+    }
+
+    /**
+     * Returns the favorite movies, most recently starred first, as the only page of their list.
+     */
+    public MoviesResponse queryFavoriteMovies() {
+        SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+        String moviesQuery = "SELECT d.* FROM " + FavoriteEntry.TABLE_NAME + " f" +
+                " INNER JOIN " + MovieDetailsEntry.TABLE_NAME + " d" +
+                " ON d." + MovieDetailsEntry.COLUMN_MOVIE_ID + " = f." + FavoriteEntry.COLUMN_MOVIE_ID +
+                " ORDER BY f." + FavoriteEntry.COLUMN_ADDED_AT + " DESC";
+
+        List<Movie> movies = new ArrayList<>();
+        Cursor cursor = database.rawQuery(moviesQuery, null);
+        try {
+            while (cursor.moveToNext()) {
+                movies.add(readFavoriteMovie(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        // Favorites store the genres of their details, the grid filters on their ids.
+        Map<Integer, List<Integer>> genreIds = new HashMap<>();
+        cursor = database.query(GenreEntry.TABLE_NAME,
+                new String[]{GenreEntry.COLUMN_MOVIE_ID, GenreEntry.COLUMN_GENRE_ID},
+                GenreEntry.COLUMN_MOVIE_ID + " IN (SELECT " + FavoriteEntry.COLUMN_MOVIE_ID +
+                        " FROM " + FavoriteEntry.TABLE_NAME + ")", null,
+                null, null, GenreEntry.COLUMN_MOVIE_ID + ", " + GenreEntry.COLUMN_POSITION);
+        try {
+            while (cursor.moveToNext()) {
+                List<Integer> movieGenreIds = genreIds.get(cursor.getInt(0));
+                if (movieGenreIds == null) {
+                    movieGenreIds = new ArrayList<>();
+                    genreIds.put(cursor.getInt(0), movieGenreIds);
+                }
+                movieGenreIds.add(cursor.getInt(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for (Movie movie : movies) {
+            List<Integer> movieGenreIds = genreIds.get(movie.getId());
+            if (movieGenreIds == null)
+                continue;
+
+            int[] ids = new int[movieGenreIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = movieGenreIds.get(i);
+            }
+            movie.setGenreIds(ids);
+        }
+
+        MoviesResponse moviesResponse = new MoviesResponse();
+        moviesResponse.setPage(MoviesPageList.FIRST_PAGE);
+        moviesResponse.setTotalPages(1);
+        moviesResponse.setTotalResults(movies.size());
+        moviesResponse.setResults(movies);
+        return moviesResponse;
+    }
+
+    /**
+     * Applies a batch of favorite changes in one transaction, storing the details of the added
+     * movies along with them. Details of removed movies are left to the cache.
+     */
+    public void saveFavorites(Collection<MovieDetails> addedMovies, Collection<Integer> removedMovieIds) {
+        SQLiteDatabase database = mDbHelper.getWritableDatabase();
+        database.beginTransaction();
+        try {
+            long addedAt = mClock.currentTimeMillis();
+            for (MovieDetails movieDetails : addedMovies) {
+                saveMovieDetails(movieDetails);
+
+                ContentValues values = new ContentValues();
+                values.put(FavoriteEntry.COLUMN_MOVIE_ID, movieDetails.getId());
+                values.put(FavoriteEntry.COLUMN_ADDED_AT, addedAt++);
+                database.insert(FavoriteEntry.TABLE_NAME, null, values);
+            }
+
+            for (int movieId : removedMovieIds) {
+                database.delete(FavoriteEntry.TABLE_NAME, FavoriteEntry.COLUMN_MOVIE_ID + " = ?",
+                        new String[]{String.valueOf(movieId)});
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    private static Cursor queryMovieChildren(SQLiteDatabase database, String tableName, String movieIdColumn,
+                                             String positionColumn, String[] selectionArgs) {
+        return database.query(tableName, null, movieIdColumn + " = ?", selectionArgs,
+                null, null, positionColumn);
+    }
+
+    private static Movie readMovie(Cursor cursor) {
+        Movie movie = new Movie();
+        movie.setId(cursor.getInt(cursor.getColumnIndex(MovieEntry.COLUMN_MOVIE_ID)));
+        movie.setPosterPath(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_POSTER_PATH)));
+        movie.setAdult(cursor.getInt(cursor.getColumnIndex(MovieEntry.COLUMN_ADULT)) != 0);
+        movie.setOverview(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_OVERVIEW)));
+        movie.setReleaseDate(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_RELEASE_DATE)));
+        movie.setGenreIds(parseGenreIds(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_GENRE_IDS))));
+        movie.setOriginalTitle(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_ORIGINAL_TITLE)));
+        movie.setOriginalLanguage(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_ORIGINAL_LANGUAGE)));
+        movie.setTitle(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_TITLE)));
+        movie.setBackdropPath(cursor.getString(cursor.getColumnIndex(MovieEntry.COLUMN_BACKDROP_PATH)));
+        movie.setPopularity(cursor.getDouble(cursor.getColumnIndex(MovieEntry.COLUMN_POPULARITY)));
+        movie.setVoteCount(cursor.getInt(cursor.getColumnIndex(MovieEntry.COLUMN_VOTE_COUNT)));
+        movie.setVideo(cursor.getInt(cursor.getColumnIndex(MovieEntry.COLUMN_VIDEO)) != 0);
+        movie.setVoteAverage(cursor.getDouble(cursor.getColumnIndex(MovieEntry.COLUMN_VOTE_AVERAGE)));
+        return movie;
+    }
+
+    private static Movie readFavoriteMovie(Cursor cursor) {
+        Movie movie = new Movie();
+        movie.setId(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_MOVIE_ID)));
+        movie.setPosterPath(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_POSTER_PATH)));
+        movie.setAdult(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_ADULT)) != 0);
+        movie.setOverview(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_OVERVIEW)));
+        movie.setReleaseDate(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_RELEASE_DATE)));
+        movie.setOriginalTitle(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_ORIGINAL_TITLE)));
+        movie.setOriginalLanguage(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_ORIGINAL_LANGUAGE)));
+        movie.setTitle(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_TITLE)));
+        movie.setBackdropPath(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_BACKDROP_PATH)));
+        movie.setPopularity(cursor.getDouble(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_POPULARITY)));
+        movie.setVoteCount(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_VOTE_COUNT)));
+        movie.setVideo(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_VIDEO)) != 0);
+        movie.setVoteAverage(cursor.getDouble(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_VOTE_AVERAGE)));
+        return movie;
+    }
+
+    private static ContentValues toContentValues(Movie movie) {
+        ContentValues values = new ContentValues();
+        values.put(MovieEntry.COLUMN_MOVIE_ID, movie.getId());
+        values.put(MovieEntry.COLUMN_POSTER_PATH, movie.getPosterPath());
+        values.put(MovieEntry.COLUMN_ADULT, movie.isAdult());
+        values.put(MovieEntry.COLUMN_OVERVIEW, movie.getOverview());
+        values.put(MovieEntry.COLUMN_RELEASE_DATE, movie.getReleaseDate());
+        values.put(MovieEntry.COLUMN_GENRE_IDS, formatGenreIds(movie.getGenreIds()));
+        values.put(MovieEntry.COLUMN_ORIGINAL_TITLE, movie.getOriginalTitle());
+        values.put(MovieEntry.COLUMN_ORIGINAL_LANGUAGE, movie.getOriginalLanguage());
+        values.put(MovieEntry.COLUMN_TITLE, movie.getTitle());
+        values.put(MovieEntry.COLUMN_BACKDROP_PATH, movie.getBackdropPath());
+        values.put(MovieEntry.COLUMN_POPULARITY, storableDouble(movie.getPopularity()));
+        values.put(MovieEntry.COLUMN_VOTE_COUNT, movie.getVoteCount());
+        values.put(MovieEntry.COLUMN_VIDEO, movie.isVideo());
+        values.put(MovieEntry.COLUMN_VOTE_AVERAGE, storableDouble(movie.getVoteAverage()));
+        return values;
+    }
+
+    private static MovieDetails readMovieDetails(Cursor cursor) {
+        MovieDetails movieDetails = new MovieDetails();
+        movieDetails.setId(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_MOVIE_ID)));
+        movieDetails.setAdult(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_ADULT)) != 0);
+        movieDetails.setBackdropPath(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_BACKDROP_PATH)));
+        movieDetails.setBudget(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_BUDGET)));
+        movieDetails.setHomepage(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_HOMEPAGE)));
+        movieDetails.setImdbId(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_IMDB_ID)));
+        movieDetails.setOriginalLanguage(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_ORIGINAL_LANGUAGE)));
+        movieDetails.setOriginalTitle(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_ORIGINAL_TITLE)));
+        movieDetails.setOverview(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_OVERVIEW)));
+        movieDetails.setPopularity(cursor.getDouble(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_POPULARITY)));
+        movieDetails.setPosterPath(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_POSTER_PATH)));
+        movieDetails.setReleaseDate(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_RELEASE_DATE)));
+        movieDetails.setRevenue(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_REVENUE)));
+        movieDetails.setRuntime(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_RUNTIME)));
+        movieDetails.setStatus(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_STATUS)));
+        movieDetails.setTagline(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_TAGLINE)));
+        movieDetails.setTitle(cursor.getString(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_TITLE)));
+        movieDetails.setVideo(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_VIDEO)) != 0);
+        movieDetails.setVoteAverage(cursor.getDouble(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_VOTE_AVERAGE)));
+        movieDetails.setVoteCount(cursor.getInt(cursor.getColumnIndex(MovieDetailsEntry.COLUMN_VOTE_COUNT)));
+        return movieDetails;
+    }
+
+    private static ContentValues toContentValues(MovieDetails movieDetails) {
+        ContentValues values = new ContentValues();
+        values.put(MovieDetailsEntry.COLUMN_MOVIE_ID, movieDetails.getId());
+        values.put(MovieDetailsEntry.COLUMN_ADULT, movieDetails.isAdult());
+        values.put(MovieDetailsEntry.COLUMN_BACKDROP_PATH, movieDetails.getBackdropPath());
+        values.put(MovieDetailsEntry.COLUMN_BUDGET, movieDetails.getBudget());
+        values.put(MovieDetailsEntry.COLUMN_HOMEPAGE, movieDetails.getHomepage());
+        values.put(MovieDetailsEntry.COLUMN_IMDB_ID, movieDetails.getImdbId());
+        values.put(MovieDetailsEntry.COLUMN_ORIGINAL_LANGUAGE, movieDetails.getOriginalLanguage());
+        values.put(MovieDetailsEntry.COLUMN_ORIGINAL_TITLE, movieDetails.getOriginalTitle());
+        values.put(MovieDetailsEntry.COLUMN_OVERVIEW, movieDetails.getOverview());
+        values.put(MovieDetailsEntry.COLUMN_POPULARITY, storableDouble(movieDetails.getPopularity()));
+        values.put(MovieDetailsEntry.COLUMN_POSTER_PATH, movieDetails.getPosterPath());
+        values.put(MovieDetailsEntry.COLUMN_RELEASE_DATE, movieDetails.getReleaseDate());
+        values.put(MovieDetailsEntry.COLUMN_REVENUE, movieDetails.getRevenue());
+        values.put(MovieDetailsEntry.COLUMN_RUNTIME, movieDetails.getRuntime());
+        values.put(MovieDetailsEntry.COLUMN_STATUS, movieDetails.getStatus());
+        values.put(MovieDetailsEntry.COLUMN_TAGLINE, movieDetails.getTagline());
+        values.put(MovieDetailsEntry.COLUMN_TITLE, movieDetails.getTitle());
+        values.put(MovieDetailsEntry.COLUMN_VIDEO, movieDetails.isVideo());
+        values.put(MovieDetailsEntry.COLUMN_VOTE_AVERAGE, storableDouble(movieDetails.getVoteAverage()));
+        values.put(MovieDetailsEntry.COLUMN_VOTE_COUNT, movieDetails.getVoteCount());
+        return values;
+    }
+
+    // SQLite stores NaN as NULL, which reads back as 0, so a NaN would never match the stored row.
+    private static double storableDouble(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static String formatGenreIds(int[] genreIds) {
+        if (genreIds == null)
+            return null;
+
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < genreIds.length; i++) {
+            if (i > 0)
+                stringBuilder.append(GENRE_IDS_SEPARATOR);
+
+            stringBuilder.append(genreIds[i]);
+        }
+
+        return stringBuilder.toString();
+    }
+
+    private static int[] parseGenreIds(String value) {
+        if (TextUtils.isEmpty(value))
+            return JsonUtils.EMPTY_INT_ARRAY;
+
+        String[] values = value.split(GENRE_IDS_SEPARATOR);
+        int[] genreIds = new int[values.length];
+        int size = 0;
+        for (String genreId : values) {
+            try {
+                genreIds[size++] = Integer.parseInt(genreId);
+            } catch (NumberFormatException e) {
+                size--;
+                e.printStackTrace();
+            }
+        }
+
+        return size == genreIds.length ? genreIds : Arrays.copyOf(genreIds, size);
+    }
+}
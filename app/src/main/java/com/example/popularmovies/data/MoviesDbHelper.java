@@ -0,0 +1,299 @@
+package com.example.popularmovies.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.provider.BaseColumns;
+import android.text.TextUtils;
+
+import com.example.popularmovies.data.MoviesContract.CastMemberEntry;
+import com.example.popularmovies.data.MoviesContract.FavoriteEntry;
+import com.example.popularmovies.data.MoviesContract.GenreEntry;
+import com.example.popularmovies.data.MoviesContract.MovieDetailsEntry;
+import com.example.popularmovies.data.MoviesContract.MovieEntry;
+import com.example.popularmovies.data.MoviesContract.MovieListItemEntry;
+import com.example.popularmovies.data.MoviesContract.MovieListPageEntry;
+import com.example.popularmovies.data.MoviesContract.ProductionCompanyEntry;
+import com.example.popularmovies.data.MoviesContract.ProductionCountryEntry;
+import com.example.popularmovies.data.MoviesContract.ReviewEntry;
+import com.example.popularmovies.data.MoviesContract.SpokenLanguageEntry;
+import com.example.popularmovies.data.MoviesContract.VideoEntry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MoviesDbHelper extends SQLiteOpenHelper {
+
+    public static final String DATABASE_NAME = "movies.db";
+    private static final int DATABASE_VERSION = 2;
+
+    // The tables the favorites are shown from, with their movie id column.
+    private static final String[][] FAVORITE_DETAILS_TABLES = {
+            {MovieDetailsEntry.TABLE_NAME, MovieDetailsEntry.COLUMN_MOVIE_ID},
+            {GenreEntry.TABLE_NAME, GenreEntry.COLUMN_MOVIE_ID},
+            {ProductionCompanyEntry.TABLE_NAME, ProductionCompanyEntry.COLUMN_MOVIE_ID},
+            {ProductionCountryEntry.TABLE_NAME, ProductionCountryEntry.COLUMN_MOVIE_ID},
+            {SpokenLanguageEntry.TABLE_NAME, SpokenLanguageEntry.COLUMN_MOVIE_ID},
+            {VideoEntry.TABLE_NAME, VideoEntry.COLUMN_MOVIE_ID},
+            {CastMemberEntry.TABLE_NAME, CastMemberEntry.COLUMN_MOVIE_ID},
+            {ReviewEntry.TABLE_NAME, ReviewEntry.COLUMN_MOVIE_ID}
+    };
+    private static final String SAVED_TABLE_PREFIX = "saved_";
+
+    private static MoviesDbHelper sInstance;
+
+    public static synchronized MoviesDbHelper getInstance(Context context) {
+        if (sInstance == null)
+            sInstance = new MoviesDbHelper(context.getApplicationContext());
+
+        return sInstance;
+    }
+
+    private MoviesDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("CREATE TABLE " + MovieEntry.TABLE_NAME + " (" +
+                MovieEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                MovieEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                MovieEntry.COLUMN_POSTER_PATH + " TEXT, " +
+                MovieEntry.COLUMN_ADULT + " INTEGER NOT NULL DEFAULT 0, " +
+                MovieEntry.COLUMN_OVERVIEW + " TEXT, " +
+                MovieEntry.COLUMN_RELEASE_DATE + " TEXT, " +
+                MovieEntry.COLUMN_GENRE_IDS + " TEXT, " +
+                MovieEntry.COLUMN_ORIGINAL_TITLE + " TEXT, " +
+                MovieEntry.COLUMN_ORIGINAL_LANGUAGE + " TEXT, " +
+                MovieEntry.COLUMN_TITLE + " TEXT, " +
+                MovieEntry.COLUMN_BACKDROP_PATH + " TEXT, " +
+                MovieEntry.COLUMN_POPULARITY + " REAL, " +
+                MovieEntry.COLUMN_VOTE_COUNT + " INTEGER, " +
+                MovieEntry.COLUMN_VIDEO + " INTEGER NOT NULL DEFAULT 0, " +
+                MovieEntry.COLUMN_VOTE_AVERAGE + " REAL, " +
+                "UNIQUE (" + MovieEntry.COLUMN_MOVIE_ID + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE INDEX index_movies_popularity ON " +
+                MovieEntry.TABLE_NAME + " (" + MovieEntry.COLUMN_POPULARITY + ");");
+        sqLiteDatabase.execSQL("CREATE INDEX index_movies_vote_average ON " +
+                MovieEntry.TABLE_NAME + " (" + MovieEntry.COLUMN_VOTE_AVERAGE + ");");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + MovieListPageEntry.TABLE_NAME + " (" +
+                MovieListPageEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                MovieListPageEntry.COLUMN_LIST + " TEXT NOT NULL, " +
+                MovieListPageEntry.COLUMN_PAGE + " INTEGER NOT NULL, " +
+                MovieListPageEntry.COLUMN_TOTAL_PAGES + " INTEGER, " +
+                MovieListPageEntry.COLUMN_TOTAL_RESULTS + " INTEGER, " +
+                MovieListPageEntry.COLUMN_UPDATED_AT + " INTEGER, " +
+                "UNIQUE (" + MovieListPageEntry.COLUMN_LIST + ", " +
+                MovieListPageEntry.COLUMN_PAGE + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + MovieListItemEntry.TABLE_NAME + " (" +
+                MovieListItemEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                MovieListItemEntry.COLUMN_LIST + " TEXT NOT NULL, " +
+                MovieListItemEntry.COLUMN_PAGE + " INTEGER NOT NULL, " +
+                MovieListItemEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                MovieListItemEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                "UNIQUE (" + MovieListItemEntry.COLUMN_LIST + ", " +
+                MovieListItemEntry.COLUMN_PAGE + ", " +
+                MovieListItemEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + MovieDetailsEntry.TABLE_NAME + " (" +
+                MovieDetailsEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                MovieDetailsEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                MovieDetailsEntry.COLUMN_ADULT + " INTEGER NOT NULL DEFAULT 0, " +
+                MovieDetailsEntry.COLUMN_BACKDROP_PATH + " TEXT, " +
+                MovieDetailsEntry.COLUMN_BUDGET + " INTEGER, " +
+                MovieDetailsEntry.COLUMN_HOMEPAGE + " TEXT, " +
+                MovieDetailsEntry.COLUMN_IMDB_ID + " TEXT, " +
+                MovieDetailsEntry.COLUMN_ORIGINAL_LANGUAGE + " TEXT, " +
+                MovieDetailsEntry.COLUMN_ORIGINAL_TITLE + " TEXT, " +
+                MovieDetailsEntry.COLUMN_OVERVIEW + " TEXT, " +
+                MovieDetailsEntry.COLUMN_POPULARITY + " REAL, " +
+                MovieDetailsEntry.COLUMN_POSTER_PATH + " TEXT, " +
+                MovieDetailsEntry.COLUMN_RELEASE_DATE + " TEXT, " +
+                MovieDetailsEntry.COLUMN_REVENUE + " INTEGER, " +
+                MovieDetailsEntry.COLUMN_RUNTIME + " INTEGER, " +
+                MovieDetailsEntry.COLUMN_STATUS + " TEXT, " +
+                MovieDetailsEntry.COLUMN_TAGLINE + " TEXT, " +
+                MovieDetailsEntry.COLUMN_TITLE + " TEXT, " +
+                MovieDetailsEntry.COLUMN_VIDEO + " INTEGER NOT NULL DEFAULT 0, " +
+                MovieDetailsEntry.COLUMN_VOTE_AVERAGE + " REAL, " +
+                MovieDetailsEntry.COLUMN_VOTE_COUNT + " INTEGER, " +
+                "UNIQUE (" + MovieDetailsEntry.COLUMN_MOVIE_ID + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + GenreEntry.TABLE_NAME + " (" +
+                GenreEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                GenreEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                GenreEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                GenreEntry.COLUMN_GENRE_ID + " INTEGER, " +
+                GenreEntry.COLUMN_NAME + " TEXT, " +
+                "UNIQUE (" + GenreEntry.COLUMN_MOVIE_ID + ", " +
+                GenreEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + ProductionCompanyEntry.TABLE_NAME + " (" +
+                ProductionCompanyEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                ProductionCompanyEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                ProductionCompanyEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                ProductionCompanyEntry.COLUMN_COMPANY_ID + " INTEGER, " +
+                ProductionCompanyEntry.COLUMN_NAME + " TEXT, " +
+                "UNIQUE (" + ProductionCompanyEntry.COLUMN_MOVIE_ID + ", " +
+                ProductionCompanyEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + ProductionCountryEntry.TABLE_NAME + " (" +
+                ProductionCountryEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                ProductionCountryEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                ProductionCountryEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                ProductionCountryEntry.COLUMN_ISO_3166_1 + " TEXT, " +
+                ProductionCountryEntry.COLUMN_NAME + " TEXT, " +
+                "UNIQUE (" + ProductionCountryEntry.COLUMN_MOVIE_ID + ", " +
+                ProductionCountryEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + SpokenLanguageEntry.TABLE_NAME + " (" +
+                SpokenLanguageEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                SpokenLanguageEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                SpokenLanguageEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                SpokenLanguageEntry.COLUMN_ISO_639_1 + " TEXT, " +
+                SpokenLanguageEntry.COLUMN_NAME + " TEXT, " +
+                "UNIQUE (" + SpokenLanguageEntry.COLUMN_MOVIE_ID + ", " +
+                SpokenLanguageEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + VideoEntry.TABLE_NAME + " (" +
+                VideoEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                VideoEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                VideoEntry.COLUMN_KEY + " TEXT, " +
+                VideoEntry.COLUMN_NAME + " TEXT, " +
+                VideoEntry.COLUMN_SITE + " TEXT, " +
+                VideoEntry.COLUMN_TYPE + " TEXT, " +
+                "UNIQUE (" + VideoEntry.COLUMN_MOVIE_ID + ", " +
+                VideoEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + CastMemberEntry.TABLE_NAME + " (" +
+                CastMemberEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                CastMemberEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                CastMemberEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                CastMemberEntry.COLUMN_PERSON_ID + " INTEGER, " +
+                CastMemberEntry.COLUMN_NAME + " TEXT, " +
+                CastMemberEntry.COLUMN_CHARACTER + " TEXT, " +
+                CastMemberEntry.COLUMN_PROFILE_PATH + " TEXT, " +
+                CastMemberEntry.COLUMN_CAST_ORDER + " INTEGER, " +
+                "UNIQUE (" + CastMemberEntry.COLUMN_MOVIE_ID + ", " +
+                CastMemberEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        sqLiteDatabase.execSQL("CREATE TABLE " + ReviewEntry.TABLE_NAME + " (" +
+                ReviewEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                ReviewEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                ReviewEntry.COLUMN_POSITION + " INTEGER NOT NULL, " +
+                ReviewEntry.COLUMN_REVIEW_ID + " TEXT, " +
+                ReviewEntry.COLUMN_AUTHOR + " TEXT, " +
+                ReviewEntry.COLUMN_CONTENT + " TEXT, " +
+                ReviewEntry.COLUMN_URL + " TEXT, " +
+                "UNIQUE (" + ReviewEntry.COLUMN_MOVIE_ID + ", " +
+                ReviewEntry.COLUMN_POSITION + ") ON CONFLICT REPLACE);");
+
+        // Unlike the other tables this one is not a cache, upgrades keep it.
+        sqLiteDatabase.execSQL("CREATE TABLE IF NOT EXISTS " + FavoriteEntry.TABLE_NAME + " (" +
+                FavoriteEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                FavoriteEntry.COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                FavoriteEntry.COLUMN_ADDED_AT + " INTEGER NOT NULL, " +
+                "UNIQUE (" + FavoriteEntry.COLUMN_MOVIE_ID + ") ON CONFLICT REPLACE);");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        // The other tables are caches, but the favorites are only shown from their stored details.
+        List<String> savedTables = saveFavoriteDetails(sqLiteDatabase);
+
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + MovieEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + MovieListPageEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + MovieListItemEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + MovieDetailsEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + GenreEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + ProductionCompanyEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + ProductionCountryEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + SpokenLanguageEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + VideoEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + CastMemberEntry.TABLE_NAME);
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + ReviewEntry.TABLE_NAME);
+        onCreate(sqLiteDatabase);
+
+        restoreFavoriteDetails(sqLiteDatabase, savedTables);
+    }
+
+    private static List<String> saveFavoriteDetails(SQLiteDatabase sqLiteDatabase) {
+        List<String> savedTables = new ArrayList<>();
+        if (!tableExists(sqLiteDatabase, FavoriteEntry.TABLE_NAME))
+            return savedTables;
+
+        for (String[] table : FAVORITE_DETAILS_TABLES) {
+            String tableName = table[0];
+            if (!tableExists(sqLiteDatabase, tableName))
+                continue;
+
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + SAVED_TABLE_PREFIX + tableName);
+            sqLiteDatabase.execSQL("CREATE TEMP TABLE " + SAVED_TABLE_PREFIX + tableName +
+                    " AS SELECT * FROM " + tableName +
+                    " WHERE " + table[1] + " IN (SELECT " + FavoriteEntry.COLUMN_MOVIE_ID +
+                    " FROM " + FavoriteEntry.TABLE_NAME + ")");
+            savedTables.add(tableName);
+        }
+
+        return savedTables;
+    }
+
+    /**
+     * Copies the saved rows back into the new tables, with the columns both versions have.
+     */
+    private static void restoreFavoriteDetails(SQLiteDatabase sqLiteDatabase, List<String> savedTables) {
+        for (String tableName : savedTables) {
+            String savedTableName = SAVED_TABLE_PREFIX + tableName;
+
+            Set<String> columns = queryColumns(sqLiteDatabase, tableName);
+            columns.retainAll(queryColumns(sqLiteDatabase, savedTableName));
+            columns.remove(BaseColumns._ID);
+
+            try {
+                if (!columns.isEmpty()) {
+                    String columnList = TextUtils.join(", ", columns);
+                    sqLiteDatabase.execSQL("INSERT INTO " + tableName + " (" + columnList + ")" +
+                            " SELECT " + columnList + " FROM " + savedTableName);
+                }
+            } catch (SQLException e) {
+                // A new column without a default, the favorite shows up again once it is refreshed.
+                e.printStackTrace();
+            } finally {
+                sqLiteDatabase.execSQL("DROP TABLE " + savedTableName);
+            }
+        }
+    }
+
+    private static boolean tableExists(SQLiteDatabase sqLiteDatabase, String tableName) {
+        Cursor cursor = sqLiteDatabase.rawQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", new String[]{tableName});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static Set<String> queryColumns(SQLiteDatabase sqLiteDatabase, String tableName) {
+        Set<String> columns = new LinkedHashSet<>();
+        Cursor cursor = sqLiteDatabase.rawQuery("PRAGMA table_info(" + tableName + ")", null);
+        try {
+            int nameColumn = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getString(nameColumn));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return columns;
+    }
+}
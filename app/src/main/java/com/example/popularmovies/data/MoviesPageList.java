@@ -0,0 +1,275 @@
+package com.example.popularmovies.data;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+public class MoviesPageList {
+
+    public static final int FIRST_PAGE = 1;
+    public static final int NO_PAGE = -1;
+
+    private final int mMaxRetainedPages;
+    private final ListUpdateCallback mUpdateCallback;
+
+    private final LinkedList<Page> mPages = new LinkedList<>();
+    private final List<Movie> mMovies = new ArrayList<>();
+    private final Set<Integer> mMovieIds = new HashSet<>();
+    private int mTotalPages;
+
+    private static class Page {
+        final int number;
+        final int size;
+
+        Page(int number, int size) {
+            this.number = number;
+            this.size = size;
+        }
+    }
+
+    public MoviesPageList(int maxRetainedPages, ListUpdateCallback updateCallback) {
+        mMaxRetainedPages = Math.max(1, maxRetainedPages);
+        mUpdateCallback = updateCallback;
+    }
+
+    public int size() {
+        return mMovies.size();
+    }
+
+    public Movie get(int position) {
+        return mMovies.get(position);
+    }
+
+    public List<Movie> getMovies() {
+        return mMovies;
+    }
+
+    public boolean isEmpty() {
+        return mPages.isEmpty();
+    }
+
+    public int getNextPage() {
+        if (mPages.isEmpty())
+            return FIRST_PAGE;
+
+        int nextPage = mPages.getLast().number + 1;
+        if (nextPage > mTotalPages)
+            return NO_PAGE;
+
+        return nextPage;
+    }
+
+    public int getPreviousPage() {
+        if (mPages.isEmpty())
+            return NO_PAGE;
+
+        int previousPage = mPages.getFirst().number - 1;
+        if (previousPage < FIRST_PAGE)
+            return NO_PAGE;
+
+        return previousPage;
+    }
+
+    /**
+     * Drops every retained page and starts over from the given response. Callers are expected to
+     * refresh the whole list themselves, so no range events are dispatched.
+     */
+    public void reset(MoviesResponse moviesResponse) {
+        mPages.clear();
+        mMovies.clear();
+        mMovieIds.clear();
+        mTotalPages = 0;
+
+        if (moviesResponse == null)
+            return;
+
+        mTotalPages = moviesResponse.getTotalPages();
+        List<Movie> pageMovies = distinctMovies(moviesResponse.getResults());
+        mMovies.addAll(pageMovies);
+        mPages.add(new Page(moviesResponse.getPage(), pageMovies.size()));
+    }
+
+    /**
+     * Returns the movies {@link #reset(MoviesResponse)} would hold for the given response, without
+     * touching this list.
+     */
+    public static List<Movie> previewReset(MoviesResponse moviesResponse) {
+        List<Movie> movies = new ArrayList<>();
+        if (moviesResponse == null || moviesResponse.getResults() == null)
+            return movies;
+
+        Set<Integer> movieIds = new HashSet<>();
+        for (Movie movie : moviesResponse.getResults()) {
+            if (movieIds.add(movie.getId()))
+                movies.add(movie);
+        }
+
+        return movies;
+    }
+
+    /**
+     * Replaces the movies of a retained page with a newer version of it, keeping every other page.
+     * Like {@link #reset(MoviesResponse)} no range events are dispatched. Returns false if the page
+     * is not retained.
+     */
+    public boolean replacePage(MoviesResponse moviesResponse) {
+        int pageIndex = indexOfPage(moviesResponse);
+        if (pageIndex < 0)
+            return false;
+
+        Page page = mPages.get(pageIndex);
+        int pageStart = startOfPage(pageIndex);
+        List<Movie> oldPageMovies = mMovies.subList(pageStart, pageStart + page.size);
+        forgetMovies(oldPageMovies);
+        oldPageMovies.clear();
+
+        mTotalPages = moviesResponse.getTotalPages();
+        List<Movie> pageMovies = distinctMovies(moviesResponse.getResults());
+        mMovies.addAll(pageStart, pageMovies);
+        mPages.set(pageIndex, new Page(page.number, pageMovies.size()));
+        return true;
+    }
+
+    /**
+     * Returns the movies {@link #replacePage(MoviesResponse)} would leave this list with, without
+     * touching it, or null if the page is not retained.
+     */
+    public List<Movie> previewReplacePage(MoviesResponse moviesResponse) {
+        int pageIndex = indexOfPage(moviesResponse);
+        if (pageIndex < 0)
+            return null;
+
+        Page page = mPages.get(pageIndex);
+        int pageStart = startOfPage(pageIndex);
+        int pageEnd = pageStart + page.size;
+
+        Set<Integer> movieIds = new HashSet<>(mMovieIds);
+        for (Movie movie : mMovies.subList(pageStart, pageEnd)) {
+            movieIds.remove(movie.getId());
+        }
+
+        List<Movie> movies = new ArrayList<>(mMovies.subList(0, pageStart));
+        if (moviesResponse.getResults() != null) {
+            for (Movie movie : moviesResponse.getResults()) {
+                if (movieIds.add(movie.getId()))
+                    movies.add(movie);
+            }
+        }
+        movies.addAll(mMovies.subList(pageEnd, mMovies.size()));
+
+        return movies;
+    }
+
+    private int indexOfPage(MoviesResponse moviesResponse) {
+        if (moviesResponse == null)
+            return -1;
+
+        int pageIndex = 0;
+        for (Page page : mPages) {
+            if (page.number == moviesResponse.getPage())
+                return pageIndex;
+
+            pageIndex++;
+        }
+
+        return -1;
+    }
+
+    private int startOfPage(int pageIndex) {
+        int position = 0;
+        for (int i = 0; i < pageIndex; i++) {
+            position += mPages.get(i).size;
+        }
+
+        return position;
+    }
+
+    /**
+     * Adds the page directly after or before the retained ones. Any other page is ignored, which
+     * makes redelivered results harmless. Returns whether the page was added.
+     */
+    public boolean addPage(MoviesResponse moviesResponse) {
+        if (moviesResponse == null)
+            return false;
+
+        int page = moviesResponse.getPage();
+        boolean append = page == getNextPage();
+        boolean prepend = !append && page == getPreviousPage();
+        if (!append && !prepend)
+            return false;
+
+        mTotalPages = moviesResponse.getTotalPages();
+        List<Movie> pageMovies = distinctMovies(moviesResponse.getResults());
+
+        if (append) {
+            int insertPosition = mMovies.size();
+            mMovies.addAll(pageMovies);
+            mPages.addLast(new Page(page, pageMovies.size()));
+            dispatchInserted(insertPosition, pageMovies.size());
+
+            if (mPages.size() > mMaxRetainedPages)
+                dropFirstPage();
+        } else {
+            mMovies.addAll(0, pageMovies);
+            mPages.addFirst(new Page(page, pageMovies.size()));
+            dispatchInserted(0, pageMovies.size());
+
+            if (mPages.size() > mMaxRetainedPages)
+                dropLastPage();
+        }
+
+        return true;
+    }
+
+    private List<Movie> distinctMovies(List<Movie> movies) {
+        List<Movie> distinctMovies = new ArrayList<>();
+        if (movies == null)
+            return distinctMovies;
+
+        for (Movie movie : movies) {
+            if (mMovieIds.add(movie.getId()))
+                distinctMovies.add(movie);
+        }
+
+        return distinctMovies;
+    }
+
+    private void dropFirstPage() {
+        Page page = mPages.removeFirst();
+        List<Movie> droppedMovies = mMovies.subList(0, page.size);
+        forgetMovies(droppedMovies);
+        droppedMovies.clear();
+
+        dispatchRemoved(0, page.size);
+    }
+
+    private void dropLastPage() {
+        Page page = mPages.removeLast();
+        int removePosition = mMovies.size() - page.size;
+        List<Movie> droppedMovies = mMovies.subList(removePosition, mMovies.size());
+        forgetMovies(droppedMovies);
+        droppedMovies.clear();
+
+        dispatchRemoved(removePosition, page.size);
+    }
+
+    private void forgetMovies(List<Movie> movies) {
+        for (Movie movie : movies) {
+            mMovieIds.remove(movie.getId());
+        }
+    }
+
+    private void dispatchInserted(int position, int count) {
+        if (count > 0)
+            mUpdateCallback.onInserted(position, count);
+    }
+
+    private void dispatchRemoved(int position, int count) {
+        if (count > 0)
+            mUpdateCallback.onRemoved(position, count);
+    }
+}
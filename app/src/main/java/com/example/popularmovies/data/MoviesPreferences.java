@@ -21,15 +21,194 @@ import android.support.v7.preference.PreferenceManager;
 
 import com.example.popularmovies.R;
 
-public class MoviesPreferences {
-
-    public static boolean sorOrderPopular(Context context) {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
-        String keyForSortOrder = context.getString(R.string.pref_sort_order_key);
-        String defaultSortOrder = context.getString(R.string.pref_sort_order_popular);
-        String preferredSortOrder = prefs.getString(keyForSortOrder, defaultSortOrder);
-        String popular = context.getString(R.string.pref_sort_order_popular);
-        boolean userPrefersPopular = popular.equals(preferredSortOrder);
-        return userPrefersPopular;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory copy of the user's settings. The shared preferences are read once, on first use, and
+ * read again only when one of them changes; observers then receive the old and the new
+ * {@link Snapshot} so they can react to the settings they care about only.
+ */
+public class MoviesPreferences implements SharedPreferences.OnSharedPreferenceChangeListener {
+
+    public static final int IMAGE_QUALITY_AUTO = 0;
+    public static final int IMAGE_QUALITY_HIGH = 1;
+    public static final int IMAGE_QUALITY_LOW = 2;
+
+    private static MoviesPreferences sInstance;
+
+    private final SharedPreferences mSharedPreferences;
+
+    private final String mSortOrderKey;
+    private final String mSortOrderPopular;
+    private final String mSortOrderFavorites;
+    private final String mSortByKey;
+    private final String mGenreKey;
+    private final String mOriginalLanguageKey;
+    private final String mMinReleaseYearKey;
+    private final String mMaxReleaseYearKey;
+    private final String mMinVoteCountKey;
+    private final String mHideAdultKey;
+    private final String mImageQualityKey;
+    private final String mImageQualityHigh;
+    private final String mImageQualityLow;
+
+    private volatile Snapshot mSnapshot;
+    private final List<Observer> mObservers = new CopyOnWriteArrayList<>();
+
+    public interface Observer {
+        void onPreferencesChanged(Snapshot oldSnapshot, Snapshot newSnapshot);
+    }
+
+    /**
+     * Immutable view of the settings at one point in time.
+     */
+    public static final class Snapshot {
+        private final String moviesList;
+        private final MovieQuery movieQuery;
+        private final int imageQuality;
+
+        Snapshot(String moviesList, MovieQuery movieQuery, int imageQuality) {
+            this.moviesList = moviesList;
+            this.movieQuery = movieQuery;
+            this.imageQuality = imageQuality;
+        }
+
+        /**
+         * One of {@link MoviesContract#LIST_POPULAR}, {@link MoviesContract#LIST_TOP_RATED} and
+         * {@link MoviesContract#LIST_FAVORITES}.
+         */
+        public String getMoviesList() {
+            return moviesList;
+        }
+
+        public MovieQuery getMovieQuery() {
+            return new MovieQuery(movieQuery);
+        }
+
+        public int getImageQuality() {
+            return imageQuality;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (!(o instanceof Snapshot))
+                return false;
+
+            Snapshot other = (Snapshot) o;
+            return imageQuality == other.imageQuality
+                    && moviesList.equals(other.moviesList)
+                    && movieQuery.equals(other.movieQuery);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = moviesList.hashCode();
+            result = 31 * result + movieQuery.hashCode();
+            result = 31 * result + imageQuality;
+            return result;
+        }
+    }
+
+    public static synchronized MoviesPreferences getInstance(Context context) {
+        if (sInstance == null)
+            sInstance = new MoviesPreferences(context.getApplicationContext());
+
+        return sInstance;
+    }
+
+    private MoviesPreferences(Context context) {
+        mSharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        mSortOrderKey = context.getString(R.string.pref_sort_order_key);
+        mSortOrderPopular = context.getString(R.string.pref_sort_order_popular);
+        mSortOrderFavorites = context.getString(R.string.pref_sort_order_favorites);
+        mSortByKey = context.getString(R.string.pref_sort_by_key);
+        mGenreKey = context.getString(R.string.pref_genre_key);
+        mOriginalLanguageKey = context.getString(R.string.pref_original_language_key);
+        mMinReleaseYearKey = context.getString(R.string.pref_min_release_year_key);
+        mMaxReleaseYearKey = context.getString(R.string.pref_max_release_year_key);
+        mMinVoteCountKey = context.getString(R.string.pref_min_vote_count_key);
+        mHideAdultKey = context.getString(R.string.pref_hide_adult_key);
+        mImageQualityKey = context.getString(R.string.pref_image_quality_key);
+        mImageQualityHigh = context.getString(R.string.pref_image_quality_high);
+        mImageQualityLow = context.getString(R.string.pref_image_quality_low);
+
+        mSnapshot = readSnapshot();
+        // Shared preferences only keep a weak reference to their listeners, this instance lives
+        // as long as the process.
+        mSharedPreferences.registerOnSharedPreferenceChangeListener(this);
+    }
+
+    public Snapshot get() {
+        return mSnapshot;
+    }
+
+    /**
+     * Observers are called on the main thread, only when a setting actually changed.
+     */
+    public void addObserver(Observer observer) {
+        mObservers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        mObservers.remove(observer);
+    }
+
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        Snapshot oldSnapshot = mSnapshot;
+        Snapshot newSnapshot = readSnapshot();
+        if (newSnapshot.equals(oldSnapshot))
+            return;
+
+        mSnapshot = newSnapshot;
+        for (Observer observer : mObservers) {
+            observer.onPreferencesChanged(oldSnapshot, newSnapshot);
+        }
+    }
+
+    private Snapshot readSnapshot() {
+        String sortOrder = mSharedPreferences.getString(mSortOrderKey, mSortOrderPopular);
+        String moviesList;
+        if (mSortOrderPopular.equals(sortOrder))
+            moviesList = MoviesContract.LIST_POPULAR;
+        else if (mSortOrderFavorites.equals(sortOrder))
+            moviesList = MoviesContract.LIST_FAVORITES;
+        else
+            moviesList = MoviesContract.LIST_TOP_RATED;
+
+        MovieQuery movieQuery = new MovieQuery();
+        movieQuery.setSortOrder(getInt(mSortByKey, MovieQuery.SORT_LIST_ORDER));
+        movieQuery.setGenreId(getInt(mGenreKey, MovieQuery.ANY_GENRE));
+        movieQuery.setOriginalLanguage(mSharedPreferences.getString(mOriginalLanguageKey, "").trim());
+        movieQuery.setMinReleaseYear(getInt(mMinReleaseYearKey, MovieQuery.ANY_YEAR));
+        movieQuery.setMaxReleaseYear(getInt(mMaxReleaseYearKey, MovieQuery.ANY_YEAR));
+        movieQuery.setMinVoteCount(getInt(mMinVoteCountKey, 0));
+        movieQuery.setHideAdult(mSharedPreferences.getBoolean(mHideAdultKey, false));
+
+        String imageQualityValue = mSharedPreferences.getString(mImageQualityKey, null);
+        int imageQuality = IMAGE_QUALITY_AUTO;
+        if (mImageQualityHigh.equals(imageQualityValue))
+            imageQuality = IMAGE_QUALITY_HIGH;
+        else if (mImageQualityLow.equals(imageQualityValue))
+            imageQuality = IMAGE_QUALITY_LOW;
+
+        return new Snapshot(moviesList, movieQuery, imageQuality);
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = mSharedPreferences.getString(key, null);
+        if (value == null || value.trim().isEmpty())
+            return defaultValue;
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 }
\ No newline at end of file
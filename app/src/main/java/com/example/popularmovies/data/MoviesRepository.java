@@ -0,0 +1,126 @@
+package com.example.popularmovies.data;
+
+import android.content.Context;
+
+import com.example.popularmovies.utilities.MoviesRequests;
+import com.example.popularmovies.utilities.RequestScheduler;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single entry point to the movies data. The first page of each list and the details of each
+ * movie are exposed as {@link DataStream}s, shared by every screen that shows them, so that one
+ * load serves all of them and the stored data is always shown before the network answers.
+ *
+ * Must only be used from the main thread.
+ */
+public final class MoviesRepository {
+
+    // Details streams of movies no longer shown are only worth their last value.
+    private static final int MAX_MOVIE_DETAILS_STREAMS = 20;
+
+    private static MoviesRepository sInstance;
+
+    private final Context mContext;
+
+    private final Map<String, DataStream<MoviesResponse>> mMoviesStreams = new HashMap<>();
+    private final Map<Integer, DataStream<MovieDetails>> mMovieDetailsStreams =
+            new LinkedHashMap<Integer, DataStream<MovieDetails>>(MAX_MOVIE_DETAILS_STREAMS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, DataStream<MovieDetails>> eldest) {
+                    return size() > MAX_MOVIE_DETAILS_STREAMS;
+                }
+            };
+
+    public static synchronized MoviesRepository getInstance(Context context) {
+        if (sInstance == null)
+            sInstance = new MoviesRepository(context.getApplicationContext());
+
+        return sInstance;
+    }
+
+    private MoviesRepository(Context context) {
+        mContext = context;
+    }
+
+    public DataStream<MoviesResponse> popular() {
+        return movies(MoviesContract.LIST_POPULAR);
+    }
+
+    public DataStream<MoviesResponse> topRated() {
+        return movies(MoviesContract.LIST_TOP_RATED);
+    }
+
+    /**
+     * The first page of the given list.
+     */
+    public DataStream<MoviesResponse> movies(String moviesList) {
+        DataStream<MoviesResponse> stream = mMoviesStreams.get(moviesList);
+        if (stream == null) {
+            int page = MoviesPageList.FIRST_PAGE;
+            if (MoviesContract.LIST_FAVORITES.equals(moviesList)) {
+                // Favorites only exist in the database, which is then the fresh source.
+                stream = new DataStream<>(null, null,
+                        MoviesRequests.localMoviesPageKey(moviesList, page),
+                        MoviesRequests.localMoviesPage(mContext, moviesList, page));
+            } else {
+                stream = new DataStream<>(
+                        MoviesRequests.localMoviesPageKey(moviesList, page),
+                        MoviesRequests.localMoviesPage(mContext, moviesList, page),
+                        MoviesRequests.moviesPageKey(moviesList, page),
+                        MoviesRequests.moviesPage(mContext, moviesList, page),
+                        MoviesRequests.refreshedMoviesPageKey(moviesList, page),
+                        MoviesRequests.moviesPage(mContext, moviesList, page, true));
+            }
+            mMoviesStreams.put(moviesList, stream);
+        }
+
+        // At startup the stored page has usually been read already, so the first subscriber can
+        // render it within the first frame.
+        if (stream.getValue() == null)
+            stream.seed(LastKnownGrid.take(moviesList));
+
+        return stream;
+    }
+
+    public DataStream<MoviesResponse> favorites() {
+        return movies(MoviesContract.LIST_FAVORITES);
+    }
+
+    public DataStream<MovieDetails> movieDetails(int movieId) {
+        DataStream<MovieDetails> stream = mMovieDetailsStreams.get(movieId);
+        if (stream == null) {
+            stream = new DataStream<>(
+                    MoviesRequests.localMovieDetailsKey(movieId),
+                    MoviesRequests.localMovieDetails(mContext, movieId),
+                    MoviesRequests.movieDetailsKey(movieId),
+                    MoviesRequests.movieDetails(mContext, movieId));
+            mMovieDetailsStreams.put(movieId, stream);
+        }
+
+        return stream;
+    }
+
+    /**
+     * Reloads the favorites list, if anything shows it, once a batch of toggles has been stored.
+     */
+    void onFavoritesWritten() {
+        DataStream<MoviesResponse> stream = mMoviesStreams.get(MoviesContract.LIST_FAVORITES);
+        if (stream != null)
+            stream.refresh();
+    }
+
+    /**
+     * Loads one of the pages after the first, which are only needed by whoever is paging through
+     * the list and so are not streamed.
+     */
+    public RequestScheduler.Request moviesPage(String moviesList, int page, Object owner,
+                                               RequestScheduler.Callback<MoviesResponse> callback) {
+        return RequestScheduler.getInstance().submit(MoviesRequests.moviesPageKey(moviesList, page),
+                RequestScheduler.PRIORITY_PREFETCH, owner,
+                MoviesRequests.moviesPage(mContext, moviesList, page),
+                callback);
+    }
+}
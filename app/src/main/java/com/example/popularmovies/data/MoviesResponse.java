@@ -1,33 +1,72 @@
 package com.example.popularmovies.data;
 
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class MoviesResponse implements IJsonDeserialize {
+public class MoviesResponse implements IJsonDeserialize, IJsonStreamDeserialize {
+    public static final IJsonFactory<MoviesResponse> FACTORY = new IJsonFactory<MoviesResponse>() {
+        @Override
+        public MoviesResponse create() {
+            return new MoviesResponse();
+        }
+    };
+
     private int page;
     private int totalResults;
     private int totalPages;
     private List<Movie> results;
 
+    // Set for pages the server sent or confirmed just now rather than ones read from a cache.
+    private boolean fromNetwork;
+
     public int getPage() {
         return page;
     }
 
+    public void setPage(int page) {
+        this.page = page;
+    }
+
     public int getTotalResults() {
         return totalResults;
     }
 
+    public void setTotalResults(int totalResults) {
+        this.totalResults = totalResults;
+    }
+
     public int getTotalPages() {
         return totalPages;
     }
 
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
     public List<Movie> getResults() {
         return results;
     }
 
+    public void setResults(List<Movie> results) {
+        this.results = results;
+    }
+
+    public boolean isFromNetwork() {
+        return fromNetwork;
+    }
+
+    public void setFromNetwork(boolean fromNetwork) {
+        this.fromNetwork = fromNetwork;
+    }
+
     @Override
     public void fillPropertiesByJsonObject(JSONObject jsonObject) {
         page = jsonObject.optInt("page");
@@ -50,4 +89,51 @@ public class MoviesResponse implements IJsonDeserialize {
             results.add(movie);
         }
     }
+
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        results = new ArrayList<>();
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "page":
+                    page = JsonUtils.optInt(jsonReader);
+                    break;
+                case "total_results":
+                    totalResults = JsonUtils.optInt(jsonReader);
+                    break;
+                case "total_pages":
+                    totalPages = JsonUtils.optInt(jsonReader);
+                    break;
+                case "results":
+                    fillResultsByJsonReader(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+    private void fillResultsByJsonReader(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+            jsonReader.skipValue();
+            return;
+        }
+
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+                jsonReader.skipValue();
+                continue;
+            }
+
+            Movie movie = new Movie();
+            movie.fillPropertiesByJsonReader(jsonReader);
+
+            results.add(movie);
+        }
+        jsonReader.endArray();
+    }
 }
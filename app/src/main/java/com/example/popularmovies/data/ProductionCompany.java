@@ -1,8 +1,20 @@
 package com.example.popularmovies.data;
 
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
 import org.json.JSONObject;
 
-public class ProductionCompany implements IJsonDeserialize, IUIAppendableObject {
+import java.io.IOException;
+
+public class ProductionCompany implements IJsonDeserialize, IJsonStreamDeserialize, IUIAppendableObject {
+    public static final IJsonFactory<ProductionCompany> FACTORY = new IJsonFactory<ProductionCompany>() {
+        @Override
+        public ProductionCompany create() {
+            return new ProductionCompany();
+        }
+    };
+
     private int id;
     private String name;
 
@@ -10,16 +22,42 @@ public class ProductionCompany implements IJsonDeserialize, IUIAppendableObject
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
 
+    public void setName(String name) {
+        this.name = name;
+    }
+
     @Override
     public void fillPropertiesByJsonObject(JSONObject jsonObject) {
         id = jsonObject.optInt("id");
         name = jsonObject.optString("name");
     }
 
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "id":
+                    id = JsonUtils.optInt(jsonReader);
+                    break;
+                case "name":
+                    name = JsonUtils.optString(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
     @Override
     public String getUIAppendableValue() {
         return name;
@@ -1,9 +1,21 @@
 package com.example.popularmovies.data;
 
 
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
 import org.json.JSONObject;
 
-public class ProductionCountry implements IJsonDeserialize, IUIAppendableObject {
+import java.io.IOException;
+
+public class ProductionCountry implements IJsonDeserialize, IJsonStreamDeserialize, IUIAppendableObject {
+    public static final IJsonFactory<ProductionCountry> FACTORY = new IJsonFactory<ProductionCountry>() {
+        @Override
+        public ProductionCountry create() {
+            return new ProductionCountry();
+        }
+    };
+
     private String name;
     private String iso31661;
 
@@ -29,6 +41,24 @@ public class ProductionCountry implements IJsonDeserialize, IUIAppendableObject
         iso31661 = jsonObject.optString("iso_3166_1");
     }
 
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "name":
+                    name = JsonUtils.optString(jsonReader);
+                    break;
+                case "iso_3166_1":
+                    iso31661 = JsonUtils.optString(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
     @Override
     public String getUIAppendableValue() {
         return name;
@@ -0,0 +1,91 @@
+package com.example.popularmovies.data;
+
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+public class Review implements IJsonDeserialize, IJsonStreamDeserialize, IUIAppendableObject {
+    public static final IJsonFactory<Review> FACTORY = new IJsonFactory<Review>() {
+        @Override
+        public Review create() {
+            return new Review();
+        }
+    };
+
+    private String id;
+    private String author;
+    private String content;
+    private String url;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public void fillPropertiesByJsonObject(JSONObject jsonObject) {
+        id = jsonObject.optString("id");
+        author = jsonObject.optString("author");
+        content = jsonObject.optString("content");
+        url = jsonObject.optString("url");
+    }
+
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "id":
+                    id = JsonUtils.optString(jsonReader);
+                    break;
+                case "author":
+                    author = JsonUtils.optString(jsonReader);
+                    break;
+                case "content":
+                    content = JsonUtils.optString(jsonReader);
+                    break;
+                case "url":
+                    url = JsonUtils.optString(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+    @Override
+    public String getUIAppendableValue() {
+        return author + ":\n" + content;
+    }
+}
@@ -1,8 +1,20 @@
 package com.example.popularmovies.data;
 
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
 import org.json.JSONObject;
 
-public class SpokenLanguage implements IJsonDeserialize, IUIAppendableObject {
+import java.io.IOException;
+
+public class SpokenLanguage implements IJsonDeserialize, IJsonStreamDeserialize, IUIAppendableObject {
+    public static final IJsonFactory<SpokenLanguage> FACTORY = new IJsonFactory<SpokenLanguage>() {
+        @Override
+        public SpokenLanguage create() {
+            return new SpokenLanguage();
+        }
+    };
+
     private String iso6391;
     private String name;
 
@@ -10,16 +22,42 @@ public class SpokenLanguage implements IJsonDeserialize, IUIAppendableObject {
         return iso6391;
     }
 
+    public void setIso6391(String iso6391) {
+        this.iso6391 = iso6391;
+    }
+
     public String getName() {
         return name;
     }
 
+    public void setName(String name) {
+        this.name = name;
+    }
+
     @Override
     public void fillPropertiesByJsonObject(JSONObject jsonObject) {
         name = jsonObject.optString("name");
         iso6391 = jsonObject.optString("iso_639_1");
     }
 
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "iso_639_1":
+                    iso6391 = JsonUtils.optString(jsonReader);
+                    break;
+                case "name":
+                    name = JsonUtils.optString(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
     @Override
     public String getUIAppendableValue() {
         return name;
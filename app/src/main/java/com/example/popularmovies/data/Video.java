@@ -0,0 +1,94 @@
+package com.example.popularmovies.data;
+
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+public class Video implements IJsonDeserialize, IJsonStreamDeserialize, IUIAppendableObject {
+    public static final IJsonFactory<Video> FACTORY = new IJsonFactory<Video>() {
+        @Override
+        public Video create() {
+            return new Video();
+        }
+    };
+
+    private String key;
+    private String name;
+    private String site;
+    private String type;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSite() {
+        return site;
+    }
+
+    public void setSite(String site) {
+        this.site = site;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    @Override
+    public void fillPropertiesByJsonObject(JSONObject jsonObject) {
+        key = jsonObject.optString("key");
+        name = jsonObject.optString("name");
+        site = jsonObject.optString("site");
+        type = jsonObject.optString("type");
+    }
+
+    @Override
+    public void fillPropertiesByJsonReader(JsonReader jsonReader) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "key":
+                    key = JsonUtils.optString(jsonReader);
+                    break;
+                case "name":
+                    name = JsonUtils.optString(jsonReader);
+                    break;
+                case "site":
+                    site = JsonUtils.optString(jsonReader);
+                    break;
+                case "type":
+                    type = JsonUtils.optString(jsonReader);
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+    @Override
+    public String getUIAppendableValue() {
+        if (type == null || type.isEmpty())
+            return name;
+
+        return name + " (" + type + ")";
+    }
+}
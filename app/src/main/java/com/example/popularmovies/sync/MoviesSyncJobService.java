@@ -0,0 +1,40 @@
+package com.example.popularmovies.sync;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.os.AsyncTask;
+import android.os.Build;
+
+import com.example.popularmovies.utilities.Clock;
+
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class MoviesSyncJobService extends JobService {
+
+    private AsyncTask<Void, Void, Boolean> mSyncTask;
+
+    @Override
+    public boolean onStartJob(final JobParameters jobParameters) {
+        mSyncTask = new AsyncTask<Void, Void, Boolean>() {
+            @Override
+            protected Boolean doInBackground(Void... voids) {
+                return MoviesSyncTask.syncMovies(getApplicationContext(), Clock.SYSTEM);
+            }
+
+            @Override
+            protected void onPostExecute(Boolean success) {
+                jobFinished(jobParameters, !success);
+            }
+        };
+        mSyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters jobParameters) {
+        if (mSyncTask != null)
+            mSyncTask.cancel(true);
+
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.popularmovies.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.popularmovies.R;
+import com.example.popularmovies.data.MoviesContract;
+import com.example.popularmovies.data.MoviesDao;
+import com.example.popularmovies.data.MoviesPageList;
+import com.example.popularmovies.data.MoviesResponse;
+import com.example.popularmovies.utilities.Clock;
+import com.example.popularmovies.utilities.NetworkUtils;
+
+import java.util.concurrent.TimeUnit;
+
+public class MoviesSyncTask {
+
+    private static final String TAG = MoviesSyncTask.class.getSimpleName();
+
+    static final int SYNC_PAGES = 3;
+
+    // Pages the user refreshed themselves this recently are left alone.
+    static final long MIN_PAGE_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final String[] SYNC_LISTS = {MoviesContract.LIST_POPULAR, MoviesContract.LIST_TOP_RATED};
+
+    /**
+     * Refreshes the first {@link #SYNC_PAGES} pages of every list. Returns false if any page could
+     * not be fetched, so the sync can be retried later; the pages fetched so far stay saved.
+     */
+    public static synchronized boolean syncMovies(Context context, Clock clock) {
+        MoviesDao moviesDao = new MoviesDao(context, clock);
+        String apiKey = context.getString(R.string.tmdb_api_key);
+
+        boolean success = true;
+        int syncedPages = 0;
+        int changedRows = 0;
+        for (String moviesList : SYNC_LISTS) {
+            for (int page = MoviesPageList.FIRST_PAGE; page < MoviesPageList.FIRST_PAGE + SYNC_PAGES; page++) {
+                long updatedAt = moviesDao.queryMoviesPageUpdatedAt(moviesList, page);
+                if (clock.currentTimeMillis() - updatedAt < MIN_PAGE_AGE_MILLIS)
+                    continue;
+
+                MoviesResponse moviesResponse = null;
+                // Asks the server every time, a cached page would be saved as if it were new.
+                try {
+                    if (MoviesContract.LIST_POPULAR.equals(moviesList))
+                        moviesResponse = NetworkUtils.popular(apiKey, page, true);
+                    else
+                        moviesResponse = NetworkUtils.topRated(apiKey, page, true);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                if (moviesResponse == null) {
+                    success = false;
+                    break;
+                }
+
+                changedRows += moviesDao.saveMoviesPage(moviesList, moviesResponse);
+                syncedPages++;
+
+                if (page >= moviesResponse.getTotalPages())
+                    break;
+            }
+        }
+
+        Log.d(TAG, "Synced " + syncedPages + " pages, " + changedRows + " rows changed");
+        return success;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.popularmovies.sync;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+
+import java.util.concurrent.TimeUnit;
+
+public class MoviesSyncUtils {
+
+    private static final int SYNC_JOB_ID = 1;
+    private static final long SYNC_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    /**
+     * Schedules the periodic sync unless it already is. It only runs while charging on an
+     * unmetered network, so it costs the user neither battery nor data. JobScheduler needs
+     * Lollipop, older devices keep refreshing on demand only.
+     */
+    public static void scheduleSync(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP)
+            return;
+
+        scheduleSyncJob(context);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void scheduleSyncJob(Context context) {
+        JobScheduler jobScheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (jobScheduler == null)
+            return;
+
+        for (JobInfo pendingJob : jobScheduler.getAllPendingJobs()) {
+            if (pendingJob.getId() == SYNC_JOB_ID)
+                return;
+        }
+
+        JobInfo syncJob = new JobInfo.Builder(SYNC_JOB_ID, new ComponentName(context, MoviesSyncJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setPeriodic(SYNC_INTERVAL_MILLIS)
+                .setPersisted(true)
+                .build();
+        jobScheduler.schedule(syncJob);
+    }
+}
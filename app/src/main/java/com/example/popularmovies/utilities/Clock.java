@@ -0,0 +1,17 @@
+package com.example.popularmovies.utilities;
+
+/**
+ * Source of the current time for code whose behaviour depends on it, so that a fake can stand in
+ * for the system clock.
+ */
+public interface Clock {
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    long currentTimeMillis();
+}
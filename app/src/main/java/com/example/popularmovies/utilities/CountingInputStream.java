@@ -0,0 +1,52 @@
+package com.example.popularmovies.utilities;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adds the number of bytes read through it to a counter.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final AtomicLong mCounter;
+
+    public CountingInputStream(InputStream in, AtomicLong counter) {
+        super(in);
+        mCounter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1)
+            mCounter.incrementAndGet();
+
+        return result;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0)
+            mCounter.addAndGet(read);
+
+        return read;
+    }
+
+    @Override
+    public long skip(long byteCount) throws IOException {
+        long skipped = super.skip(byteCount);
+        if (skipped > 0)
+            mCounter.addAndGet(skipped);
+
+        return skipped;
+    }
+
+    // Marking would count the bytes read again after a reset.
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.popularmovies.utilities;
+
+import com.example.popularmovies.data.IUIAppendableObject;
+
+import java.util.List;
+
+public class DisplayUtils {
+    public static <T extends IUIAppendableObject> String joinUIAppendableValues(List<T> data) {
+        return joinUIAppendableValues(data, "\n");
+    }
+
+    public static <T extends IUIAppendableObject> String joinUIAppendableValues(List<T> data, String separator) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < data.size(); i++) {
+            String value = data.get(i).getUIAppendableValue();
+            stringBuilder.append(value);
+
+            if (i < data.size() - 1)
+                stringBuilder.append(separator);
+        }
+
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.popularmovies.utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HttpResponse implements Closeable {
+
+    private static final String HTTP_DATE_PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final int mStatusCode;
+    private final Map<String, String> mHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final InputStream mBody;
+    private final AtomicLong mBodyBytes = new AtomicLong();
+    private final AtomicLong mTransferredBytes;
+
+    public HttpResponse(int statusCode, Map<String, String> headers, InputStream body) {
+        this(statusCode, headers, body, null);
+    }
+
+    /**
+     * @param transferredBytes counts the body bytes as they come over the wire, before their
+     *                         content encoding is removed; null when they are not encoded.
+     */
+    public HttpResponse(int statusCode, Map<String, String> headers, InputStream body, AtomicLong transferredBytes) {
+        mStatusCode = statusCode;
+        mHeaders.putAll(headers);
+
+        if (body == null)
+            body = new ByteArrayInputStream(new byte[0]);
+
+        mBody = new CountingInputStream(body, mBodyBytes);
+        mTransferredBytes = transferredBytes;
+    }
+
+    public int getStatusCode() {
+        return mStatusCode;
+    }
+
+    public String getHeader(String name) {
+        return mHeaders.get(name);
+    }
+
+    /**
+     * Returns the value of the Expires header in milliseconds, or 0 when it is missing or invalid.
+     */
+    public long getExpiration() {
+        String expires = getHeader("Expires");
+        if (expires == null)
+            return 0;
+
+        return parseHttpDate(expires);
+    }
+
+    /**
+     * Returns how long the Retry-After header asks to wait from the given time, either as a number
+     * of seconds or as a date, or -1 when it is missing or invalid.
+     */
+    public long getRetryAfterMillis(long nowMillis) {
+        String retryAfter = getHeader("Retry-After");
+        if (retryAfter == null)
+            return -1;
+
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            long retryAtMillis = parseHttpDate(retryAfter);
+            return retryAtMillis == 0 ? -1 : Math.max(0, retryAtMillis - nowMillis);
+        }
+    }
+
+    private static long parseHttpDate(String value) {
+        SimpleDateFormat httpDateFormat = new SimpleDateFormat(HTTP_DATE_PATTERN, Locale.US);
+        httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return httpDateFormat.parse(value).getTime();
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    public InputStream getBody() {
+        return mBody;
+    }
+
+    /**
+     * Decoded body bytes read so far, all of them once the response is closed.
+     */
+    public long getBodyBytes() {
+        return mBodyBytes.get();
+    }
+
+    /**
+     * Body bytes received over the wire so far, all of them once the response is closed.
+     */
+    public long getTransferredBytes() {
+        return mTransferredBytes == null ? mBodyBytes.get() : mTransferredBytes.get();
+    }
+
+    /**
+     * Reads whatever is left of the body before closing it, so that the underlying connection can
+     * go back to the pool instead of being dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            byte[] buffer = new byte[8192];
+            while (mBody.read(buffer) != -1) {
+                // Discard the remainder.
+            }
+        } finally {
+            mBody.close();
+        }
+    }
+}
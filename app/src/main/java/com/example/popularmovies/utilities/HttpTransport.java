@@ -0,0 +1,14 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Sends GET requests on behalf of {@link NetworkUtils}. Implementations keep connections alive
+ * between requests and hand back bodies that are already decoded.
+ */
+public interface HttpTransport {
+
+    HttpResponse get(URL url, Map<String, String> requestHeaders) throws IOException;
+}
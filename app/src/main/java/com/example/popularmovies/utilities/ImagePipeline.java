@@ -0,0 +1,36 @@
+package com.example.popularmovies.utilities;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.squareup.picasso.LruCache;
+import com.squareup.picasso.Picasso;
+
+import java.io.File;
+
+/**
+ * Configures the Picasso instance returned by {@link Picasso#with(Context)}.
+ */
+public final class ImagePipeline {
+
+    public static final Bitmap.Config THUMBNAIL_BITMAP_CONFIG = Bitmap.Config.RGB_565;
+
+    private static final int MEMORY_CACHE_HEAP_DIVISOR = 8;
+    private static final String DISK_CACHE_DIRECTORY = "images";
+    private static final long DISK_CACHE_MAX_BYTES = 50 * 1024 * 1024;
+
+    public static void install(Context context) {
+        Context appContext = context.getApplicationContext();
+
+        int memoryCacheBytes = (int) Math.min(Integer.MAX_VALUE,
+                Runtime.getRuntime().maxMemory() / MEMORY_CACHE_HEAP_DIVISOR);
+        File diskCacheDirectory = new File(appContext.getCacheDir(), DISK_CACHE_DIRECTORY);
+
+        Picasso picasso = new Picasso.Builder(appContext)
+                .memoryCache(new LruCache(memoryCacheBytes))
+                .downloader(new OkHttpImageDownloader(diskCacheDirectory, DISK_CACHE_MAX_BYTES))
+                .build();
+
+        Picasso.setSingletonInstance(picasso);
+    }
+}
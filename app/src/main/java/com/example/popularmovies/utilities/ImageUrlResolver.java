@@ -0,0 +1,101 @@
+package com.example.popularmovies.utilities;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.Uri;
+import android.telephony.TelephonyManager;
+
+import com.example.popularmovies.data.MoviesPreferences;
+
+/**
+ * Picks the smallest TMDB image size that still covers the target view, so that images are
+ * neither upscaled nor decoded at a resolution the view never shows.
+ */
+public final class ImageUrlResolver {
+
+    private static final String IMAGE_BASE_URL = "http://image.tmdb.org/t/p";
+    private static final String ORIGINAL_SIZE = "original";
+
+    private static final int[] POSTER_WIDTHS = {92, 154, 185, 342, 500, 780};
+    private static final int[] BACKDROP_WIDTHS = {300, 780, 1280};
+
+    // TMDB posters are 2:3 and backdrops 16:9, width to height.
+    private static final double POSTER_ASPECT_RATIO = 2.0 / 3.0;
+    private static final double BACKDROP_ASPECT_RATIO = 16.0 / 9.0;
+
+    public static Uri posterUri(String path, int targetWidth, int targetHeight, boolean reduceResolution) {
+        String size = selectSize(POSTER_WIDTHS, POSTER_ASPECT_RATIO, targetWidth, targetHeight, reduceResolution);
+        return buildImageUri(size, path);
+    }
+
+    public static Uri backdropUri(String path, int targetWidth, int targetHeight, boolean reduceResolution) {
+        String size = selectSize(BACKDROP_WIDTHS, BACKDROP_ASPECT_RATIO, targetWidth, targetHeight, reduceResolution);
+        return buildImageUri(size, path);
+    }
+
+    private static Uri buildImageUri(String size, String path) {
+        return Uri.parse(IMAGE_BASE_URL)
+                .buildUpon()
+                .appendPath(size)
+                .appendEncodedPath(path)
+                .build();
+    }
+
+    /**
+     * The views crop their images to fill them, so the image has to cover both the target width
+     * and the width that its aspect ratio needs to reach the target height.
+     */
+    static String selectSize(int[] widths, double aspectRatio, int targetWidth, int targetHeight, boolean reduceResolution) {
+        int requiredWidth = Math.max(targetWidth, (int) Math.ceil(targetHeight * aspectRatio));
+
+        int index = 0;
+        while (index < widths.length && widths[index] < requiredWidth) {
+            index++;
+        }
+
+        if (reduceResolution)
+            index = Math.max(0, index - 1);
+
+        if (index == widths.length)
+            return ORIGINAL_SIZE;
+
+        return "w" + widths[index];
+    }
+
+    /**
+     * Follows the image quality setting. On automatic, returns true on metered or 2G-class
+     * connections, where a slightly softer image is a better trade than the extra bytes.
+     */
+    public static boolean shouldReduceResolution(Context context) {
+        int imageQuality = MoviesPreferences.getInstance(context).get().getImageQuality();
+        if (imageQuality != MoviesPreferences.IMAGE_QUALITY_AUTO)
+            return imageQuality == MoviesPreferences.IMAGE_QUALITY_LOW;
+
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null)
+            return false;
+
+        NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+        if (activeNetworkInfo == null || !activeNetworkInfo.isConnected())
+            return false;
+
+        if (connectivityManager.isActiveNetworkMetered())
+            return true;
+
+        if (activeNetworkInfo.getType() != ConnectivityManager.TYPE_MOBILE)
+            return false;
+
+        switch (activeNetworkInfo.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
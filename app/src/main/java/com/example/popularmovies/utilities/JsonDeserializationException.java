@@ -0,0 +1,20 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a payload does not have the shape the target model expects.
+ */
+public class JsonDeserializationException extends IOException {
+
+    private final String mTypeName;
+
+    public JsonDeserializationException(String typeName, Throwable cause) {
+        super("Unable to deserialize " + typeName, cause);
+        mTypeName = typeName;
+    }
+
+    public String getTypeName() {
+        return mTypeName;
+    }
+}
@@ -1,58 +1,213 @@
 package com.example.popularmovies.utilities;
 
 import com.example.popularmovies.data.IJsonDeserialize;
+import com.example.popularmovies.data.IJsonFactory;
+import com.example.popularmovies.data.IJsonStreamDeserialize;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class JsonUtils {
-    public static List<Integer> optIntList(JSONObject jsonObject, String name) {
+    public static final int[] EMPTY_INT_ARRAY = new int[0];
+
+    private static final int INITIAL_INT_ARRAY_CAPACITY = 8;
+
+    public static int[] optIntArray(JSONObject jsonObject, String name) {
         JSONArray jsonArray = jsonObject.optJSONArray(name);
-        if (jsonArray == null)
-            return new ArrayList<>();
+        if (jsonArray == null || jsonArray.length() == 0)
+            return EMPTY_INT_ARRAY;
 
-        List<Integer> resultList = new ArrayList<>();
-        for (int i = 0; i < jsonArray.length(); i++) {
-            int item = jsonArray.optInt(i);
-            resultList.add(item);
+        int[] resultArray = new int[jsonArray.length()];
+        for (int i = 0; i < resultArray.length; i++) {
+            resultArray[i] = jsonArray.optInt(i);
         }
 
-        return resultList;
+        return resultArray;
+    }
+
+    public static <T extends IJsonDeserialize> ArrayList<T> optArrayList(JSONObject jsonObject, String name, IJsonFactory<T> factory) {
+        return optArrayList(jsonObject, name, factory, Integer.MAX_VALUE);
     }
 
-    public static <T extends IJsonDeserialize> ArrayList<T> optArrayList(JSONObject jsonObject, String name, Class<T> cls) {
+    public static <T extends IJsonDeserialize> ArrayList<T> optArrayList(JSONObject jsonObject, String name,
+                                                                         IJsonFactory<T> factory, int maxItems) {
         JSONArray propertyJsonArray = jsonObject.optJSONArray(name);
         if (propertyJsonArray == null)
             return null;
 
         ArrayList<T> arrayList = new ArrayList<>();
-        for (int i = 0; i < propertyJsonArray.length(); i++) {
+        for (int i = 0; i < propertyJsonArray.length() && i < maxItems; i++) {
             JSONObject itemJsonObject = propertyJsonArray.optJSONObject(i);
             if (itemJsonObject == null) {
                 arrayList.add(null);
                 continue;
             }
 
-            T obj = null;
-            try {
-                obj = cls.newInstance();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
+            T obj = factory.create();
+            obj.fillPropertiesByJsonObject(itemJsonObject);
+            arrayList.add(obj);
+        }
+        return arrayList;
+    }
+
+    /**
+     * Reads a string, number or boolean as text and anything else as an empty string. Unlike
+     * {@link JSONObject#optString(String)}, which returns "null" for a JSON null, a missing poster
+     * or backdrop path then reads as empty and is not requested as ".../null".
+     */
+    public static String optString(JsonReader jsonReader) throws IOException {
+        JsonToken token = jsonReader.peek();
+        switch (token) {
+            case STRING:
+            case NUMBER:
+                return jsonReader.nextString();
+            case BOOLEAN:
+                return String.valueOf(jsonReader.nextBoolean());
+            default:
+                jsonReader.skipValue();
+                return "";
+        }
+    }
+
+    public static int optInt(JsonReader jsonReader) throws IOException {
+        double value = optDouble(jsonReader);
+        if (Double.isNaN(value))
+            return 0;
+
+        return (int) value;
+    }
+
+    public static double optDouble(JsonReader jsonReader) throws IOException {
+        JsonToken token = jsonReader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            jsonReader.skipValue();
+            return Double.NaN;
+        }
+
+        try {
+            return jsonReader.nextDouble();
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    public static boolean optBoolean(JsonReader jsonReader) throws IOException {
+        JsonToken token = jsonReader.peek();
+        if (token == JsonToken.BOOLEAN)
+            return jsonReader.nextBoolean();
+
+        if (token == JsonToken.STRING)
+            return "true".equalsIgnoreCase(jsonReader.nextString());
+
+        jsonReader.skipValue();
+        return false;
+    }
+
+    public static int[] optIntArray(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+            jsonReader.skipValue();
+            return EMPTY_INT_ARRAY;
+        }
+
+        int[] resultArray = null;
+        int size = 0;
+
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (resultArray == null)
+                resultArray = new int[INITIAL_INT_ARRAY_CAPACITY];
+            else if (size == resultArray.length)
+                resultArray = Arrays.copyOf(resultArray, size * 2);
+
+            resultArray[size++] = optInt(jsonReader);
+        }
+        jsonReader.endArray();
+
+        if (resultArray == null)
+            return EMPTY_INT_ARRAY;
+
+        return size == resultArray.length ? resultArray : Arrays.copyOf(resultArray, size);
+    }
+
+    public static <T extends IJsonStreamDeserialize> ArrayList<T> optArrayList(JsonReader jsonReader, IJsonFactory<T> factory) throws IOException {
+        return optArrayList(jsonReader, factory, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads at most maxItems items and skips the others without building them.
+     */
+    public static <T extends IJsonStreamDeserialize> ArrayList<T> optArrayList(JsonReader jsonReader, IJsonFactory<T> factory,
+                                                                               int maxItems) throws IOException {
+        if (jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+            jsonReader.skipValue();
+            return null;
+        }
+
+        ArrayList<T> arrayList = new ArrayList<>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (arrayList.size() >= maxItems) {
+                jsonReader.skipValue();
+                continue;
             }
 
-            if (obj == null) {
+            if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+                jsonReader.skipValue();
                 arrayList.add(null);
                 continue;
             }
 
-            obj.fillPropertiesByJsonObject(itemJsonObject);
+            T obj = factory.create();
+            obj.fillPropertiesByJsonReader(jsonReader);
             arrayList.add(obj);
         }
+        jsonReader.endArray();
+
+        return arrayList;
+    }
+
+    /**
+     * Reads the array under arrayName of the object under objectName, such as the results of a
+     * response appended to another one.
+     */
+    public static <T extends IJsonDeserialize> ArrayList<T> optNestedArrayList(JSONObject jsonObject, String objectName,
+                                                                               String arrayName, IJsonFactory<T> factory,
+                                                                               int maxItems) {
+        JSONObject nestedJsonObject = jsonObject.optJSONObject(objectName);
+        if (nestedJsonObject == null)
+            return null;
+
+        return optArrayList(nestedJsonObject, arrayName, factory, maxItems);
+    }
+
+    /**
+     * Streaming counterpart of {@link #optNestedArrayList(JSONObject, String, String, IJsonFactory, int)},
+     * to be called once the name of the enclosing object has been read.
+     */
+    public static <T extends IJsonStreamDeserialize> ArrayList<T> optNestedArrayList(JsonReader jsonReader, String arrayName,
+                                                                                     IJsonFactory<T> factory,
+                                                                                     int maxItems) throws IOException {
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+            jsonReader.skipValue();
+            return null;
+        }
+
+        ArrayList<T> arrayList = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if (arrayName.equals(jsonReader.nextName()))
+                arrayList = optArrayList(jsonReader, factory, maxItems);
+            else
+                jsonReader.skipValue();
+        }
+        jsonReader.endObject();
+
         return arrayList;
     }
 }
@@ -0,0 +1,99 @@
+package com.example.popularmovies.utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in power of two millisecond buckets, from 1 ms up to about 33 s. Recording is
+ * lock-free so that it can be done on every request, percentiles are approximated by the upper
+ * bound of the bucket they fall in.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 17;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSumMillis = new AtomicLong();
+    private final AtomicLong mMaxMillis = new AtomicLong();
+
+    public void record(long millis) {
+        if (millis < 0)
+            millis = 0;
+
+        mBuckets.incrementAndGet(bucketOf(millis));
+        mCount.incrementAndGet();
+        mSumMillis.addAndGet(millis);
+
+        long max = mMaxMillis.get();
+        while (millis > max && !mMaxMillis.compareAndSet(max, millis)) {
+            max = mMaxMillis.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public long getMeanMillis() {
+        long count = mCount.get();
+        return count == 0 ? 0 : mSumMillis.get() / count;
+    }
+
+    public long getMaxMillis() {
+        return mMaxMillis.get();
+    }
+
+    /**
+     * Returns the duration under which the given fraction (0 to 1) of the recorded durations fall.
+     */
+    public long getPercentileMillis(double fraction) {
+        long count = 0;
+        long[] buckets = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = mBuckets.get(i);
+            count += buckets[i];
+        }
+
+        if (count == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= rank && buckets[i] > 0)
+                return Math.min(upperBoundMillis(i), mMaxMillis.get());
+        }
+
+        return mMaxMillis.get();
+    }
+
+    /**
+     * Not atomic with respect to concurrent recordings, which may survive partially.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSumMillis.set(0);
+        mMaxMillis.set(0);
+    }
+
+    // Bucket i holds durations in (2^(i-1), 2^i] ms, the first one everything up to 1 ms and the
+    // last one everything longer.
+    private static int bucketOf(long millis) {
+        if (millis <= 1)
+            return 0;
+
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis - 1));
+    }
+
+    private static long upperBoundMillis(int bucket) {
+        if (bucket == BUCKET_COUNT - 1)
+            return Long.MAX_VALUE;
+
+        return 1L << bucket;
+    }
+}
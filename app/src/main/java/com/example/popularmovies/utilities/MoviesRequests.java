@@ -0,0 +1,152 @@
+package com.example.popularmovies.utilities;
+
+import android.content.Context;
+
+import com.example.popularmovies.R;
+import com.example.popularmovies.data.MovieDetails;
+import com.example.popularmovies.data.MovieSearchIndex;
+import com.example.popularmovies.data.MoviesContract;
+import com.example.popularmovies.data.MoviesDao;
+import com.example.popularmovies.data.MoviesResponse;
+
+import java.util.concurrent.Callable;
+
+public final class MoviesRequests {
+
+    public static String moviesPageKey(String moviesList, int page) {
+        return "movies/" + moviesList + "/" + page;
+    }
+
+    public static String refreshedMoviesPageKey(String moviesList, int page) {
+        return "refreshed/movies/" + moviesList + "/" + page;
+    }
+
+    public static String localMoviesPageKey(String moviesList, int page) {
+        return "local/movies/" + moviesList + "/" + page;
+    }
+
+    public static String movieDetailsKey(int movieId) {
+        return "movie_details/" + movieId;
+    }
+
+    public static String localMovieDetailsKey(int movieId) {
+        return "local/movie_details/" + movieId;
+    }
+
+    public static String searchMoviesKey(String query) {
+        return "search/movies/" + query;
+    }
+
+    public static Callable<MoviesResponse> moviesPage(Context context, String moviesList, int page) {
+        return moviesPage(context, moviesList, page, false);
+    }
+
+    /**
+     * With noCache set the page is fetched from the server even if the response cache holds it,
+     * for refreshes the user asked for.
+     */
+    public static Callable<MoviesResponse> moviesPage(Context context, final String moviesList, final int page,
+                                                      final boolean noCache) {
+        final Context appContext = context.getApplicationContext();
+        return new Callable<MoviesResponse>() {
+            @Override
+            public MoviesResponse call() throws Exception {
+                MoviesDao moviesDao = new MoviesDao(appContext);
+
+                // Favorites are never fetched, they are whatever the user starred.
+                if (MoviesContract.LIST_FAVORITES.equals(moviesList))
+                    return moviesDao.queryMoviesPage(moviesList, page);
+
+                MoviesResponse moviesResponse = null;
+                try {
+                    String apiKey = appContext.getString(R.string.tmdb_api_key);
+
+                    if (MoviesContract.LIST_POPULAR.equals(moviesList))
+                        moviesResponse = NetworkUtils.popular(apiKey, page, noCache);
+                    else
+                        moviesResponse = NetworkUtils.topRated(apiKey, page, noCache);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                if (moviesResponse == null)
+                    moviesResponse = moviesDao.queryMoviesPage(moviesList, page);
+                else
+                    moviesDao.saveMoviesPage(moviesList, moviesResponse);
+
+                indexMovies(moviesResponse);
+                return moviesResponse;
+            }
+        };
+    }
+
+    public static Callable<MoviesResponse> localMoviesPage(Context context, final String moviesList, final int page) {
+        final Context appContext = context.getApplicationContext();
+        return new Callable<MoviesResponse>() {
+            @Override
+            public MoviesResponse call() throws Exception {
+                MoviesDao moviesDao = new MoviesDao(appContext);
+                MoviesResponse moviesResponse = moviesDao.queryMoviesPage(moviesList, page);
+                indexMovies(moviesResponse);
+                return moviesResponse;
+            }
+        };
+    }
+
+    public static Callable<MovieDetails> movieDetails(Context context, final int movieId) {
+        final Context appContext = context.getApplicationContext();
+        return new Callable<MovieDetails>() {
+            @Override
+            public MovieDetails call() throws Exception {
+                MoviesDao moviesDao = new MoviesDao(appContext);
+
+                MovieDetails movieDetails = null;
+                try {
+                    String apiKey = appContext.getString(R.string.tmdb_api_key);
+                    movieDetails = NetworkUtils.movieDetails(apiKey, movieId);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                if (movieDetails == null)
+                    movieDetails = moviesDao.queryMovieDetails(movieId);
+                else
+                    moviesDao.saveMovieDetails(movieDetails);
+
+                MovieSearchIndex.getInstance().addMovieDetails(movieDetails);
+                return movieDetails;
+            }
+        };
+    }
+
+    public static Callable<MovieDetails> localMovieDetails(Context context, final int movieId) {
+        final Context appContext = context.getApplicationContext();
+        return new Callable<MovieDetails>() {
+            @Override
+            public MovieDetails call() throws Exception {
+                MoviesDao moviesDao = new MoviesDao(appContext);
+                MovieDetails movieDetails = moviesDao.queryMovieDetails(movieId);
+                MovieSearchIndex.getInstance().addMovieDetails(movieDetails);
+                return movieDetails;
+            }
+        };
+    }
+
+    public static Callable<MoviesResponse> searchMovies(Context context, final String query) {
+        final Context appContext = context.getApplicationContext();
+        return new Callable<MoviesResponse>() {
+            @Override
+            public MoviesResponse call() throws Exception {
+                String apiKey = appContext.getString(R.string.tmdb_api_key);
+                MoviesResponse moviesResponse = NetworkUtils.searchMovies(apiKey, query);
+                indexMovies(moviesResponse);
+                return moviesResponse;
+            }
+        };
+    }
+
+    private static void indexMovies(MoviesResponse moviesResponse) {
+        if (moviesResponse != null)
+            MovieSearchIndex.getInstance().addMovies(moviesResponse.getResults());
+    }
+}
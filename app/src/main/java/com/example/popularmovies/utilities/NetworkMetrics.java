@@ -0,0 +1,222 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * What the API requests and the image downloads cost in the field: latencies, parse times, bytes
+ * received, how often the caches answer and why requests fail, kept per endpoint for as long as
+ * the process lives, along with how often the details prefetches pay off. Everything is recorded
+ * without locking.
+ */
+public final class NetworkMetrics {
+
+    public static final String ENDPOINT_POPULAR = "popular";
+    public static final String ENDPOINT_TOP_RATED = "top_rated";
+    public static final String ENDPOINT_MOVIE_DETAILS = "movie_details";
+    public static final String ENDPOINT_SEARCH = "search";
+    public static final String ENDPOINT_IMAGES = "images";
+
+    // Answered by the cache without going to the network.
+    public static final int CACHE_HIT = 0;
+    // Answered by an expired cache entry while it is revalidated in the background.
+    public static final int CACHE_STALE = 1;
+    // Answered by the cache after the server confirmed the entry (304).
+    public static final int CACHE_REVALIDATED = 2;
+    public static final int CACHE_MISS = 3;
+    private static final int CACHE_RESULT_COUNT = 4;
+
+    public static final int ERROR_TIMEOUT = 0;
+    public static final int ERROR_CONNECTION = 1;
+    public static final int ERROR_HTTP_CLIENT = 2;
+    public static final int ERROR_HTTP_SERVER = 3;
+    public static final int ERROR_PARSE = 4;
+    // Answered with 429 by the server, or given up while waiting for the rate limiter.
+    public static final int ERROR_RATE_LIMITED = 5;
+    private static final int ERROR_CATEGORY_COUNT = 6;
+
+    public static final int PREFETCH_ISSUED = 0;
+    // Left the prefetch window before it finished.
+    public static final int PREFETCH_CANCELLED = 1;
+    // Opened a movie whose details had been prefetched.
+    public static final int PREFETCH_HIT = 2;
+    // Opened a movie whose details were still being prefetched.
+    public static final int PREFETCH_IN_FLIGHT = 3;
+    public static final int PREFETCH_MISS = 4;
+    private static final int PREFETCH_EVENT_COUNT = 5;
+
+    private static final Map<String, EndpointMetrics> sEndpoints;
+    private static final AtomicLongArray sPrefetchEvents = new AtomicLongArray(PREFETCH_EVENT_COUNT);
+
+    static {
+        Map<String, EndpointMetrics> endpoints = new LinkedHashMap<>();
+        for (String endpoint : new String[]{ENDPOINT_POPULAR, ENDPOINT_TOP_RATED,
+                ENDPOINT_MOVIE_DETAILS, ENDPOINT_SEARCH, ENDPOINT_IMAGES}) {
+            endpoints.put(endpoint, new EndpointMetrics(endpoint));
+        }
+
+        sEndpoints = Collections.unmodifiableMap(endpoints);
+    }
+
+    public static class EndpointMetrics {
+        private final String mName;
+        private final LatencyHistogram mLatency = new LatencyHistogram();
+        private final LatencyHistogram mParseTime = new LatencyHistogram();
+        private final AtomicLong mCompressedBytes = new AtomicLong();
+        private final AtomicLong mDecompressedBytes = new AtomicLong();
+        private final AtomicLongArray mCacheResults = new AtomicLongArray(CACHE_RESULT_COUNT);
+        private final AtomicLongArray mErrors = new AtomicLongArray(ERROR_CATEGORY_COUNT);
+
+        EndpointMetrics(String name) {
+            mName = name;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Time from sending a request to being done with its response.
+         */
+        public LatencyHistogram getLatency() {
+            return mLatency;
+        }
+
+        public LatencyHistogram getParseTime() {
+            return mParseTime;
+        }
+
+        /**
+         * Bytes received as they came over the wire.
+         */
+        public long getCompressedBytes() {
+            return mCompressedBytes.get();
+        }
+
+        /**
+         * Bytes received once their content encoding was removed.
+         */
+        public long getDecompressedBytes() {
+            return mDecompressedBytes.get();
+        }
+
+        public long getCacheResultCount(int cacheResult) {
+            return mCacheResults.get(cacheResult);
+        }
+
+        /**
+         * Fraction of the requests answered from the cache, including revalidated entries.
+         */
+        public double getCacheHitRate() {
+            long misses = mCacheResults.get(CACHE_MISS);
+            long hits = mCacheResults.get(CACHE_HIT) + mCacheResults.get(CACHE_STALE)
+                    + mCacheResults.get(CACHE_REVALIDATED);
+
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+
+        public long getErrorCount(int errorCategory) {
+            return mErrors.get(errorCategory);
+        }
+
+        public void recordLatency(long millis) {
+            mLatency.record(millis);
+        }
+
+        public void recordParseTime(long millis) {
+            mParseTime.record(millis);
+        }
+
+        public void recordBytes(long compressedBytes, long decompressedBytes) {
+            mCompressedBytes.addAndGet(compressedBytes);
+            mDecompressedBytes.addAndGet(decompressedBytes);
+        }
+
+        public void recordCacheResult(int cacheResult) {
+            mCacheResults.incrementAndGet(cacheResult);
+        }
+
+        public void recordError(int errorCategory) {
+            mErrors.incrementAndGet(errorCategory);
+        }
+
+        public void recordHttpError(int statusCode) {
+            if (statusCode == RateLimitingTransport.HTTP_TOO_MANY_REQUESTS)
+                recordError(ERROR_RATE_LIMITED);
+            else
+                recordError(statusCode >= 500 ? ERROR_HTTP_SERVER : ERROR_HTTP_CLIENT);
+        }
+
+        /**
+         * Records a request that failed to connect, timed out or was throttled.
+         */
+        public void recordIoError(IOException e) {
+            if (e instanceof RateLimitedException)
+                recordError(ERROR_RATE_LIMITED);
+            else
+                recordError(e instanceof InterruptedIOException ? ERROR_TIMEOUT : ERROR_CONNECTION);
+        }
+
+        void reset() {
+            mLatency.reset();
+            mParseTime.reset();
+            mCompressedBytes.set(0);
+            mDecompressedBytes.set(0);
+            for (int i = 0; i < CACHE_RESULT_COUNT; i++) {
+                mCacheResults.set(i, 0);
+            }
+            for (int i = 0; i < ERROR_CATEGORY_COUNT; i++) {
+                mErrors.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the metrics of one of the ENDPOINT_ constants.
+     */
+    public static EndpointMetrics getEndpoint(String endpoint) {
+        EndpointMetrics endpointMetrics = sEndpoints.get(endpoint);
+        if (endpointMetrics == null)
+            throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+
+        return endpointMetrics;
+    }
+
+    public static List<EndpointMetrics> getEndpoints() {
+        return new ArrayList<>(sEndpoints.values());
+    }
+
+    public static void recordPrefetchEvent(int prefetchEvent) {
+        sPrefetchEvents.incrementAndGet(prefetchEvent);
+    }
+
+    public static long getPrefetchEventCount(int prefetchEvent) {
+        return sPrefetchEvents.get(prefetchEvent);
+    }
+
+    /**
+     * Fraction of the opened movies whose details had already been prefetched.
+     */
+    public static double getPrefetchHitRate() {
+        long hits = sPrefetchEvents.get(PREFETCH_HIT);
+        long opened = hits + sPrefetchEvents.get(PREFETCH_IN_FLIGHT) + sPrefetchEvents.get(PREFETCH_MISS);
+
+        return opened == 0 ? 0 : (double) hits / opened;
+    }
+
+    public static void reset() {
+        for (EndpointMetrics endpointMetrics : sEndpoints.values()) {
+            endpointMetrics.reset();
+        }
+        for (int i = 0; i < PREFETCH_EVENT_COUNT; i++) {
+            sPrefetchEvents.set(i, 0);
+        }
+    }
+}
@@ -16,45 +16,108 @@
 package com.example.popularmovies.utilities;
 
 import android.net.Uri;
+import android.os.SystemClock;
 
 import com.example.popularmovies.data.IJsonDeserialize;
+import com.example.popularmovies.data.IJsonFactory;
+import com.example.popularmovies.data.IJsonStreamDeserialize;
 import com.example.popularmovies.data.MovieDetails;
+import com.example.popularmovies.data.MoviesPageList;
 import com.example.popularmovies.data.MoviesResponse;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 public final class NetworkUtils {
 
-    private static final String MOVIE_POSTER_BASE_URL = "http://image.tmdb.org/t/p/w185";
-    private static final String API_BASE_URL = "https://api.themoviedb.org/3";
+    private static final String DEFAULT_API_BASE_URL = "https://api.themoviedb.org/3";
     private final static String API_KEY_PARAM = "api_key";
+    private final static String PAGE_PARAM = "page";
+    private final static String QUERY_PARAM = "query";
+    private final static String APPEND_TO_RESPONSE_PARAM = "append_to_response";
 
-    public static Uri buildMovieImageUri(String path) {
-        Uri.Builder uriBuilder = Uri.parse(MOVIE_POSTER_BASE_URL)
-                .buildUpon()
-                .appendEncodedPath(path);
+    // Fetched along with the details so that the detail screen needs a single request.
+    private final static String MOVIE_DETAILS_APPENDED_RESPONSES = "videos,credits,reviews";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
-        Uri builtUri = uriBuilder.build();
-        return builtUri;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 2000;
+
+    private static final String REVALIDATION_KEY_PREFIX = "revalidate/";
+    private static final Set<String> REVALIDATING_CACHE_KEYS = new HashSet<>();
+
+    private static HttpTransport sTransport;
+    private static String sApiBaseUrl = DEFAULT_API_BASE_URL;
+
+    public static synchronized void setTransport(HttpTransport transport) {
+        sTransport = transport;
+    }
+
+    /**
+     * Points every request at another server, such as a local mock of the TMDB API.
+     */
+    public static synchronized void setApiBaseUrl(String apiBaseUrl) {
+        sApiBaseUrl = apiBaseUrl;
+    }
+
+    private static synchronized String getApiBaseUrl() {
+        return sApiBaseUrl;
+    }
+
+    private static synchronized HttpTransport getTransport() {
+        if (sTransport == null)
+            sTransport = new UrlConnectionTransport(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+
+        return sTransport;
+    }
+
+    private static URL buildPageUrl(String apiKey, int page, String... pathComponents) {
+        Uri.Builder uriBuilder = buildUriBuilder(apiKey, pathComponents)
+                .appendQueryParameter(PAGE_PARAM, String.valueOf(page));
+        return toUrl(uriBuilder);
+    }
+
+    private static URL buildMovieDetailsUrl(String apiKey, int movieId) {
+        Uri.Builder uriBuilder = buildUriBuilder(apiKey, "movie", String.valueOf(movieId))
+                .appendQueryParameter(APPEND_TO_RESPONSE_PARAM, MOVIE_DETAILS_APPENDED_RESPONSES);
+        return toUrl(uriBuilder);
     }
 
-    private static URL buildUrl(String apiKey, String... pathComponents) {
-        Uri.Builder uriBuilder = Uri.parse(API_BASE_URL).buildUpon();
+    private static URL buildSearchUrl(String apiKey, String query, int page, String... pathComponents) {
+        Uri.Builder uriBuilder = buildUriBuilder(apiKey, pathComponents)
+                .appendQueryParameter(QUERY_PARAM, query)
+                .appendQueryParameter(PAGE_PARAM, String.valueOf(page));
+        return toUrl(uriBuilder);
+    }
+
+    private static Uri.Builder buildUriBuilder(String apiKey, String... pathComponents) {
+        Uri.Builder uriBuilder = Uri.parse(getApiBaseUrl()).buildUpon();
 
         for (String pathComponent : pathComponents) {
             uriBuilder.appendEncodedPath(pathComponent);
         }
 
-        uriBuilder = uriBuilder.appendQueryParameter(API_KEY_PARAM, apiKey);
+        return uriBuilder.appendQueryParameter(API_KEY_PARAM, apiKey);
+    }
 
+    private static URL toUrl(Uri.Builder uriBuilder) {
         Uri builtUri = uriBuilder.build();
         URL url = null;
         try {
@@ -66,69 +129,312 @@ public final class NetworkUtils {
         return url;
     }
 
-    private static <T extends IJsonDeserialize> T sendRequest(URL requestUrl, Class<T> instanceClass) throws Exception {
-        HttpURLConnection httpConnection = null;
-        InputStream responseInputStream = null;
+    /**
+     * Answers from the response cache while the cached entry is fresh or within its
+     * stale-while-revalidate window. With noCache set the server is always asked, using the
+     * cached entry only for a conditional request, and a failed request is never answered from
+     * the cache.
+     */
+    private static <T extends IJsonDeserialize> T sendRequest(String endpoint, URL requestUrl, IJsonFactory<T> factory,
+                                                              boolean noCache) throws Exception {
+        NetworkMetrics.EndpointMetrics metrics = NetworkMetrics.getEndpoint(endpoint);
+        ResponseDiskCache responseCache = ResponseDiskCache.getInstance();
+        String cacheKey = ResponseDiskCache.keyFor(requestUrl);
+
+        ResponseDiskCache.Entry cachedEntry = null;
+        if (responseCache != null) {
+            cachedEntry = responseCache.get(cacheKey);
+
+            long now = System.currentTimeMillis();
+            if (!noCache && cachedEntry != null && cachedEntry.isWithinStaleWhileRevalidate(now)) {
+                InputStream cachedInputStream = openCachedBody(responseCache, cachedEntry);
+                if (cachedInputStream != null) {
+                    if (cachedEntry.isFresh(now)) {
+                        metrics.recordCacheResult(NetworkMetrics.CACHE_HIT);
+                    } else {
+                        metrics.recordCacheResult(NetworkMetrics.CACHE_STALE);
+                        revalidateInBackground(endpoint, requestUrl, cacheKey, cachedEntry, factory);
+                    }
+
+                    return parseCachedResponse(metrics, responseCache, cachedEntry, cachedInputStream, factory);
+                }
+
+                // Evicted since it was looked up, so fetched like any other miss.
+                cachedEntry = null;
+            }
+        }
 
-        T response;
+        HttpResponse response = null;
+        long startMillis = SystemClock.elapsedRealtime();
 
         try {
-            URLConnection urlConnection = requestUrl.openConnection();
-            urlConnection.setRequestProperty("Content-Type", "application/json");
+            response = getTransport().get(requestUrl, buildRequestHeaders(cachedEntry));
 
-            httpConnection = (HttpURLConnection) urlConnection;
+            int statusCode = response.getStatusCode();
+            if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedEntry != null) {
+                metrics.recordCacheResult(NetworkMetrics.CACHE_REVALIDATED);
+                ResponseDiskCache.Entry updatedEntry = responseCache.update(cachedEntry, response);
+                return fromNetwork(parseCachedResponse(metrics, responseCache, updatedEntry, factory));
+            }
 
-            httpConnection.setRequestMethod("GET");
-            httpConnection.setConnectTimeout(2000);
-            httpConnection.setReadTimeout(2000);
+            if (statusCode != HttpURLConnection.HTTP_OK) {
+                metrics.recordHttpError(statusCode);
+                // While throttled any cached answer, however old, beats none.
+                if (statusCode == RateLimitingTransport.HTTP_TOO_MANY_REQUESTS && cachedEntry != null && !noCache)
+                    return parseCachedResponse(metrics, responseCache, cachedEntry, factory);
 
-            int statusCode = httpConnection.getResponseCode();
-            if (statusCode != 200)
                 throw new Exception("Http Error: Status Code - " + statusCode);
+            }
 
-            responseInputStream = httpConnection.getInputStream();
-            BufferedReader responseBufferedReader = new BufferedReader(new InputStreamReader(responseInputStream));
+            metrics.recordCacheResult(NetworkMetrics.CACHE_MISS);
+            if (responseCache != null && ResponseDiskCache.isCacheable(response))
+                return fromNetwork(responseCache.put(cacheKey, response, bodyParser(metrics, factory)));
 
-            String line;
-            StringBuilder responseStringBuilder = new StringBuilder();
-            while ((line = responseBufferedReader.readLine()) != null) {
-                responseStringBuilder.append(line);
-            }
+            return fromNetwork(parseResponse(metrics, response.getBody(), factory));
+        } catch (JsonDeserializationException e) {
+            // Already counted as a parse error.
+            throw e;
+        } catch (IOException e) {
+            metrics.recordIoError(e);
+            if (cachedEntry != null && !noCache)
+                return parseCachedResponse(metrics, responseCache, cachedEntry, factory);
+
+            throw e;
+        } finally {
+            if (response != null)
+                closeAndRecord(metrics, response, startMillis);
+        }
+    }
+
+    // Lets the callers that store pages tell what the server just sent from a cached copy.
+    private static <T> T fromNetwork(T response) {
+        if (response instanceof MoviesResponse)
+            ((MoviesResponse) response).setFromNetwork(true);
+
+        return response;
+    }
+
+    private static void closeAndRecord(NetworkMetrics.EndpointMetrics metrics, HttpResponse response, long startMillis)
+            throws IOException {
+        try {
+            response.close();
+        } finally {
+            metrics.recordLatency(SystemClock.elapsedRealtime() - startMillis);
+            metrics.recordBytes(response.getTransferredBytes(), response.getBodyBytes());
+        }
+    }
+
+    private static Map<String, String> buildRequestHeaders(ResponseDiskCache.Entry cachedEntry) {
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put("Accept", "application/json");
+
+        if (cachedEntry != null) {
+            if (cachedEntry.getEtag() != null)
+                requestHeaders.put("If-None-Match", cachedEntry.getEtag());
+            if (cachedEntry.getLastModified() != null)
+                requestHeaders.put("If-Modified-Since", cachedEntry.getLastModified());
+        }
+
+        return requestHeaders;
+    }
+
+    private static <T extends IJsonDeserialize> void revalidateInBackground(final String endpoint, final URL requestUrl,
+                                                                            final String cacheKey,
+                                                                            final ResponseDiskCache.Entry cachedEntry,
+                                                                            final IJsonFactory<T> factory) {
+        synchronized (REVALIDATING_CACHE_KEYS) {
+            if (!REVALIDATING_CACHE_KEYS.add(cacheKey))
+                return;
+        }
+
+        // Nobody waits for the result, so it runs behind every request someone is waiting for.
+        RequestScheduler.getInstance().submit(REVALIDATION_KEY_PREFIX + cacheKey, RequestScheduler.PRIORITY_BACKGROUND,
+                null, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            revalidate(endpoint, requestUrl, cacheKey, cachedEntry, factory);
+                        } finally {
+                            synchronized (REVALIDATING_CACHE_KEYS) {
+                                REVALIDATING_CACHE_KEYS.remove(cacheKey);
+                            }
+                        }
 
-            if (responseStringBuilder.length() == 0)
-                return null;
+                        return null;
+                    }
+                }, null);
+    }
+
+    static boolean isRevalidating() {
+        synchronized (REVALIDATING_CACHE_KEYS) {
+            return !REVALIDATING_CACHE_KEYS.isEmpty();
+        }
+    }
+
+    private static <T extends IJsonDeserialize> void revalidate(String endpoint, URL requestUrl, String cacheKey,
+                                                                ResponseDiskCache.Entry cachedEntry,
+                                                                IJsonFactory<T> factory) throws IOException {
+        ResponseDiskCache responseCache = ResponseDiskCache.getInstance();
+        if (responseCache == null)
+            return;
+
+        NetworkMetrics.EndpointMetrics metrics = NetworkMetrics.getEndpoint(endpoint);
+        HttpResponse response = null;
+        long startMillis = SystemClock.elapsedRealtime();
+
+        try {
+            response = getTransport().get(requestUrl, buildRequestHeaders(cachedEntry));
+
+            int statusCode = response.getStatusCode();
+            if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                responseCache.update(cachedEntry, response);
+            } else if (statusCode == HttpURLConnection.HTTP_OK && ResponseDiskCache.isCacheable(response)) {
+                responseCache.put(cacheKey, response, bodyParser(metrics, factory));
+            } else if (statusCode != HttpURLConnection.HTTP_OK) {
+                metrics.recordHttpError(statusCode);
+            }
+        } catch (JsonDeserializationException e) {
+            throw e;
+        } catch (IOException e) {
+            metrics.recordIoError(e);
+            throw e;
+        } finally {
+            if (response != null)
+                closeAndRecord(metrics, response, startMillis);
+        }
+    }
 
-            String responseString = responseStringBuilder.toString();
-            JSONObject jsonObject = new JSONObject(responseString);
+    private static <T extends IJsonDeserialize> T parseCachedResponse(NetworkMetrics.EndpointMetrics metrics,
+                                                                      ResponseDiskCache responseCache,
+                                                                      ResponseDiskCache.Entry entry,
+                                                                      IJsonFactory<T> factory) throws IOException {
+        return parseCachedResponse(metrics, responseCache, entry, responseCache.openBody(entry), factory);
+    }
 
-            response = instanceClass.newInstance();
-            response.fillPropertiesByJsonObject(jsonObject);
+    private static <T extends IJsonDeserialize> T parseCachedResponse(NetworkMetrics.EndpointMetrics metrics,
+                                                                      ResponseDiskCache responseCache,
+                                                                      ResponseDiskCache.Entry entry,
+                                                                      InputStream cachedInputStream,
+                                                                      IJsonFactory<T> factory) throws IOException {
+        try {
+            return parseResponse(metrics, cachedInputStream, factory);
+        } catch (JsonDeserializationException e) {
+            // Fetched again next time instead of failing until it expires.
+            responseCache.remove(entry.getKey());
+            throw e;
         } finally {
-            if (responseInputStream != null)
-                responseInputStream.close();
+            cachedInputStream.close();
+        }
+    }
+
+    private static InputStream openCachedBody(ResponseDiskCache responseCache, ResponseDiskCache.Entry entry)
+            throws IOException {
+        try {
+            return responseCache.openBody(entry);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static <T extends IJsonDeserialize> ResponseDiskCache.BodyParser<T> bodyParser(
+            final NetworkMetrics.EndpointMetrics metrics, final IJsonFactory<T> factory) {
+        return new ResponseDiskCache.BodyParser<T>() {
+            @Override
+            public T parse(InputStream inputStream) throws IOException {
+                return parseResponse(metrics, inputStream, factory);
+            }
+        };
+    }
 
-            if (httpConnection != null)
-                httpConnection.disconnect();
+    private static <T extends IJsonDeserialize> T parseResponse(NetworkMetrics.EndpointMetrics metrics,
+                                                                InputStream inputStream,
+                                                                IJsonFactory<T> factory) throws IOException {
+        T response = factory.create();
+        String typeName = response.getClass().getSimpleName();
+
+        long startMillis = SystemClock.elapsedRealtime();
+        try {
+            if (response instanceof IJsonStreamDeserialize) {
+                ((IJsonStreamDeserialize) response).fillPropertiesByJsonReader(createJsonReader(inputStream));
+            } else {
+                JSONObject jsonObject = readJsonObject(inputStream);
+                if (jsonObject == null)
+                    return null;
+
+                response.fillPropertiesByJsonObject(jsonObject);
+            }
+        } catch (MalformedJsonException | IllegalStateException | JSONException e) {
+            metrics.recordError(NetworkMetrics.ERROR_PARSE);
+            throw new JsonDeserializationException(typeName, e);
+        } finally {
+            metrics.recordParseTime(SystemClock.elapsedRealtime() - startMillis);
         }
 
         return response;
     }
 
+    private static JsonReader createJsonReader(InputStream inputStream) {
+        InputStreamReader inputStreamReader = new InputStreamReader(inputStream, UTF_8);
+        return new JsonReader(inputStreamReader);
+    }
+
+    private static JSONObject readJsonObject(InputStream inputStream) throws IOException, JSONException {
+        BufferedReader responseBufferedReader = new BufferedReader(new InputStreamReader(inputStream, UTF_8));
+
+        String line;
+        StringBuilder responseStringBuilder = new StringBuilder();
+        while ((line = responseBufferedReader.readLine()) != null) {
+            responseStringBuilder.append(line);
+        }
+
+        if (responseStringBuilder.length() == 0)
+            return null;
+
+        String responseString = responseStringBuilder.toString();
+        return new JSONObject(responseString);
+    }
+
     public static MoviesResponse popular(String apiKey) throws Exception {
-        URL requestUrl = buildUrl(apiKey, "movie", "popular");
-        MoviesResponse moviesResponse = sendRequest(requestUrl, MoviesResponse.class);
+        return popular(apiKey, MoviesPageList.FIRST_PAGE);
+    }
+
+    public static MoviesResponse popular(String apiKey, int page) throws Exception {
+        return popular(apiKey, page, false);
+    }
+
+    public static MoviesResponse popular(String apiKey, int page, boolean noCache) throws Exception {
+        URL requestUrl = buildPageUrl(apiKey, page, "movie", "popular");
+        MoviesResponse moviesResponse = sendRequest(NetworkMetrics.ENDPOINT_POPULAR, requestUrl, MoviesResponse.FACTORY,
+                noCache);
         return moviesResponse;
     }
 
     public static MoviesResponse topRated(String apiKey) throws Exception {
-        URL requestUrl = buildUrl(apiKey, "movie", "top_rated");
-        MoviesResponse moviesResponse = sendRequest(requestUrl, MoviesResponse.class);
+        return topRated(apiKey, MoviesPageList.FIRST_PAGE);
+    }
+
+    public static MoviesResponse topRated(String apiKey, int page) throws Exception {
+        return topRated(apiKey, page, false);
+    }
+
+    public static MoviesResponse topRated(String apiKey, int page, boolean noCache) throws Exception {
+        URL requestUrl = buildPageUrl(apiKey, page, "movie", "top_rated");
+        MoviesResponse moviesResponse = sendRequest(NetworkMetrics.ENDPOINT_TOP_RATED, requestUrl, MoviesResponse.FACTORY,
+                noCache);
         return moviesResponse;
     }
 
     public static MovieDetails movieDetails(String apiKey, int movieId) throws Exception {
-        URL requestUrl = buildUrl(apiKey, "movie", String.valueOf(movieId));
-        MovieDetails movieDetails = sendRequest(requestUrl, MovieDetails.class);
+        URL requestUrl = buildMovieDetailsUrl(apiKey, movieId);
+        MovieDetails movieDetails = sendRequest(NetworkMetrics.ENDPOINT_MOVIE_DETAILS, requestUrl, MovieDetails.FACTORY,
+                false);
         return movieDetails;
     }
+
+    public static MoviesResponse searchMovies(String apiKey, String query) throws Exception {
+        URL requestUrl = buildSearchUrl(apiKey, query, MoviesPageList.FIRST_PAGE, "search", "movie");
+        MoviesResponse moviesResponse = sendRequest(NetworkMetrics.ENDPOINT_SEARCH, requestUrl, MoviesResponse.FACTORY,
+                false);
+        return moviesResponse;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.example.popularmovies.utilities;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import com.squareup.picasso.Downloader;
+import com.squareup.picasso.NetworkPolicy;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Picasso downloader backed by OkHttp with its own disk cache, kept apart from the API responses
+ * in {@link ResponseDiskCache} so that images can never evict JSON and the other way round.
+ */
+public class OkHttpImageDownloader implements Downloader {
+
+    // Images are never content encoded, so what comes over the wire is also what gets decoded.
+    private static final Interceptor TRANSFERRED_BYTES_INTERCEPTOR = new Interceptor() {
+        @Override
+        public okhttp3.Response intercept(Chain chain) throws IOException {
+            okhttp3.Response response = chain.proceed(chain.request());
+
+            ResponseBody body = response.body();
+            if (body == null)
+                return response;
+
+            final NetworkMetrics.EndpointMetrics metrics = NetworkMetrics.getEndpoint(NetworkMetrics.ENDPOINT_IMAGES);
+            ForwardingSource countingSource = new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0)
+                        metrics.recordBytes(read, read);
+
+                    return read;
+                }
+            };
+
+            return response.newBuilder()
+                    .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(countingSource)))
+                    .build();
+        }
+    };
+
+    private final File mCacheDirectory;
+    private final long mMaxCacheBytes;
+    private OkHttpClient mClient;
+
+    public OkHttpImageDownloader(File cacheDirectory, long maxCacheBytes) {
+        mCacheDirectory = cacheDirectory;
+        mMaxCacheBytes = maxCacheBytes;
+    }
+
+    // Built on the first download, on one of Picasso's threads, to keep OkHttp off the startup path.
+    private synchronized OkHttpClient getClient() {
+        if (mClient == null) {
+            mClient = new OkHttpClient.Builder()
+                    .cache(new Cache(mCacheDirectory, mMaxCacheBytes))
+                    .addNetworkInterceptor(TRANSFERRED_BYTES_INTERCEPTOR)
+                    .build();
+        }
+
+        return mClient;
+    }
+
+    @Override
+    public Response load(Uri uri, int networkPolicy) throws IOException {
+        Request.Builder requestBuilder = new Request.Builder().url(uri.toString());
+
+        if (networkPolicy != 0) {
+            if (NetworkPolicy.isOfflineOnly(networkPolicy)) {
+                requestBuilder.cacheControl(CacheControl.FORCE_CACHE);
+            } else {
+                CacheControl.Builder cacheControlBuilder = new CacheControl.Builder();
+                if (!NetworkPolicy.shouldReadFromDiskCache(networkPolicy))
+                    cacheControlBuilder.noCache();
+                if (!NetworkPolicy.shouldWriteToDiskCache(networkPolicy))
+                    cacheControlBuilder.noStore();
+                requestBuilder.cacheControl(cacheControlBuilder.build());
+            }
+        }
+
+        NetworkMetrics.EndpointMetrics metrics = NetworkMetrics.getEndpoint(NetworkMetrics.ENDPOINT_IMAGES);
+        long startMillis = SystemClock.elapsedRealtime();
+
+        okhttp3.Response response;
+        try {
+            response = getClient().newCall(requestBuilder.build()).execute();
+        } catch (IOException e) {
+            metrics.recordIoError(e);
+            throw e;
+        }
+
+        // Picasso reads and decodes the body later, so this only covers the time to the headers.
+        metrics.recordLatency(SystemClock.elapsedRealtime() - startMillis);
+
+        int statusCode = response.code();
+        if (statusCode >= 300) {
+            metrics.recordHttpError(statusCode);
+            response.close();
+            throw new ResponseException(statusCode + " " + response.message(), networkPolicy, statusCode);
+        }
+
+        boolean fromCache = response.cacheResponse() != null;
+        if (!fromCache)
+            metrics.recordCacheResult(NetworkMetrics.CACHE_MISS);
+        else if (response.networkResponse() != null)
+            metrics.recordCacheResult(NetworkMetrics.CACHE_REVALIDATED);
+        else
+            metrics.recordCacheResult(NetworkMetrics.CACHE_HIT);
+        ResponseBody responseBody = response.body();
+        return new Response(responseBody.byteStream(), fromCache, responseBody.contentLength());
+    }
+
+    @Override
+    public void shutdown() {
+        OkHttpClient client;
+        synchronized (this) {
+            client = mClient;
+        }
+
+        if (client == null)
+            return;
+
+        try {
+            client.cache().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * {@link HttpTransport} on top of OkHttp. Requests to the same host are multiplexed over a single
+ * HTTP/2 connection when the server supports it and fall back to pooled HTTP/1.1 connections
+ * otherwise. OkHttp adds Accept-Encoding: gzip and decodes the body by itself, so the bytes that
+ * came over the wire are counted by a network interceptor, which still sees the encoded body.
+ */
+public class OkHttpTransport implements HttpTransport {
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Counts into the AtomicLong the request is tagged with.
+    private static final Interceptor TRANSFERRED_BYTES_INTERCEPTOR = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Response response = chain.proceed(chain.request());
+
+            Object tag = chain.request().tag();
+            ResponseBody body = response.body();
+            if (!(tag instanceof AtomicLong) || body == null)
+                return response;
+
+            final AtomicLong transferredBytes = (AtomicLong) tag;
+            ForwardingSource countingSource = new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0)
+                        transferredBytes.addAndGet(read);
+
+                    return read;
+                }
+            };
+
+            return response.newBuilder()
+                    .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(countingSource)))
+                    .build();
+        }
+    };
+
+    private final int mConnectTimeoutMillis;
+    private final int mReadTimeoutMillis;
+    private OkHttpClient mClient;
+
+    public OkHttpTransport(int connectTimeoutMillis, int readTimeoutMillis) {
+        mConnectTimeoutMillis = connectTimeoutMillis;
+        mReadTimeoutMillis = readTimeoutMillis;
+    }
+
+    // Built by the first request, which never runs on the main thread, rather than at startup.
+    private synchronized OkHttpClient getClient() {
+        if (mClient == null) {
+            mClient = new OkHttpClient.Builder()
+                    .connectTimeout(mConnectTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .readTimeout(mReadTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .retryOnConnectionFailure(false)
+                    .addNetworkInterceptor(TRANSFERRED_BYTES_INTERCEPTOR)
+                    .build();
+        }
+
+        return mClient;
+    }
+
+    @Override
+    public HttpResponse get(URL url, Map<String, String> requestHeaders) throws IOException {
+        AtomicLong transferredBytes = new AtomicLong();
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .tag(transferredBytes)
+                .get();
+
+        for (Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
+            requestBuilder.header(requestHeader.getKey(), requestHeader.getValue());
+        }
+
+        Response response = getClient().newCall(requestBuilder.build()).execute();
+
+        Map<String, String> headers = new HashMap<>();
+        for (String name : response.headers().names()) {
+            headers.put(name, response.header(name));
+        }
+
+        ResponseBody responseBody = response.body();
+        return new HttpResponse(response.code(), headers,
+                responseBody == null ? null : responseBody.byteStream(), transferredBytes);
+    }
+}
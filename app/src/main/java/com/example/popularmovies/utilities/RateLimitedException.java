@@ -0,0 +1,14 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request is given up on because the rate limiter would hold it for longer than its
+ * caller is willing to wait.
+ */
+public class RateLimitedException extends IOException {
+
+    public RateLimitedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every request of the process within the API's rate limit, on top of another
+ * {@link HttpTransport}. Requests take tokens from a single bucket, refilled at a steady rate up
+ * to a burst. They wait in one of two lanes: requests run by the {@link RequestScheduler} at
+ * {@link RequestScheduler#PRIORITY_INTERACTIVE} in the interactive lane, everything else (prefetches,
+ * paging ahead, the sync job, cache revalidations) in the background lane. Background requests
+ * yield to waiting interactive ones and leave part of the bucket to them.
+ *
+ * A 429 response pauses the lane that received it for as long as its Retry-After header asks, then
+ * the request is sent once more. It also halves the rate and the burst of that lane, which then
+ * grow back a little with every answered request of the lane, so that the lane settles just below
+ * the server's limit instead of bursting into it again after each pause. The other lane keeps its
+ * pace. Requests that would wait longer than their lane allows fail with a
+ * {@link RateLimitedException} right away, so that the screen falls back to stored data instead of
+ * hanging. The background lane should only allow short waits: its requests hold one of the few
+ * workers of the {@link RequestScheduler}, which interactive requests queue behind.
+ */
+public class RateLimitingTransport implements HttpTransport {
+
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final int LANE_INTERACTIVE = 0;
+    private static final int LANE_BACKGROUND = 1;
+    private static final int LANE_COUNT = 2;
+
+    // Background requests may not take the last quarter of the bucket.
+    private static final int INTERACTIVE_RESERVE_DIVISOR = 4;
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000;
+    private static final int MAX_ATTEMPTS = 2;
+
+    private static final double MIN_RATE_SCALE = 1.0 / 16;
+    private static final double RATE_SCALE_RECOVERY_STEP = 1.0 / 32;
+
+    private final HttpTransport mTransport;
+    private final Ticker mTicker;
+    private final double mTokensPerNano;
+    private final int mBurst;
+    private final long[] mMaxWaitNanos = new long[LANE_COUNT];
+
+    // Guarded by this.
+    private double mTokens;
+    private long mRefilledAtNanos;
+    private final long[] mPausedUntilNanos = new long[LANE_COUNT];
+    private final int[] mWaitingRequests = new int[LANE_COUNT];
+
+    // Backoff of each lane after a 429, a second bucket its requests also take from while the
+    // lane's rate is scaled down. Guarded by this.
+    private final double[] mRateScales = new double[LANE_COUNT];
+    private final double[] mLaneTokens = new double[LANE_COUNT];
+    private final long[] mLaneRefilledAtNanos = new long[LANE_COUNT];
+
+    public RateLimitingTransport(HttpTransport transport, double requestsPerSecond, int burst,
+                                 long interactiveMaxWaitMillis, long backgroundMaxWaitMillis) {
+        this(transport, requestsPerSecond, burst, interactiveMaxWaitMillis, backgroundMaxWaitMillis, Ticker.SYSTEM);
+    }
+
+    RateLimitingTransport(HttpTransport transport, double requestsPerSecond, int burst,
+                          long interactiveMaxWaitMillis, long backgroundMaxWaitMillis, Ticker ticker) {
+        mTransport = transport;
+        mTicker = ticker;
+        mTokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        mBurst = burst;
+        mMaxWaitNanos[LANE_INTERACTIVE] = TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMillis);
+        mMaxWaitNanos[LANE_BACKGROUND] = TimeUnit.MILLISECONDS.toNanos(backgroundMaxWaitMillis);
+
+        mTokens = burst;
+        mRefilledAtNanos = ticker.nanoTime();
+        for (int lane = 0; lane < LANE_COUNT; lane++) {
+            mPausedUntilNanos[lane] = mRefilledAtNanos;
+            mRateScales[lane] = 1;
+        }
+    }
+
+    @Override
+    public HttpResponse get(URL url, Map<String, String> requestHeaders) throws IOException {
+        int lane = RequestScheduler.getCurrentPriority() == RequestScheduler.PRIORITY_INTERACTIVE
+                ? LANE_INTERACTIVE
+                : LANE_BACKGROUND;
+
+        for (int attempt = 1; ; attempt++) {
+            acquire(lane);
+
+            HttpResponse response = mTransport.get(url, requestHeaders);
+            if (response.getStatusCode() != HTTP_TOO_MANY_REQUESTS) {
+                recover(lane);
+                return response;
+            }
+
+            long retryAfterMillis = response.getRetryAfterMillis(System.currentTimeMillis());
+            throttle(lane, retryAfterMillis < 0 ? DEFAULT_RETRY_AFTER_MILLIS : retryAfterMillis);
+
+            if (attempt >= MAX_ATTEMPTS)
+                return response;
+
+            response.close();
+        }
+    }
+
+    private synchronized void acquire(int lane) throws IOException {
+        long deadlineNanos = mTicker.nanoTime() + mMaxWaitNanos[lane];
+        mWaitingRequests[lane]++;
+        try {
+            while (true) {
+                long nowNanos = mTicker.nanoTime();
+                refill(nowNanos);
+
+                long waitNanos = mPausedUntilNanos[lane] - nowNanos;
+                if (waitNanos <= 0) {
+                    if (mayTakeToken(lane, nowNanos) && mLaneTokens[lane] >= 1) {
+                        mTokens -= 1;
+                        if (isBackingOff(lane))
+                            mLaneTokens[lane] -= 1;
+                        return;
+                    }
+
+                    waitNanos = Math.max(nanosUntilToken(lane), nanosUntilLaneToken(lane));
+                }
+
+                if (nowNanos + waitNanos - deadlineNanos > 0)
+                    throw new RateLimitedException("Rate limited for " + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms");
+
+                // Woken up early whenever another request leaves its lane.
+                mTicker.waitNanos(this, waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+        } finally {
+            mWaitingRequests[lane]--;
+            notifyAll();
+        }
+    }
+
+    private boolean mayTakeToken(int lane, long nowNanos) {
+        if (lane == LANE_INTERACTIVE)
+            return mTokens >= 1;
+
+        // Interactive requests that are only waiting out a pause do not hold background ones back.
+        boolean interactiveWaiting = mWaitingRequests[LANE_INTERACTIVE] > 0
+                && mPausedUntilNanos[LANE_INTERACTIVE] - nowNanos <= 0;
+        return !interactiveWaiting && mTokens >= backgroundRequiredTokens();
+    }
+
+    private double backgroundRequiredTokens() {
+        return 1 + Math.floor(mBurst / INTERACTIVE_RESERVE_DIVISOR);
+    }
+
+    private long nanosUntilToken(int lane) {
+        double requiredTokens = lane == LANE_INTERACTIVE ? 1 : backgroundRequiredTokens();
+        double missingTokens = requiredTokens - mTokens;
+        // Held back by interactive requests, which wake it up as they leave.
+        if (missingTokens <= 0)
+            missingTokens = 1;
+
+        return Math.max(1, (long) Math.ceil(missingTokens / mTokensPerNano));
+    }
+
+    private long nanosUntilLaneToken(int lane) {
+        double missingTokens = 1 - mLaneTokens[lane];
+        if (missingTokens <= 0)
+            return 0;
+
+        return Math.max(1, (long) Math.ceil(missingTokens / (mTokensPerNano * mRateScales[lane])));
+    }
+
+    private boolean isBackingOff(int lane) {
+        return mRateScales[lane] < 1;
+    }
+
+    private double laneCapacity(int lane) {
+        return Math.max(1, mBurst * mRateScales[lane]);
+    }
+
+    private void refill(long nowNanos) {
+        mTokens = Math.min(mBurst, mTokens + (nowNanos - mRefilledAtNanos) * mTokensPerNano);
+        mRefilledAtNanos = nowNanos;
+
+        for (int lane = 0; lane < LANE_COUNT; lane++) {
+            if (isBackingOff(lane)) {
+                double refilledTokens = (nowNanos - mLaneRefilledAtNanos[lane]) * mTokensPerNano * mRateScales[lane];
+                mLaneTokens[lane] = Math.min(laneCapacity(lane), mLaneTokens[lane] + refilledTokens);
+            } else {
+                mLaneTokens[lane] = 1;
+            }
+            mLaneRefilledAtNanos[lane] = nowNanos;
+        }
+    }
+
+    private synchronized void throttle(int lane, long pauseMillis) {
+        long nowNanos = mTicker.nanoTime();
+        refill(nowNanos);
+
+        long pausedUntilNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(pauseMillis);
+        if (pausedUntilNanos - mPausedUntilNanos[lane] > 0)
+            mPausedUntilNanos[lane] = pausedUntilNanos;
+
+        // The server has seen more requests from this lane than it allows, so start it over empty.
+        mLaneTokens[lane] = 0;
+        mRateScales[lane] = Math.max(MIN_RATE_SCALE, mRateScales[lane] / 2);
+    }
+
+    private synchronized void recover(int lane) {
+        if (!isBackingOff(lane))
+            return;
+
+        refill(mTicker.nanoTime());
+        mRateScales[lane] = Math.min(1, mRateScales[lane] + RATE_SCALE_RECOVERY_STEP);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.popularmovies.utilities;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs background requests on a shared, bounded pool. Requests with the same key share a single
+ * execution, lower priority values run first and results are delivered on the main thread to
+ * every caller that has not been cancelled in the meantime.
+ */
+public final class RequestScheduler {
+
+    public static final int PRIORITY_INTERACTIVE = 0;
+    public static final int PRIORITY_PREFETCH = 1;
+    public static final int PRIORITY_BACKGROUND = 2;
+
+    private static final int POOL_SIZE = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static RequestScheduler sInstance;
+
+    private static final ThreadLocal<Integer> sCurrentPriority = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong mSequence = new AtomicLong();
+
+    private final Map<String, Task<?>> mTasksByKey = new HashMap<>();
+    private final Map<Object, List<Request>> mRequestsByOwner = new HashMap<>();
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public static synchronized RequestScheduler getInstance() {
+        if (sInstance == null)
+            sInstance = new RequestScheduler();
+
+        return sInstance;
+    }
+
+    /**
+     * Returns the priority of the request running on the calling thread, work started anywhere
+     * else counts as {@link #PRIORITY_BACKGROUND}.
+     */
+    public static int getCurrentPriority() {
+        Integer priority = sCurrentPriority.get();
+        return priority == null ? PRIORITY_BACKGROUND : priority;
+    }
+
+    private RequestScheduler() {
+        mExecutor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mThreadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "RequestScheduler #" + mThreadCount.incrementAndGet());
+                        thread.setPriority(Thread.MIN_PRIORITY + 1);
+                        return thread;
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules the callable unless an identical request (same key) is already queued or running,
+     * in which case the callback joins it. Joining with a higher priority promotes a queued request.
+     * The callback may be null for work whose result nobody needs.
+     */
+    public <T> Request submit(String key, int priority, Object owner, Callable<T> callable, Callback<T> callback) {
+        Request request;
+        Task<?> taskToExecute = null;
+
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            Task<T> task = (Task<T>) mTasksByKey.get(key);
+            if (task == null) {
+                task = new Task<>(key, priority, mSequence.getAndIncrement(), callable);
+                mTasksByKey.put(key, task);
+                taskToExecute = task;
+            } else if (priority < task.priority && mExecutor.getQueue().remove(task)) {
+                task.priority = priority;
+                taskToExecute = task;
+            }
+
+            request = new Request(task, owner, callback);
+            task.requests.add(request);
+
+            if (owner != null) {
+                List<Request> ownerRequests = mRequestsByOwner.get(owner);
+                if (ownerRequests == null) {
+                    ownerRequests = new ArrayList<>();
+                    mRequestsByOwner.put(owner, ownerRequests);
+                }
+                ownerRequests.add(request);
+            }
+        }
+
+        if (taskToExecute != null)
+            mExecutor.execute(taskToExecute);
+
+        return request;
+    }
+
+    public void cancelAll(Object owner) {
+        List<Request> ownerRequests;
+        synchronized (this) {
+            ownerRequests = mRequestsByOwner.remove(owner);
+        }
+
+        if (ownerRequests == null)
+            return;
+
+        for (Request request : ownerRequests) {
+            request.cancel();
+        }
+    }
+
+    public synchronized boolean isInFlight(String key) {
+        return mTasksByKey.containsKey(key);
+    }
+
+    private synchronized void cancel(Request request) {
+        Task<?> task = request.task;
+        task.requests.remove(request);
+
+        if (request.owner != null) {
+            List<Request> ownerRequests = mRequestsByOwner.get(request.owner);
+            if (ownerRequests != null) {
+                ownerRequests.remove(request);
+                if (ownerRequests.isEmpty())
+                    mRequestsByOwner.remove(request.owner);
+            }
+        }
+
+        if (task.requests.isEmpty() && mExecutor.getQueue().remove(task))
+            mTasksByKey.remove(task.key);
+    }
+
+    private <T> void complete(final Task<T> task, final T result) {
+        final List<Request> requests;
+        synchronized (this) {
+            mTasksByKey.remove(task.key);
+            requests = new ArrayList<>(task.requests);
+            task.requests.clear();
+
+            for (Request request : requests) {
+                if (request.owner == null)
+                    continue;
+
+                List<Request> ownerRequests = mRequestsByOwner.get(request.owner);
+                if (ownerRequests != null) {
+                    ownerRequests.remove(request);
+                    if (ownerRequests.isEmpty())
+                        mRequestsByOwner.remove(request.owner);
+                }
+            }
+        }
+
+        mMainHandler.post(new Runnable() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void run() {
+                for (Request request : requests) {
+                    if (request.cancelled || request.callback == null)
+                        continue;
+
+                    ((Callback<T>) request.callback).onResult(result);
+                }
+            }
+        });
+    }
+
+    public final class Request {
+        private final Task<?> task;
+        private final Object owner;
+        private final Callback<?> callback;
+        private volatile boolean cancelled;
+
+        private Request(Task<?> task, Object owner, Callback<?> callback) {
+            this.task = task;
+            this.owner = owner;
+            this.callback = callback;
+        }
+
+        public void cancel() {
+            if (cancelled)
+                return;
+
+            cancelled = true;
+            RequestScheduler.this.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final class Task<T> implements Runnable, Comparable<Task<?>> {
+        private final String key;
+        private final long sequence;
+        private final Callable<T> callable;
+        private final List<Request> requests = new ArrayList<>();
+        private volatile int priority;
+
+        private Task(String key, int priority, long sequence, Callable<T> callable) {
+            this.key = key;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            T result = null;
+            sCurrentPriority.set(priority);
+            try {
+                result = callable.call();
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                sCurrentPriority.remove();
+            }
+
+            complete(this, result);
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            if (priority != other.priority)
+                return priority < other.priority ? -1 : 1;
+
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
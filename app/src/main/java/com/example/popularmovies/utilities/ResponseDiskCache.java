@@ -0,0 +1,449 @@
+package com.example.popularmovies.utilities;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Bounded on-disk cache for API responses. Entries are keyed by the request URL without the
+ * api_key parameter, carry the validators needed for conditional GETs and are evicted in LRU
+ * order once the byte budget is exceeded.
+ */
+public final class ResponseDiskCache {
+
+    private static final String BODY_FILE_SUFFIX = ".body";
+    private static final String META_FILE_SUFFIX = ".meta";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final String META_KEY = "key";
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "last_modified";
+    private static final String META_EXPIRES_AT = "expires_at";
+    private static final String META_STALE_UNTIL = "stale_until";
+
+    private static final String API_KEY_PARAM = "api_key";
+
+    private static ResponseDiskCache sInstance;
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+    private final long mStaleWhileRevalidateMillis;
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mTotalBytes;
+    private boolean mIndexLoaded;
+
+    public static class Entry {
+        private final String key;
+        private final String etag;
+        private final String lastModified;
+        private final long expiresAt;
+        private final long staleUntil;
+        private long byteCount;
+
+        Entry(String key, String etag, String lastModified, long expiresAt, long staleUntil) {
+            this.key = key;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        public boolean isFresh(long now) {
+            return now < expiresAt;
+        }
+
+        public boolean isWithinStaleWhileRevalidate(long now) {
+            return now < staleUntil;
+        }
+    }
+
+    private ResponseDiskCache(File directory, long maxBytes, long staleWhileRevalidateMillis) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+        mStaleWhileRevalidateMillis = staleWhileRevalidateMillis;
+    }
+
+    public static synchronized void install(File directory, long maxBytes, long staleWhileRevalidateMillis) {
+        sInstance = new ResponseDiskCache(directory, maxBytes, staleWhileRevalidateMillis);
+    }
+
+    public static synchronized ResponseDiskCache getInstance() {
+        return sInstance;
+    }
+
+    public static String keyFor(URL url) {
+        String query = url.getQuery();
+        String base = url.getProtocol() + "://" + url.getAuthority() + url.getPath();
+        if (query == null || query.isEmpty())
+            return base;
+
+        StringBuilder keyBuilder = new StringBuilder(base);
+        char separator = '?';
+        for (String parameter : query.split("&")) {
+            if (parameter.equals(API_KEY_PARAM) || parameter.startsWith(API_KEY_PARAM + "="))
+                continue;
+
+            keyBuilder.append(separator).append(parameter);
+            separator = '&';
+        }
+
+        return keyBuilder.toString();
+    }
+
+    public static boolean isCacheable(HttpResponse response) {
+        String cacheControl = response.getHeader("Cache-Control");
+        return cacheControl == null || !cacheControl.toLowerCase().contains("no-store");
+    }
+
+    public synchronized Entry get(String key) {
+        loadIndexIfNeeded();
+
+        Entry entry = mEntries.get(key);
+        if (entry == null)
+            return null;
+
+        File bodyFile = bodyFile(key);
+        if (!bodyFile.exists()) {
+            remove(key);
+            return null;
+        }
+
+        bodyFile.setLastModified(System.currentTimeMillis());
+        return entry;
+    }
+
+    /**
+     * Reads the body of an entry returned by {@link #get(String)}. Throws a FileNotFoundException
+     * when the entry has been evicted since.
+     */
+    public InputStream openBody(Entry entry) throws IOException {
+        return new FileInputStream(bodyFile(entry.getKey()));
+    }
+
+    public interface BodyParser<T> {
+        T parse(InputStream inputStream) throws IOException;
+    }
+
+    /**
+     * Stores the body of the response under the key once the parser has read it without failing, so
+     * that a malformed response never replaces a good entry. Returns what the parser returned.
+     */
+    public <T> T put(String key, HttpResponse response, BodyParser<T> parser) throws IOException {
+        Entry entry = createEntry(key, response);
+        InputStream bodyInputStream = response.getBody();
+
+        if (!mDirectory.exists() && !mDirectory.mkdirs())
+            throw new IOException("Unable to create cache directory " + mDirectory);
+
+        // Unique, as the same URL can be fetched by several threads at once.
+        File tempFile = File.createTempFile(fileNameFor(key), TEMP_FILE_SUFFIX, mDirectory);
+        boolean committed = false;
+        try {
+            long byteCount = 0;
+            OutputStream outputStream = new FileOutputStream(tempFile);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = bodyInputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                    byteCount += read;
+                }
+            } finally {
+                outputStream.close();
+            }
+
+            T result;
+            InputStream tempInputStream = new FileInputStream(tempFile);
+            try {
+                result = parser.parse(tempInputStream);
+            } finally {
+                closeQuietly(tempInputStream);
+            }
+
+            entry.byteCount = byteCount;
+
+            synchronized (this) {
+                loadIndexIfNeeded();
+
+                if (!tempFile.renameTo(bodyFile(key)))
+                    throw new IOException("Unable to commit cache entry for " + key);
+
+                committed = true;
+                writeMetadata(entry);
+                putInIndex(entry);
+                trimToSize();
+            }
+
+            return result;
+        } finally {
+            if (!committed)
+                tempFile.delete();
+        }
+    }
+
+    public synchronized Entry update(Entry entry, HttpResponse response) {
+        Entry updatedEntry = createEntry(entry.getKey(), response);
+        if (updatedEntry.etag == null && updatedEntry.lastModified == null)
+            updatedEntry = new Entry(entry.key, entry.etag, entry.lastModified, updatedEntry.expiresAt, updatedEntry.staleUntil);
+
+        updatedEntry.byteCount = entry.byteCount;
+
+        try {
+            writeMetadata(updatedEntry);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        putInIndex(updatedEntry);
+        return updatedEntry;
+    }
+
+    public synchronized void remove(String key) {
+        Entry entry = mEntries.remove(key);
+        if (entry != null)
+            mTotalBytes -= entry.byteCount;
+
+        bodyFile(key).delete();
+        metaFile(key).delete();
+    }
+
+    public synchronized long size() {
+        loadIndexIfNeeded();
+        return mTotalBytes;
+    }
+
+    private Entry createEntry(String key, HttpResponse response) {
+        long now = System.currentTimeMillis();
+        long maxAgeMillis = 0;
+        long staleWhileRevalidateMillis = mStaleWhileRevalidateMillis;
+        boolean hasMaxAge = false;
+        boolean noCache = false;
+
+        String cacheControl = response.getHeader("Cache-Control");
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String trimmedDirective = directive.trim().toLowerCase();
+                if (trimmedDirective.equals("no-cache")) {
+                    noCache = true;
+                } else if (trimmedDirective.startsWith("max-age=")) {
+                    maxAgeMillis = parseSeconds(trimmedDirective.substring("max-age=".length())) * 1000;
+                    hasMaxAge = true;
+                } else if (trimmedDirective.startsWith("stale-while-revalidate=")) {
+                    long seconds = parseSeconds(trimmedDirective.substring("stale-while-revalidate=".length()));
+                    staleWhileRevalidateMillis = Math.max(staleWhileRevalidateMillis, seconds * 1000);
+                }
+            }
+        }
+
+        long expiresAt;
+        if (noCache) {
+            expiresAt = now;
+        } else if (hasMaxAge) {
+            expiresAt = now + maxAgeMillis;
+        } else {
+            expiresAt = Math.max(now, response.getExpiration());
+        }
+
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        return new Entry(key, etag, lastModified, expiresAt, expiresAt + staleWhileRevalidateMillis);
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void putInIndex(Entry entry) {
+        Entry previousEntry = mEntries.put(entry.getKey(), entry);
+        if (previousEntry != null)
+            mTotalBytes -= previousEntry.byteCount;
+
+        mTotalBytes += entry.byteCount;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (mTotalBytes > mMaxBytes && iterator.hasNext()) {
+            Entry eldestEntry = iterator.next().getValue();
+            iterator.remove();
+            mTotalBytes -= eldestEntry.byteCount;
+
+            bodyFile(eldestEntry.getKey()).delete();
+            metaFile(eldestEntry.getKey()).delete();
+        }
+    }
+
+    private void loadIndexIfNeeded() {
+        if (mIndexLoaded)
+            return;
+
+        mIndexLoaded = true;
+
+        File[] metaFiles = mDirectory.listFiles();
+        if (metaFiles == null)
+            return;
+
+        List<File> bodyFiles = new ArrayList<>();
+        Map<File, Entry> entriesByBodyFile = new LinkedHashMap<>();
+        for (File file : metaFiles) {
+            if (!file.getName().endsWith(META_FILE_SUFFIX))
+                continue;
+
+            Entry entry = readMetadata(file);
+            if (entry == null) {
+                file.delete();
+                continue;
+            }
+
+            File bodyFile = bodyFile(entry.getKey());
+            if (!bodyFile.exists()) {
+                file.delete();
+                continue;
+            }
+
+            entry.byteCount = bodyFile.length();
+            bodyFiles.add(bodyFile);
+            entriesByBodyFile.put(bodyFile, entry);
+        }
+
+        Collections.sort(bodyFiles, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsLastModified = lhs.lastModified();
+                long rhsLastModified = rhs.lastModified();
+                return lhsLastModified < rhsLastModified ? -1 : (lhsLastModified == rhsLastModified ? 0 : 1);
+            }
+        });
+
+        for (File bodyFile : bodyFiles) {
+            putInIndex(entriesByBodyFile.get(bodyFile));
+        }
+
+        trimToSize();
+    }
+
+    private Entry readMetadata(File metaFile) {
+        Properties properties = new Properties();
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(metaFile);
+            properties.load(inputStream);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            closeQuietly(inputStream);
+        }
+
+        String key = properties.getProperty(META_KEY);
+        if (key == null)
+            return null;
+
+        return new Entry(key,
+                properties.getProperty(META_ETAG),
+                properties.getProperty(META_LAST_MODIFIED),
+                parseLong(properties.getProperty(META_EXPIRES_AT)),
+                parseLong(properties.getProperty(META_STALE_UNTIL)));
+    }
+
+    private void writeMetadata(Entry entry) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(META_KEY, entry.getKey());
+        if (entry.getEtag() != null)
+            properties.setProperty(META_ETAG, entry.getEtag());
+        if (entry.getLastModified() != null)
+            properties.setProperty(META_LAST_MODIFIED, entry.getLastModified());
+        properties.setProperty(META_EXPIRES_AT, String.valueOf(entry.expiresAt));
+        properties.setProperty(META_STALE_UNTIL, String.valueOf(entry.staleUntil));
+
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(metaFile(entry.getKey()));
+            properties.store(outputStream, null);
+        } finally {
+            closeQuietly(outputStream);
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null)
+            return 0;
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private File bodyFile(String key) {
+        return new File(mDirectory, fileNameFor(key) + BODY_FILE_SUFFIX);
+    }
+
+    private File metaFile(String key) {
+        return new File(mDirectory, fileNameFor(key) + META_FILE_SUFFIX);
+    }
+
+    private static String fileNameFor(String key) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            byte[] digest = messageDigest.digest(key.getBytes(Charset.forName("UTF-8")));
+
+            StringBuilder hexBuilder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hexBuilder.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hexBuilder.append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return hexBuilder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(key.hashCode());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Retries failed GETs on top of another {@link HttpTransport}. Connection errors and transient
+ * server errors are retried with exponential backoff and full jitter; the last attempt's
+ * response or exception is handed back to the caller.
+ */
+public class RetryingTransport implements HttpTransport {
+
+    private final HttpTransport mTransport;
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final Random mRandom = new Random();
+
+    public RetryingTransport(HttpTransport transport, int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        mTransport = transport;
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public HttpResponse get(URL url, Map<String, String> requestHeaders) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt >= mMaxAttempts;
+
+            HttpResponse response;
+            try {
+                response = mTransport.get(url, requestHeaders);
+            } catch (RateLimitedException e) {
+                // The limiter already held the request as long as its caller allows.
+                throw e;
+            } catch (InterruptedIOException e) {
+                if (lastAttempt || Thread.currentThread().isInterrupted())
+                    throw e;
+
+                backOff(attempt);
+                continue;
+            } catch (IOException e) {
+                if (lastAttempt)
+                    throw e;
+
+                backOff(attempt);
+                continue;
+            }
+
+            if (lastAttempt || !isRetryable(response.getStatusCode()))
+                return response;
+
+            response.close();
+            backOff(attempt);
+        }
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 408 || statusCode == 500 || statusCode == 502
+                || statusCode == 503 || statusCode == 504;
+    }
+
+    private void backOff(int attempt) throws InterruptedIOException {
+        long ceilingMillis = Math.min(mMaxDelayMillis, mBaseDelayMillis << Math.min(attempt - 1, 30));
+        long delayMillis = (long) (mRandom.nextDouble() * ceilingMillis);
+
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
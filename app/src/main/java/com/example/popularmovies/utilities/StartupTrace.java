@@ -0,0 +1,128 @@
+package com.example.popularmovies.utilities;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how long the app takes to start: how long each startup section ran and when it ended,
+ * measured from the start of the process. Each section is only recorded the first time it runs,
+ * so later activity launches do not overwrite the cold start.
+ */
+public final class StartupTrace {
+
+    private static final String TAG = StartupTrace.class.getSimpleName();
+
+    public static final String PROCESS_START = "process_start";
+    public static final String APPLICATION_CREATE = "application_create";
+    public static final String ACTIVITY_CREATE = "activity_create";
+    public static final String FIRST_FRAME = "first_frame";
+    public static final String FIRST_DATA = "first_data";
+    public static final String FIRST_POSTER = "first_poster";
+
+    private static final long NOT_ENDED = -1;
+
+    private static final long sProcessStartMillis = processStartMillis();
+    private static final Map<String, long[]> sSections = new LinkedHashMap<>();
+
+    static {
+        // Ended by the Application, covers everything the system does before our code runs.
+        sSections.put(PROCESS_START, new long[]{sProcessStartMillis, NOT_ENDED});
+    }
+
+    public static class Section {
+        private final String name;
+        private final long startMillis;
+        private final long endMillis;
+
+        Section(String name, long startMillis, long endMillis) {
+            this.name = name;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Milliseconds from the start of the process to the start of this section.
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * Milliseconds from the start of the process to the end of this section, or -1 while it
+         * is still running.
+         */
+        public long getEndMillis() {
+            return endMillis;
+        }
+
+        public long getDurationMillis() {
+            return endMillis == NOT_ENDED ? NOT_ENDED : endMillis - startMillis;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + startMillis + " ms + " + getDurationMillis() + " ms";
+        }
+    }
+
+    public static synchronized void beginSection(String name) {
+        if (!sSections.containsKey(name))
+            sSections.put(name, new long[]{SystemClock.elapsedRealtime(), NOT_ENDED});
+    }
+
+    public static synchronized void endSection(String name) {
+        long[] section = sSections.get(name);
+        if (section != null && section[1] == NOT_ENDED)
+            section[1] = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Records an instant, a section that ends as soon as it begins.
+     */
+    public static synchronized void mark(String name) {
+        beginSection(name);
+        endSection(name);
+    }
+
+    public static synchronized boolean isEnded(String name) {
+        long[] section = sSections.get(name);
+        return section != null && section[1] != NOT_ENDED;
+    }
+
+    public static synchronized List<Section> getSections() {
+        List<Section> sections = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : sSections.entrySet()) {
+            long[] section = entry.getValue();
+            long endMillis = section[1] == NOT_ENDED ? NOT_ENDED : section[1] - sProcessStartMillis;
+            sections.add(new Section(entry.getKey(), section[0] - sProcessStartMillis, endMillis));
+        }
+
+        return sections;
+    }
+
+    public static void log() {
+        for (Section section : getSections()) {
+            Log.d(TAG, section.toString());
+        }
+    }
+
+    // Before Nougat the process start time is not available, so the trace starts when the
+    // Application first touches this class instead.
+    private static long processStartMillis() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N)
+            return Process.getStartElapsedRealtime();
+
+        return SystemClock.elapsedRealtime();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.popularmovies.utilities;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of monotonic time for code that waits on it, so that a fake can stand in for the system
+ * timer and skip the waits.
+ */
+interface Ticker {
+
+    Ticker SYSTEM = new Ticker() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void waitNanos(Object monitor, long nanos) throws InterruptedException {
+            TimeUnit.NANOSECONDS.timedWait(monitor, nanos);
+        }
+    };
+
+    long nanoTime();
+
+    /**
+     * Waits on the monitor, which the caller holds, until notified or for at most the given time.
+     */
+    void waitNanos(Object monitor, long nanos) throws InterruptedException;
+}
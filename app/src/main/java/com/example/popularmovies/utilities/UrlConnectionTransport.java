@@ -0,0 +1,65 @@
+package com.example.popularmovies.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link HttpTransport} on top of {@link HttpURLConnection}. Connections are never disconnected
+ * explicitly, so the platform keeps them alive for the next request to the same host.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+    private final int mConnectTimeoutMillis;
+    private final int mReadTimeoutMillis;
+
+    public UrlConnectionTransport(int connectTimeoutMillis, int readTimeoutMillis) {
+        mConnectTimeoutMillis = connectTimeoutMillis;
+        mReadTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public HttpResponse get(URL url, Map<String, String> requestHeaders) throws IOException {
+        HttpURLConnection httpConnection = (HttpURLConnection) url.openConnection();
+        httpConnection.setRequestMethod("GET");
+        httpConnection.setConnectTimeout(mConnectTimeoutMillis);
+        httpConnection.setReadTimeout(mReadTimeoutMillis);
+        httpConnection.setUseCaches(false);
+
+        // Asking for gzip explicitly turns off the platform's own decoding, so it is done below.
+        httpConnection.setRequestProperty("Accept-Encoding", "gzip");
+        for (Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
+            httpConnection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
+        }
+
+        int statusCode = httpConnection.getResponseCode();
+
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> headerField : httpConnection.getHeaderFields().entrySet()) {
+            if (headerField.getKey() != null && !headerField.getValue().isEmpty())
+                headers.put(headerField.getKey(), headerField.getValue().get(0));
+        }
+
+        InputStream body;
+        if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST)
+            body = httpConnection.getErrorStream();
+        else
+            body = httpConnection.getInputStream();
+
+        boolean hasBody = statusCode != HttpURLConnection.HTTP_NO_CONTENT
+                && statusCode != HttpURLConnection.HTTP_NOT_MODIFIED;
+        if (body != null && hasBody && "gzip".equalsIgnoreCase(httpConnection.getContentEncoding())) {
+            AtomicLong transferredBytes = new AtomicLong();
+            body = new GZIPInputStream(new CountingInputStream(body, transferredBytes));
+            return new HttpResponse(statusCode, headers, body, transferredBytes);
+        }
+
+        return new HttpResponse(statusCode, headers, body);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.popularmovies.data;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MoviesPageListTest {
+
+    private static final int MAX_RETAINED_PAGES = 2;
+    private static final int TOTAL_PAGES = 5;
+
+    private MoviesPageList mPageList;
+    private int mRangeEvents;
+
+    @Before
+    public void setUp() {
+        mPageList = new MoviesPageList(MAX_RETAINED_PAGES, new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                mRangeEvents++;
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                mRangeEvents++;
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                mRangeEvents++;
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                mRangeEvents++;
+            }
+        });
+    }
+
+    @Test
+    public void replacesFirstPageAndKeepsTheOthers() {
+        mPageList.reset(page(1, 1, 2, 3));
+        assertTrue(mPageList.addPage(page(2, 4, 5, 6)));
+        mRangeEvents = 0;
+
+        // Movie 4 moved up to the first page, where it is already shown on the second one.
+        MoviesResponse updatedFirstPage = page(1, 7, 1, 4);
+        List<Integer> previewedIds = ids(mPageList.previewReplacePage(updatedFirstPage));
+        assertTrue(mPageList.replacePage(updatedFirstPage));
+
+        assertEquals(ids(7, 1, 4, 5, 6), ids(mPageList.getMovies()));
+        assertEquals(previewedIds, ids(mPageList.getMovies()));
+        assertEquals(3, mPageList.getNextPage());
+        assertEquals(0, mRangeEvents);
+    }
+
+    @Test
+    public void ignoresPagesNoLongerRetained() {
+        mPageList.reset(page(1, 1, 2));
+        mPageList.addPage(page(2, 3, 4));
+        mPageList.addPage(page(3, 5, 6));
+
+        assertNull(mPageList.previewReplacePage(page(1, 7, 8)));
+        assertFalse(mPageList.replacePage(page(1, 7, 8)));
+        assertEquals(ids(3, 4, 5, 6), ids(mPageList.getMovies()));
+        assertEquals(1, mPageList.getPreviousPage());
+    }
+
+    private static MoviesResponse page(int page, int... movieIds) {
+        List<Movie> movies = new ArrayList<>();
+        for (int movieId : movieIds) {
+            Movie movie = new Movie();
+            movie.setId(movieId);
+            movies.add(movie);
+        }
+
+        MoviesResponse moviesResponse = new MoviesResponse();
+        moviesResponse.setPage(page);
+        moviesResponse.setTotalPages(TOTAL_PAGES);
+        moviesResponse.setResults(movies);
+        return moviesResponse;
+    }
+
+    private static List<Integer> ids(int... movieIds) {
+        List<Integer> ids = new ArrayList<>();
+        for (int movieId : movieIds) {
+            ids.add(movieId);
+        }
+
+        return ids;
+    }
+
+    private static List<Integer> ids(List<Movie> movies) {
+        List<Integer> ids = new ArrayList<>();
+        for (Movie movie : movies) {
+            ids.add(movie.getId());
+        }
+
+        return ids;
+    }
+}
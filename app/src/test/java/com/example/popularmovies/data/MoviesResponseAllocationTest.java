@@ -0,0 +1,165 @@
+package com.example.popularmovies.data;
+
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the memory allocated by the streaming parse path with the one of the JSONObject path it
+ * replaced, which read the whole body into a String and built a DOM out of it first.
+ */
+public class MoviesResponseAllocationTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int RESULT_COUNT = 1000;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    private byte[] mPayload;
+
+    private interface Parser {
+        MoviesResponse parse(byte[] payload) throws Exception;
+    }
+
+    private static final Parser JSON_OBJECT_PARSER = new Parser() {
+        @Override
+        public MoviesResponse parse(byte[] payload) throws Exception {
+            // What NetworkUtils did before the streaming path: a String of the body, then a DOM.
+            BufferedReader bufferedReader = new BufferedReader(
+                    new InputStreamReader(new ByteArrayInputStream(payload), UTF_8));
+
+            String line;
+            StringBuilder stringBuilder = new StringBuilder();
+            while ((line = bufferedReader.readLine()) != null) {
+                stringBuilder.append(line);
+            }
+
+            MoviesResponse moviesResponse = new MoviesResponse();
+            moviesResponse.fillPropertiesByJsonObject(new JSONObject(stringBuilder.toString()));
+            return moviesResponse;
+        }
+    };
+
+    private static final Parser STREAM_PARSER = new Parser() {
+        @Override
+        public MoviesResponse parse(byte[] payload) throws Exception {
+            MoviesResponse moviesResponse = new MoviesResponse();
+            moviesResponse.fillPropertiesByJsonReader(
+                    new JsonReader(new InputStreamReader(new ByteArrayInputStream(payload), UTF_8)));
+            return moviesResponse;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        mPayload = moviesPage(RESULT_COUNT).getBytes(UTF_8);
+    }
+
+    @Test
+    public void bothPathsReadTheSameMovies() throws Exception {
+        List<Movie> jsonObjectMovies = JSON_OBJECT_PARSER.parse(mPayload).getResults();
+        List<Movie> streamMovies = STREAM_PARSER.parse(mPayload).getResults();
+
+        assertEquals(RESULT_COUNT, streamMovies.size());
+        assertEquals(jsonObjectMovies.size(), streamMovies.size());
+        for (int i = 0; i < streamMovies.size(); i++) {
+            Movie jsonObjectMovie = jsonObjectMovies.get(i);
+            Movie streamMovie = streamMovies.get(i);
+            assertEquals(jsonObjectMovie.getId(), streamMovie.getId());
+            assertEquals(jsonObjectMovie.getTitle(), streamMovie.getTitle());
+            assertEquals(jsonObjectMovie.getOverview(), streamMovie.getOverview());
+            assertEquals(jsonObjectMovie.getPosterPath(), streamMovie.getPosterPath());
+            assertEquals(jsonObjectMovie.getVoteAverage(), streamMovie.getVoteAverage(), 0);
+        }
+    }
+
+    @Test
+    public void streamPathAllocatesLessThanHalfOfTheJsonObjectPath() throws Exception {
+        long jsonObjectBytes = measureAllocatedBytes(JSON_OBJECT_PARSER);
+        long streamBytes = measureAllocatedBytes(STREAM_PARSER);
+
+        assertTrue("Streaming allocated " + streamBytes + " bytes, the JSONObject path " + jsonObjectBytes,
+                streamBytes * 2 < jsonObjectBytes);
+    }
+
+    /**
+     * Returns the fewest bytes the current thread allocated for a parse, after warming the path up.
+     */
+    private long measureAllocatedBytes(Parser parser) throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            parser.parse(mPayload);
+        }
+
+        long fewestBytes = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            MoviesResponse moviesResponse = parser.parse(mPayload);
+            long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertEquals(RESULT_COUNT, moviesResponse.getResults().size());
+            fewestBytes = Math.min(fewestBytes, allocatedBytes);
+        }
+
+        return fewestBytes;
+    }
+
+    /**
+     * Returns the recorded popular page with its results repeated, under unique ids, until it has
+     * resultCount of them.
+     */
+    private static String moviesPage(int resultCount) throws IOException, JSONException {
+        JSONObject page = new JSONObject(readFixture("popular_page.json"));
+        JSONArray recordedResults = page.getJSONArray("results");
+
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < resultCount; i++) {
+            JSONObject result = new JSONObject(recordedResults.getJSONObject(i % recordedResults.length()).toString());
+            result.put("id", i + 1);
+            results.put(result);
+        }
+
+        page.put("results", results);
+        page.put("total_results", resultCount);
+        return page.toString(2);
+    }
+
+    private static String readFixture(String name) throws IOException {
+        InputStream inputStream = MoviesResponseAllocationTest.class.getResourceAsStream("/fixtures/" + name);
+        if (inputStream == null)
+            throw new IOException("Missing fixture " + name);
+
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), UTF_8);
+        } finally {
+            inputStream.close();
+        }
+    }
+}
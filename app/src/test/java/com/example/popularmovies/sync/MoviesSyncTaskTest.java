@@ -0,0 +1,228 @@
+package com.example.popularmovies.sync;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.popularmovies.PopularMoviesApplication;
+import com.example.popularmovies.data.MoviesContract;
+import com.example.popularmovies.data.MoviesContract.MovieEntry;
+import com.example.popularmovies.data.MoviesDao;
+import com.example.popularmovies.data.MoviesDbHelper;
+import com.example.popularmovies.data.MoviesResponse;
+import com.example.popularmovies.utilities.Clock;
+import com.example.popularmovies.utilities.MockApiServer;
+import com.example.popularmovies.utilities.NetworkUtils;
+import com.example.popularmovies.utilities.OkHttpTransport;
+import com.example.popularmovies.utilities.ResponseDiskCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+// Runs without the app's Application, which would schedule the real sync and install its own transport.
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class MoviesSyncTaskTest {
+
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final long RESPONSE_CACHE_MAX_BYTES = 1024 * 1024;
+    private static final int MOVIES_PER_PAGE = 5;
+    private static final int POPULAR_FIRST_MOVIE_ID = 100;
+    private static final int TOP_RATED_FIRST_MOVIE_ID = 200;
+
+    private static final int CHANGED_MOVIE_ID = POPULAR_FIRST_MOVIE_ID + 1;
+    private static final double VOTE_AVERAGE = 6.5;
+    private static final double CHANGED_VOTE_AVERAGE = 7.5;
+
+    private Context mContext;
+    private MockApiServer mServer;
+    private FakeClock mClock;
+
+    private static class FakeClock implements Clock {
+        private long mNowMillis;
+
+        FakeClock(long nowMillis) {
+            mNowMillis = nowMillis;
+        }
+
+        void advance(long millis) {
+            mNowMillis += millis;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return mNowMillis;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = RuntimeEnvironment.application;
+        mClock = new FakeClock(TimeUnit.DAYS.toMillis(365));
+
+        mServer = new MockApiServer();
+        mServer.start();
+
+        NetworkUtils.setApiBaseUrl(mServer.url("/3"));
+        NetworkUtils.setTransport(new OkHttpTransport(TIMEOUT_MILLIS, TIMEOUT_MILLIS));
+        ResponseDiskCache.install(new File(mContext.getCacheDir(), "responses"), RESPONSE_CACHE_MAX_BYTES,
+                PopularMoviesApplication.RESPONSE_CACHE_STALE_WHILE_REVALIDATE_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.shutdown();
+        NetworkUtils.setTransport(null);
+    }
+
+    @Test
+    public void skipsRecentPagesAndWritesOnlyChangedRows() {
+        enqueueLists(false);
+        assertTrue(MoviesSyncTask.syncMovies(mContext, mClock));
+        assertEquals(2 * MoviesSyncTask.SYNC_PAGES, mServer.getRequestCount());
+        assertTrue(mServer.getRequest(0).getPath().startsWith("/3/movie/popular?"));
+        assertTrue(mServer.getRequest(MoviesSyncTask.SYNC_PAGES).getPath().startsWith("/3/movie/top_rated?"));
+
+        Map<Integer, Long> syncedRowIds = queryMovieRowIds();
+        assertEquals(2 * MoviesSyncTask.SYNC_PAGES * MOVIES_PER_PAGE, syncedRowIds.size());
+
+        // Younger than an hour, every page is left alone.
+        mClock.advance(MoviesSyncTask.MIN_PAGE_AGE_MILLIS - 1);
+        assertTrue(MoviesSyncTask.syncMovies(mContext, mClock));
+        assertEquals(2 * MoviesSyncTask.SYNC_PAGES, mServer.getRequestCount());
+
+        // The cached responses are still within their stale-while-revalidate window, the sync
+        // has to ask the server anyway.
+        mClock.advance(1);
+        enqueueLists(true);
+        assertTrue(MoviesSyncTask.syncMovies(mContext, mClock));
+        assertEquals(4 * MoviesSyncTask.SYNC_PAGES, mServer.getRequestCount());
+        assertEquals(CHANGED_VOTE_AVERAGE, queryVoteAverage(CHANGED_MOVIE_ID), 0);
+
+        // Rewritten rows are replaced, so only the changed movie got a new row id. The movies
+        // without a rating come back unchanged as well.
+        Map<Integer, Long> resyncedRowIds = queryMovieRowIds();
+        assertEquals(syncedRowIds.keySet(), resyncedRowIds.keySet());
+        for (Map.Entry<Integer, Long> syncedRowId : syncedRowIds.entrySet()) {
+            int movieId = syncedRowId.getKey();
+            if (movieId == CHANGED_MOVIE_ID)
+                assertNotEquals(syncedRowId.getValue(), resyncedRowIds.get(movieId));
+            else
+                assertEquals("Row of movie " + movieId, syncedRowId.getValue(), resyncedRowIds.get(movieId));
+        }
+    }
+
+    @Test
+    public void cachedPagesKeepTheirUpdateTime() throws Exception {
+        mServer.enqueue(new MockApiServer.MockResponse()
+                .setHeader("Content-Type", "application/json;charset=utf-8")
+                .setBody(moviesPage(1, POPULAR_FIRST_MOVIE_ID, false)));
+
+        MoviesResponse fetchedResponse = NetworkUtils.popular("key", 1, true);
+        MoviesResponse cachedResponse = NetworkUtils.popular("key", 1);
+        assertEquals(1, mServer.getRequestCount());
+        assertTrue(fetchedResponse.isFromNetwork());
+        assertFalse(cachedResponse.isFromNetwork());
+
+        MoviesDao moviesDao = new MoviesDao(mContext, mClock);
+        moviesDao.saveMoviesPage(MoviesContract.LIST_POPULAR, cachedResponse);
+        assertEquals(0, moviesDao.queryMoviesPageUpdatedAt(MoviesContract.LIST_POPULAR, 1));
+
+        moviesDao.saveMoviesPage(MoviesContract.LIST_POPULAR, fetchedResponse);
+        assertEquals(mClock.currentTimeMillis(), moviesDao.queryMoviesPageUpdatedAt(MoviesContract.LIST_POPULAR, 1));
+    }
+
+    private void enqueueLists(boolean changeMovie) {
+        for (String moviesList : new String[]{MoviesContract.LIST_POPULAR, MoviesContract.LIST_TOP_RATED}) {
+            int firstMovieId = MoviesContract.LIST_POPULAR.equals(moviesList)
+                    ? POPULAR_FIRST_MOVIE_ID
+                    : TOP_RATED_FIRST_MOVIE_ID;
+
+            for (int page = 1; page <= MoviesSyncTask.SYNC_PAGES; page++) {
+                int pageFirstMovieId = firstMovieId + (page - 1) * MOVIES_PER_PAGE;
+                mServer.enqueue(new MockApiServer.MockResponse()
+                        .setHeader("Content-Type", "application/json;charset=utf-8")
+                        .setBody(moviesPage(page, pageFirstMovieId, changeMovie)));
+            }
+        }
+    }
+
+    private static String moviesPage(int page, int firstMovieId, boolean changeMovie) {
+        StringBuilder results = new StringBuilder();
+        for (int movieId = firstMovieId; movieId < firstMovieId + MOVIES_PER_PAGE; movieId++) {
+            if (results.length() > 0)
+                results.append(',');
+
+            results.append("{\"id\":").append(movieId)
+                    .append(",\"title\":\"Movie ").append(movieId).append('"')
+                    .append(",\"poster_path\":\"/").append(movieId).append(".jpg\"")
+                    .append(",\"genre_ids\":[18,35]")
+                    .append(",\"vote_count\":").append(movieId * 10);
+
+            // The last movie of every page has no rating yet.
+            if (movieId == firstMovieId + MOVIES_PER_PAGE - 1) {
+                results.append(",\"popularity\":null,\"vote_average\":null");
+            } else {
+                double voteAverage = changeMovie && movieId == CHANGED_MOVIE_ID ? CHANGED_VOTE_AVERAGE : VOTE_AVERAGE;
+                results.append(",\"popularity\":").append(movieId / 10.0)
+                        .append(",\"vote_average\":").append(voteAverage);
+            }
+
+            results.append('}');
+        }
+
+        return "{\"page\":" + page
+                + ",\"total_results\":" + MoviesSyncTask.SYNC_PAGES * MOVIES_PER_PAGE
+                + ",\"total_pages\":" + MoviesSyncTask.SYNC_PAGES
+                + ",\"results\":[" + results + "]}";
+    }
+
+    private Map<Integer, Long> queryMovieRowIds() {
+        SQLiteDatabase database = MoviesDbHelper.getInstance(mContext).getReadableDatabase();
+        Cursor cursor = database.query(MovieEntry.TABLE_NAME,
+                new String[]{MovieEntry._ID, MovieEntry.COLUMN_MOVIE_ID},
+                null, null, null, null, null);
+
+        Map<Integer, Long> rowIds = new HashMap<>();
+        try {
+            while (cursor.moveToNext()) {
+                rowIds.put(cursor.getInt(1), cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return rowIds;
+    }
+
+    private double queryVoteAverage(int movieId) {
+        SQLiteDatabase database = MoviesDbHelper.getInstance(mContext).getReadableDatabase();
+        Cursor cursor = database.query(MovieEntry.TABLE_NAME,
+                new String[]{MovieEntry.COLUMN_VOTE_AVERAGE},
+                MovieEntry.COLUMN_MOVIE_ID + " = ?",
+                new String[]{String.valueOf(movieId)},
+                null, null, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getDouble(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
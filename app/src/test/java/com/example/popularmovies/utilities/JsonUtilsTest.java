@@ -0,0 +1,46 @@
+package com.example.popularmovies.utilities;
+
+import com.example.popularmovies.data.Movie;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonUtilsTest {
+
+    private static final String MOVIE_WITHOUT_IMAGES =
+            "{\"id\":1,\"title\":\"Movie 1\",\"poster_path\":null,\"backdrop_path\":null}";
+
+    @Test
+    public void readsScalarsAsTextAndEverythingElseAsEmpty() throws IOException {
+        JsonReader jsonReader = new JsonReader(new StringReader("[\"text\",7.5,true,null,{\"a\":1},[2]]"));
+        jsonReader.beginArray();
+        assertEquals("text", JsonUtils.optString(jsonReader));
+        assertEquals("7.5", JsonUtils.optString(jsonReader));
+        assertEquals("true", JsonUtils.optString(jsonReader));
+        assertEquals("", JsonUtils.optString(jsonReader));
+        assertEquals("", JsonUtils.optString(jsonReader));
+        assertEquals("", JsonUtils.optString(jsonReader));
+        jsonReader.endArray();
+    }
+
+    // The JSONObject path keeps reading JSON null as "null", only the streaming path changed.
+    @Test
+    public void streamingReadsNullImagePathsAsEmpty() throws Exception {
+        Movie streamMovie = new Movie();
+        streamMovie.fillPropertiesByJsonReader(new JsonReader(new StringReader(MOVIE_WITHOUT_IMAGES)));
+        assertEquals("", streamMovie.getPosterPath());
+        assertEquals("", streamMovie.getBackdropPath());
+        assertEquals("Movie 1", streamMovie.getTitle());
+
+        Movie jsonObjectMovie = new Movie();
+        jsonObjectMovie.fillPropertiesByJsonObject(new JSONObject(MOVIE_WITHOUT_IMAGES));
+        assertEquals("null", jsonObjectMovie.getPosterPath());
+        assertEquals("null", jsonObjectMovie.getBackdropPath());
+    }
+}
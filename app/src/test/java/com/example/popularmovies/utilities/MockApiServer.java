@@ -0,0 +1,160 @@
+package com.example.popularmovies.utilities;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server standing in for the TMDB API in tests. Answers requests with the enqueued
+ * responses in order, with a 404 once they ran out, and records every request it received.
+ */
+public class MockApiServer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Queue<MockResponse> mResponses = new ConcurrentLinkedQueue<>();
+    private final List<RecordedRequest> mRequests = Collections.synchronizedList(new ArrayList<RecordedRequest>());
+    private HttpServer mServer;
+    private ExecutorService mExecutor;
+
+    public static class MockResponse {
+        private int mStatusCode = 200;
+        private final Map<String, String> mHeaders = new LinkedHashMap<>();
+        private byte[] mBody = new byte[0];
+
+        public MockResponse setStatusCode(int statusCode) {
+            mStatusCode = statusCode;
+            return this;
+        }
+
+        public MockResponse setHeader(String name, String value) {
+            mHeaders.put(name, value);
+            return this;
+        }
+
+        public MockResponse setBody(String body) {
+            mBody = body.getBytes(UTF_8);
+            return this;
+        }
+
+        public MockResponse setGzippedBody(String body) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+            gzipOutputStream.write(body.getBytes(UTF_8));
+            gzipOutputStream.close();
+
+            mBody = outputStream.toByteArray();
+            return setHeader("Content-Encoding", "gzip");
+        }
+
+        public int getBodyLength() {
+            return mBody.length;
+        }
+    }
+
+    public static class RecordedRequest {
+        private final String mPath;
+        private final Map<String, String> mHeaders;
+
+        RecordedRequest(String path, Map<String, String> headers) {
+            mPath = path;
+            mHeaders = headers;
+        }
+
+        /**
+         * Returns the path of the request with its query.
+         */
+        public String getPath() {
+            return mPath;
+        }
+
+        public String getHeader(String name) {
+            return mHeaders.get(name.toLowerCase());
+        }
+    }
+
+    public void start() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange);
+            }
+        });
+
+        mExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+    }
+
+    public void shutdown() {
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + path;
+    }
+
+    public void enqueue(MockResponse response) {
+        mResponses.add(response);
+    }
+
+    public int getRequestCount() {
+        return mRequests.size();
+    }
+
+    public RecordedRequest getRequest(int index) {
+        return mRequests.get(index);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            headers.put(header.getKey().toLowerCase(), header.getValue().get(0));
+        }
+        mRequests.add(new RecordedRequest(exchange.getRequestURI().toString(), headers));
+
+        InputStream requestBody = exchange.getRequestBody();
+        while (requestBody.read() != -1) {
+            // Drained so that the connection can be kept alive.
+        }
+
+        MockResponse response = mResponses.poll();
+        if (response == null)
+            response = new MockResponse().setStatusCode(404);
+
+        for (Map.Entry<String, String> header : response.mHeaders.entrySet()) {
+            exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+        }
+
+        // The server takes a length of 0 for a chunked body and -1 for none.
+        boolean hasBody = response.mStatusCode != 304 && response.mBody.length > 0;
+        exchange.sendResponseHeaders(response.mStatusCode, hasBody ? response.mBody.length : -1);
+
+        OutputStream responseBody = exchange.getResponseBody();
+        try {
+            if (hasBody)
+                responseBody.write(response.mBody);
+        } finally {
+            responseBody.close();
+        }
+    }
+}
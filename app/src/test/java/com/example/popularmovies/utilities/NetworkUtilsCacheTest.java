@@ -0,0 +1,212 @@
+package com.example.popularmovies.utilities;
+
+import android.app.Application;
+
+import com.example.popularmovies.data.MoviesResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class NetworkUtilsCacheTest {
+
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final long RESPONSE_CACHE_MAX_BYTES = 1024 * 1024;
+    private static final String API_KEY = "test-key";
+    private static final long STALE_WHILE_REVALIDATE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private MockApiServer mServer;
+    private NetworkMetrics.EndpointMetrics mMetrics;
+
+    // Holds requests back until opened, so that a revalidation stays in flight.
+    private static class GatedTransport implements HttpTransport {
+        private final HttpTransport mTransport;
+        private final CountDownLatch mGate = new CountDownLatch(1);
+        private volatile boolean mClosed;
+
+        GatedTransport(HttpTransport transport) {
+            mTransport = transport;
+        }
+
+        void close() {
+            mClosed = true;
+        }
+
+        void open() {
+            mClosed = false;
+            mGate.countDown();
+        }
+
+        @Override
+        public HttpResponse get(URL url, Map<String, String> requestHeaders) throws IOException {
+            if (mClosed) {
+                try {
+                    mGate.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            return mTransport.get(url, requestHeaders);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockApiServer();
+        mServer.start();
+
+        NetworkUtils.setApiBaseUrl(mServer.url("/3"));
+        NetworkUtils.setTransport(new OkHttpTransport(TIMEOUT_MILLIS, TIMEOUT_MILLIS));
+        ResponseDiskCache.install(new File(RuntimeEnvironment.application.getCacheDir(), "responses"),
+                RESPONSE_CACHE_MAX_BYTES, 0);
+
+        NetworkMetrics.reset();
+        mMetrics = NetworkMetrics.getEndpoint(NetworkMetrics.ENDPOINT_POPULAR);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.shutdown();
+        NetworkUtils.setTransport(null);
+    }
+
+    @Test
+    public void revalidatesExpiredEntryWithItsValidators() throws Exception {
+        mServer.enqueue(page(1, "\"v1\"", "max-age=0"));
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().size());
+        assertNull(mServer.getRequest(0).getHeader("If-None-Match"));
+
+        mServer.enqueue(new MockApiServer.MockResponse()
+                .setStatusCode(304)
+                .setHeader("ETag", "\"v1\"")
+                .setHeader("Cache-Control", "max-age=60"));
+        MoviesResponse revalidatedResponse = NetworkUtils.popular(API_KEY, 1);
+        assertEquals(1, revalidatedResponse.getResults().size());
+        assertEquals(1, revalidatedResponse.getResults().get(0).getId());
+        assertEquals("\"v1\"", mServer.getRequest(1).getHeader("If-None-Match"));
+        assertEquals(1, mMetrics.getCacheResultCount(NetworkMetrics.CACHE_REVALIDATED));
+
+        // The 304 renewed the entry for a minute.
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().size());
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1, mMetrics.getCacheResultCount(NetworkMetrics.CACHE_HIT));
+    }
+
+    @Test
+    public void keepsCachedEntryWhenServerSendsMalformedBody() throws Exception {
+        mServer.enqueue(page(1, "\"v1\"", "max-age=0"));
+        NetworkUtils.popular(API_KEY, 1);
+
+        mServer.enqueue(new MockApiServer.MockResponse()
+                .setHeader("ETag", "\"v2\"")
+                .setHeader("Cache-Control", "max-age=60")
+                .setBody("{\"page\":1,\"results\":[{\"id\":]}"));
+        try {
+            NetworkUtils.popular(API_KEY, 1);
+            fail("Expected the malformed body to fail parsing");
+        } catch (JsonDeserializationException expected) {
+        }
+        assertEquals(1, mMetrics.getErrorCount(NetworkMetrics.ERROR_PARSE));
+        assertEquals(0, mMetrics.getErrorCount(NetworkMetrics.ERROR_CONNECTION));
+
+        // Still revalidated with the validator of the good entry.
+        mServer.enqueue(new MockApiServer.MockResponse().setStatusCode(304));
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().get(0).getId());
+        assertEquals("\"v1\"", mServer.getRequest(2).getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void leavesApiKeyOutOfCacheKey() throws Exception {
+        mServer.enqueue(page(1, "\"v1\"", "max-age=60"));
+        NetworkUtils.popular(API_KEY, 1);
+
+        assertEquals(1, NetworkUtils.popular("another-key", 1).getResults().size());
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void servesStaleEntryWhileFetchingTheNewOne() throws Exception {
+        installStaleWhileRevalidateCache();
+        mServer.enqueue(page(1, "\"v1\"", "max-age=0"));
+        NetworkUtils.popular(API_KEY, 1);
+
+        mServer.enqueue(page(2, "\"v2\"", "max-age=60"));
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().get(0).getId());
+        assertEquals(1, mMetrics.getCacheResultCount(NetworkMetrics.CACHE_STALE));
+        awaitRevalidations();
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals("\"v1\"", mServer.getRequest(1).getHeader("If-None-Match"));
+
+        // The new body replaced the stale one and is fresh for a minute.
+        assertEquals(2, NetworkUtils.popular(API_KEY, 1).getResults().get(0).getId());
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1, mMetrics.getCacheResultCount(NetworkMetrics.CACHE_HIT));
+    }
+
+    @Test
+    public void revalidatesStaleEntryOnceAndRenewsItOnNotModified() throws Exception {
+        GatedTransport transport = new GatedTransport(new OkHttpTransport(TIMEOUT_MILLIS, TIMEOUT_MILLIS));
+        NetworkUtils.setTransport(transport);
+        installStaleWhileRevalidateCache();
+        mServer.enqueue(page(1, "\"v1\"", "max-age=0"));
+        NetworkUtils.popular(API_KEY, 1);
+
+        mServer.enqueue(new MockApiServer.MockResponse()
+                .setStatusCode(304)
+                .setHeader("Cache-Control", "max-age=60"));
+        transport.close();
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().get(0).getId());
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().get(0).getId());
+        assertEquals(2, mMetrics.getCacheResultCount(NetworkMetrics.CACHE_STALE));
+
+        transport.open();
+        awaitRevalidations();
+        assertEquals(2, mServer.getRequestCount());
+
+        assertEquals(1, NetworkUtils.popular(API_KEY, 1).getResults().get(0).getId());
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1, mMetrics.getCacheResultCount(NetworkMetrics.CACHE_HIT));
+    }
+
+    private static void installStaleWhileRevalidateCache() {
+        ResponseDiskCache.install(new File(RuntimeEnvironment.application.getCacheDir(), "responses"),
+                RESPONSE_CACHE_MAX_BYTES, STALE_WHILE_REVALIDATE_MILLIS);
+    }
+
+    private static void awaitRevalidations() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (NetworkUtils.isRevalidating()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Revalidation still running after " + TIMEOUT_MILLIS + " ms");
+
+            Thread.sleep(10);
+        }
+    }
+
+    private static MockApiServer.MockResponse page(int movieId, String etag, String cacheControl) {
+        return new MockApiServer.MockResponse()
+                .setHeader("Content-Type", "application/json;charset=utf-8")
+                .setHeader("ETag", etag)
+                .setHeader("Cache-Control", cacheControl)
+                .setBody("{\"page\":1,\"total_results\":1,\"total_pages\":1,"
+                        + "\"results\":[{\"id\":" + movieId + ",\"title\":\"Movie " + movieId + "\"}]}");
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.popularmovies.utilities;
+
+import android.app.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Robolectric only for the RequestScheduler, which puts requests in the interactive lane.
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class RateLimitingTransportTest {
+
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final double REQUESTS_PER_SECOND = 20;
+    private static final int BURST = 40;
+    private static final long INTERACTIVE_MAX_WAIT_MILLIS = 2000;
+    private static final long BACKGROUND_MAX_WAIT_MILLIS = 3000;
+
+    private MockApiServer mServer;
+    private FakeTicker mTicker;
+
+    // Never blocks, waiting only moves the time forward.
+    private static class FakeTicker implements Ticker {
+        private long mNowNanos;
+        private long mWaitedNanos;
+
+        synchronized void advance(long millis) {
+            mNowNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public synchronized long nanoTime() {
+            return mNowNanos;
+        }
+
+        @Override
+        public synchronized void waitNanos(Object monitor, long nanos) {
+            mNowNanos += nanos;
+            mWaitedNanos += nanos;
+        }
+
+        synchronized long getWaitedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(mWaitedNanos);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockApiServer();
+        mServer.start();
+        mTicker = new FakeTicker();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void waitsForRetryAfterBeforeSendingAgain() throws IOException {
+        mServer.enqueue(tooManyRequests("1"));
+        mServer.enqueue(new MockApiServer.MockResponse().setBody("{}"));
+
+        HttpResponse response = get(newTransport(BACKGROUND_MAX_WAIT_MILLIS));
+        response.close();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1000, mTicker.getWaitedMillis());
+    }
+
+    @Test
+    public void handsBack429WhenTheRetryIsLimitedToo() throws IOException {
+        mServer.enqueue(tooManyRequests("0"));
+        mServer.enqueue(tooManyRequests("0"));
+
+        HttpResponse response = get(newTransport(BACKGROUND_MAX_WAIT_MILLIS));
+        response.close();
+
+        assertEquals(RateLimitingTransport.HTTP_TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals(2, mServer.getRequestCount());
+    }
+
+    @Test
+    public void failsRightAwayInsteadOfWaitingLongerThanTheLaneAllows() throws IOException {
+        mServer.enqueue(tooManyRequests("5"));
+
+        try {
+            get(newTransport(500)).close();
+            fail("Expected the request to give up on the rate limiter");
+        } catch (RateLimitedException expected) {
+        }
+
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(0, mTicker.getWaitedMillis());
+    }
+
+    @Test
+    public void pausesOnlyTheLaneThatGot429() throws Exception {
+        RateLimitingTransport transport = newTransport(BACKGROUND_MAX_WAIT_MILLIS);
+
+        // Longer than either lane waits, so each paused lane fails its next request right away.
+        mServer.enqueue(tooManyRequests("60"));
+        mServer.enqueue(new MockApiServer.MockResponse().setBody("{}"));
+        try {
+            get(transport).close();
+            fail("Expected the background lane to be paused");
+        } catch (RateLimitedException expected) {
+        }
+        assertEquals(200, getInteractive(transport));
+
+        mTicker.advance(TimeUnit.SECONDS.toMillis(60));
+        mServer.enqueue(tooManyRequests("60"));
+        mServer.enqueue(new MockApiServer.MockResponse().setBody("{}"));
+        assertEquals(-1, getInteractive(transport));
+        HttpResponse response = get(transport);
+        response.close();
+        assertEquals(200, response.getStatusCode());
+
+        assertEquals(4, mServer.getRequestCount());
+        assertEquals(0, mTicker.getWaitedMillis());
+    }
+
+    @Test
+    public void slowsDownAfter429() throws IOException {
+        RateLimitingTransport transport = newTransport(BACKGROUND_MAX_WAIT_MILLIS);
+        mServer.enqueue(tooManyRequests("0"));
+        for (int i = 0; i < 5; i++) {
+            mServer.enqueue(new MockApiServer.MockResponse().setBody("{}"));
+        }
+
+        // The retry and the requests after it go at about half the rate, one at a time.
+        for (int i = 0; i < 5; i++) {
+            HttpResponse response = get(transport);
+            response.close();
+            assertEquals(200, response.getStatusCode());
+        }
+
+        long waitedMillis = mTicker.getWaitedMillis();
+        long minimumMillis = (long) (5 * 1000 / (REQUESTS_PER_SECOND / 2) * 0.8);
+        long maximumMillis = (long) (5 * 1000 / (REQUESTS_PER_SECOND / 2));
+        assertTrue("Five requests waited " + waitedMillis + " ms",
+                waitedMillis >= minimumMillis && waitedMillis <= maximumMillis);
+    }
+
+    @Test
+    public void readsRetryAfterAsSecondsOrDate() {
+        long nowMillis = 1514764800000L;
+        assertEquals(120000, retryAfter("120").getRetryAfterMillis(nowMillis));
+        assertEquals(30000, retryAfter("Mon, 01 Jan 2018 00:00:30 GMT").getRetryAfterMillis(nowMillis));
+        assertEquals(0, retryAfter("Sun, 31 Dec 2017 23:59:00 GMT").getRetryAfterMillis(nowMillis));
+        assertEquals(-1, retryAfter("soon").getRetryAfterMillis(nowMillis));
+    }
+
+    private RateLimitingTransport newTransport(long backgroundMaxWaitMillis) {
+        return new RateLimitingTransport(new OkHttpTransport(TIMEOUT_MILLIS, TIMEOUT_MILLIS),
+                REQUESTS_PER_SECOND, BURST, INTERACTIVE_MAX_WAIT_MILLIS, backgroundMaxWaitMillis, mTicker);
+    }
+
+    // Requests sent from the test thread itself count as background ones.
+    private HttpResponse get(HttpTransport transport) throws IOException {
+        return transport.get(new URL(mServer.url("/3/movie/popular")), new HashMap<String, String>());
+    }
+
+    // Returns the status code, or -1 if the limiter gave up on the request.
+    private int getInteractive(final HttpTransport transport) throws InterruptedException {
+        final AtomicReference<Integer> statusCode = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        RequestScheduler.getInstance().submit("interactive/" + System.nanoTime(), RequestScheduler.PRIORITY_INTERACTIVE,
+                null, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            HttpResponse response = get(transport);
+                            response.close();
+                            statusCode.set(response.getStatusCode());
+                        } catch (RateLimitedException e) {
+                            statusCode.set(-1);
+                        } finally {
+                            done.countDown();
+                        }
+
+                        return null;
+                    }
+                }, null);
+
+        assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        return statusCode.get();
+    }
+
+    private static MockApiServer.MockResponse tooManyRequests(String retryAfter) {
+        return new MockApiServer.MockResponse()
+                .setStatusCode(RateLimitingTransport.HTTP_TOO_MANY_REQUESTS)
+                .setHeader("Retry-After", retryAfter);
+    }
+
+    private static HttpResponse retryAfter(String value) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Retry-After", value);
+        return new HttpResponse(RateLimitingTransport.HTTP_TOO_MANY_REQUESTS, headers, null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.popularmovies.utilities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResponseDiskCacheTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BODY_LENGTH = 400;
+    private static final long MAX_BYTES = 1000;
+
+    private static final ResponseDiskCache.BodyParser<String> STRING_PARSER = new ResponseDiskCache.BodyParser<String>() {
+        @Override
+        public String parse(InputStream inputStream) throws IOException {
+            return read(inputStream);
+        }
+    };
+
+    private static final ResponseDiskCache.BodyParser<String> FAILING_PARSER = new ResponseDiskCache.BodyParser<String>() {
+        @Override
+        public String parse(InputStream inputStream) throws IOException {
+            throw new JsonDeserializationException("MoviesResponse", new IllegalStateException("Malformed"));
+        }
+    };
+
+    private File mDirectory;
+    private ResponseDiskCache mCache;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = File.createTempFile("responses", "");
+        assertTrue(mDirectory.delete() && mDirectory.mkdirs());
+
+        mCache = newCache();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntriesOverBudget() throws IOException {
+        put("a", body('a'));
+        put("b", body('b'));
+
+        // Used after b, so b is the one evicted to make room for c.
+        assertNotNull(mCache.get("a"));
+        put("c", body('c'));
+
+        assertNull(mCache.get("b"));
+        assertEquals(body('a'), readBody("a"));
+        assertEquals(body('c'), readBody("c"));
+        assertEquals(2 * BODY_LENGTH, mCache.size());
+    }
+
+    @Test
+    public void keepsRecencyOrderAcrossInstances() throws IOException, InterruptedException {
+        put("a", body('a'));
+        put("b", body('b'));
+        // File times have a resolution of a second on some file systems.
+        Thread.sleep(1000);
+        assertNotNull(mCache.get("a"));
+
+        mCache = newCache();
+        put("c", body('c'));
+
+        assertNull(mCache.get("b"));
+        assertNotNull(mCache.get("a"));
+        assertNotNull(mCache.get("c"));
+    }
+
+    @Test
+    public void keepsEntryWhenNewBodyFailsToParse() throws IOException {
+        put("a", body('a'));
+
+        try {
+            mCache.put("a", response("not json"), FAILING_PARSER);
+            fail("Expected the malformed body to be rejected");
+        } catch (JsonDeserializationException expected) {
+        }
+
+        assertEquals(body('a'), readBody("a"));
+        assertEquals(BODY_LENGTH, mCache.size());
+        for (String fileName : mDirectory.list()) {
+            assertTrue("Left behind " + fileName, fileName.endsWith(".body") || fileName.endsWith(".meta"));
+        }
+    }
+
+    @Test
+    public void keepsValidatorsOfEntries() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("ETag", "\"v1\"");
+        headers.put("Last-Modified", "Mon, 01 Jan 2018 00:00:00 GMT");
+        headers.put("Cache-Control", "max-age=60");
+        mCache.put("a", new HttpResponse(200, headers, new ByteArrayInputStream(body('a').getBytes(UTF_8))), STRING_PARSER);
+
+        ResponseDiskCache.Entry entry = newCache().get("a");
+        assertNotNull(entry);
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals("Mon, 01 Jan 2018 00:00:00 GMT", entry.getLastModified());
+        assertTrue(entry.isFresh(System.currentTimeMillis()));
+    }
+
+    private ResponseDiskCache newCache() {
+        ResponseDiskCache.install(mDirectory, MAX_BYTES, 0);
+        return ResponseDiskCache.getInstance();
+    }
+
+    private void put(String key, String body) throws IOException {
+        assertEquals(body, mCache.put(key, response(body), STRING_PARSER));
+    }
+
+    private String readBody(String key) throws IOException {
+        ResponseDiskCache.Entry entry = mCache.get(key);
+        assertNotNull(entry);
+        return read(mCache.openBody(entry));
+    }
+
+    private static HttpResponse response(String body) {
+        return new HttpResponse(200, new HashMap<String, String>(), new ByteArrayInputStream(body.getBytes(UTF_8)));
+    }
+
+    private static String body(char c) {
+        StringBuilder stringBuilder = new StringBuilder(BODY_LENGTH);
+        for (int i = 0; i < BODY_LENGTH; i++) {
+            stringBuilder.append(c);
+        }
+        return stringBuilder.toString();
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), UTF_8);
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.popularmovies.utilities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class RetryingTransportTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_DELAY_MILLIS = 10;
+    private static final long MAX_DELAY_MILLIS = 50;
+
+    private static final String BODY = "{\"page\":1,\"total_results\":0,\"total_pages\":1,\"results\":[]}";
+
+    private MockApiServer mServer;
+    private HttpTransport mTransport;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockApiServer();
+        mServer.start();
+
+        mTransport = new RetryingTransport(new OkHttpTransport(TIMEOUT_MILLIS, TIMEOUT_MILLIS),
+                MAX_ATTEMPTS, BASE_DELAY_MILLIS, MAX_DELAY_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void retriesServiceUnavailableAndDecodesGzippedBody() throws IOException {
+        // Large enough for the compression to show.
+        String body = repeat(BODY, 50);
+        mServer.enqueue(new MockApiServer.MockResponse().setStatusCode(503));
+        MockApiServer.MockResponse gzippedResponse = new MockApiServer.MockResponse()
+                .setHeader("Content-Type", "application/json;charset=utf-8")
+                .setGzippedBody(body);
+        mServer.enqueue(gzippedResponse);
+
+        HttpResponse response = get("/3/movie/popular");
+        try {
+            assertEquals(200, response.getStatusCode());
+            assertEquals(body, read(response.getBody()));
+        } finally {
+            response.close();
+        }
+
+        assertEquals(2, mServer.getRequestCount());
+        String acceptEncoding = mServer.getRequest(1).getHeader("Accept-Encoding");
+        assertNotNull(acceptEncoding);
+        assertTrue(acceptEncoding.contains("gzip"));
+
+        // Counted as they came over the wire, before and after decoding.
+        assertEquals(gzippedResponse.getBodyLength(), response.getTransferredBytes());
+        assertTrue(response.getTransferredBytes() < response.getBodyBytes());
+        assertEquals(body.getBytes(UTF_8).length, response.getBodyBytes());
+    }
+
+    @Test
+    public void handsBackLastResponseOnceAttemptsRunOut() throws IOException {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            mServer.enqueue(new MockApiServer.MockResponse().setStatusCode(503));
+        }
+
+        HttpResponse response = get("/3/movie/popular");
+        response.close();
+
+        assertEquals(503, response.getStatusCode());
+        assertEquals(MAX_ATTEMPTS, mServer.getRequestCount());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws IOException {
+        mServer.enqueue(new MockApiServer.MockResponse().setStatusCode(404));
+
+        HttpResponse response = get("/3/movie/0");
+        response.close();
+
+        assertEquals(404, response.getStatusCode());
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    private HttpResponse get(String path) throws IOException {
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put("Accept", "application/json");
+        return mTransport.get(new URL(mServer.url(path)), requestHeaders);
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            stringBuilder.append(value);
+        }
+        return stringBuilder.toString();
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return new String(outputStream.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.popularmovies.benchmark;
+
+import com.example.popularmovies.data.MovieDetails;
+import com.example.popularmovies.utilities.DisplayUtils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the texts DetailActivity.fillTextViewWithListData binds for every list of a movie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisplayUtilsBenchmark {
+
+    @Param({"0", "1000"})
+    public int itemCount;
+
+    private MovieDetails mMovieDetails;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        mMovieDetails = new MovieDetails();
+        mMovieDetails.fillPropertiesByJsonObject(new JSONObject(Fixtures.movieDetails(itemCount)));
+    }
+
+    @Benchmark
+    public void joinUIAppendableValues(Blackhole blackhole) {
+        blackhole.consume(DisplayUtils.joinUIAppendableValues(mMovieDetails.getGenres()));
+        blackhole.consume(DisplayUtils.joinUIAppendableValues(mMovieDetails.getProductionCompanies()));
+        blackhole.consume(DisplayUtils.joinUIAppendableValues(mMovieDetails.getProductionCountries()));
+        blackhole.consume(DisplayUtils.joinUIAppendableValues(mMovieDetails.getSpokenLanguages()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.popularmovies.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Loads the recorded TMDB payloads and scales them up into synthetic ones of arbitrary size.
+ */
+final class Fixtures {
+
+    static final String POPULAR_PAGE = "popular_page.json";
+    static final String MOVIE_DETAILS = "movie_details.json";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private Fixtures() {
+    }
+
+    static String read(String name) throws IOException {
+        InputStream inputStream = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+        if (inputStream == null)
+            throw new IOException("Missing fixture " + name);
+
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), UTF_8);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Returns the recorded popular page when it already has resultCount results, otherwise a page
+     * that repeats its results with unique ids until it does.
+     */
+    static String moviesPage(int resultCount) throws IOException, JSONException {
+        String recordedPage = read(POPULAR_PAGE);
+        JSONObject page = new JSONObject(recordedPage);
+        JSONArray recordedResults = page.getJSONArray("results");
+        if (recordedResults.length() == resultCount)
+            return recordedPage;
+
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < resultCount; i++) {
+            JSONObject result = new JSONObject(recordedResults.getJSONObject(i % recordedResults.length()).toString());
+            result.put("id", i + 1);
+            results.put(result);
+        }
+
+        page.put("results", results);
+        page.put("total_results", resultCount);
+        return page.toString();
+    }
+
+    /**
+     * Returns the recorded movie details with each of their lists grown to itemCount entries.
+     */
+    static String listHeavyMovieDetails(int itemCount) throws IOException, JSONException {
+        JSONObject movieDetails = new JSONObject(read(MOVIE_DETAILS));
+        growList(movieDetails, "genres", itemCount);
+        growList(movieDetails, "production_companies", itemCount);
+        growList(movieDetails, "production_countries", itemCount);
+        growList(movieDetails, "spoken_languages", itemCount);
+        return movieDetails.toString();
+    }
+
+    static String movieDetails(int itemCount) throws IOException, JSONException {
+        if (itemCount <= 0)
+            return read(MOVIE_DETAILS);
+
+        return listHeavyMovieDetails(itemCount);
+    }
+
+    private static void growList(JSONObject jsonObject, String name, int itemCount) throws JSONException {
+        JSONArray recordedItems = jsonObject.getJSONArray(name);
+
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < itemCount; i++) {
+            items.put(new JSONObject(recordedItems.getJSONObject(i % recordedItems.length()).toString()));
+        }
+
+        jsonObject.put(name, items);
+    }
+}
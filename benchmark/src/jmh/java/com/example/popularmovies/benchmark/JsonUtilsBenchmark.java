@@ -0,0 +1,60 @@
+package com.example.popularmovies.benchmark;
+
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    @Param({"3", "10000"})
+    public int idCount;
+
+    private JSONObject mJsonObject;
+    private String mIdArray;
+
+    @Setup
+    public void setUp() throws JSONException {
+        JSONArray genreIds = new JSONArray();
+        for (int i = 0; i < idCount; i++) {
+            genreIds.put(i);
+        }
+
+        mJsonObject = new JSONObject();
+        mJsonObject.put("genre_ids", genreIds);
+        mIdArray = genreIds.toString();
+    }
+
+    @Benchmark
+    public int[] optIntArrayJsonObject() {
+        return JsonUtils.optIntArray(mJsonObject, "genre_ids");
+    }
+
+    @Benchmark
+    public int[] optIntArrayJsonReader() throws IOException {
+        return JsonUtils.optIntArray(new JsonReader(new StringReader(mIdArray)));
+    }
+}
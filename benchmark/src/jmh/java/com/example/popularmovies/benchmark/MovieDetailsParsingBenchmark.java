@@ -0,0 +1,84 @@
+package com.example.popularmovies.benchmark;
+
+import com.example.popularmovies.data.Genre;
+import com.example.popularmovies.data.MovieDetails;
+import com.example.popularmovies.data.ProductionCompany;
+import com.example.popularmovies.data.ProductionCountry;
+import com.example.popularmovies.data.SpokenLanguage;
+import com.example.popularmovies.utilities.JsonUtils;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses movie details as recorded (itemCount 0) and with list-heavy payloads. The factory and
+ * reflective variants only build the four nested lists, from an already parsed JSONObject, to
+ * isolate the cost of instantiating their elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovieDetailsParsingBenchmark {
+
+    @Param({"0", "1000"})
+    public int itemCount;
+
+    private String mPayload;
+    private JSONObject mJsonObject;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        mPayload = Fixtures.movieDetails(itemCount);
+        mJsonObject = new JSONObject(mPayload);
+    }
+
+    @Benchmark
+    public MovieDetails jsonObject() throws JSONException {
+        MovieDetails movieDetails = new MovieDetails();
+        movieDetails.fillPropertiesByJsonObject(new JSONObject(mPayload));
+        return movieDetails;
+    }
+
+    @Benchmark
+    public MovieDetails jsonReader() throws IOException {
+        MovieDetails movieDetails = new MovieDetails();
+        movieDetails.fillPropertiesByJsonReader(new JsonReader(new StringReader(mPayload)));
+        return movieDetails;
+    }
+
+    @Benchmark
+    public void factoryLists(Blackhole blackhole) {
+        blackhole.consume(JsonUtils.optArrayList(mJsonObject, "genres", Genre.FACTORY));
+        blackhole.consume(JsonUtils.optArrayList(mJsonObject, "production_companies", ProductionCompany.FACTORY));
+        blackhole.consume(JsonUtils.optArrayList(mJsonObject, "production_countries", ProductionCountry.FACTORY));
+        blackhole.consume(JsonUtils.optArrayList(mJsonObject, "spoken_languages", SpokenLanguage.FACTORY));
+    }
+
+    @Benchmark
+    public void reflectiveLists(Blackhole blackhole) {
+        blackhole.consume(ReflectiveJsonUtils.optArrayList(mJsonObject, "genres", Genre.class));
+        blackhole.consume(ReflectiveJsonUtils.optArrayList(mJsonObject, "production_companies", ProductionCompany.class));
+        blackhole.consume(ReflectiveJsonUtils.optArrayList(mJsonObject, "production_countries", ProductionCountry.class));
+        blackhole.consume(ReflectiveJsonUtils.optArrayList(mJsonObject, "spoken_languages", SpokenLanguage.class));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.popularmovies.benchmark;
+
+import com.example.popularmovies.data.MoviesResponse;
+import com.google.gson.stream.JsonReader;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoviesResponseParsingBenchmark {
+
+    @Param({"20", "10000"})
+    public int resultCount;
+
+    private String mPayload;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        mPayload = Fixtures.moviesPage(resultCount);
+    }
+
+    @Benchmark
+    public MoviesResponse jsonObject() throws JSONException {
+        MoviesResponse moviesResponse = new MoviesResponse();
+        moviesResponse.fillPropertiesByJsonObject(new JSONObject(mPayload));
+        return moviesResponse;
+    }
+
+    @Benchmark
+    public MoviesResponse jsonReader() throws IOException {
+        MoviesResponse moviesResponse = new MoviesResponse();
+        moviesResponse.fillPropertiesByJsonReader(new JsonReader(new StringReader(mPayload)));
+        return moviesResponse;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.popularmovies.benchmark;
+
+import com.example.popularmovies.data.IJsonDeserialize;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+
+/**
+ * The Class.newInstance based list parsing that JsonUtils used before model factories, kept as a
+ * baseline for {@link MovieDetailsParsingBenchmark}.
+ */
+final class ReflectiveJsonUtils {
+
+    private ReflectiveJsonUtils() {
+    }
+
+    static <T extends IJsonDeserialize> ArrayList<T> optArrayList(JSONObject jsonObject, String name, Class<T> cls) {
+        JSONArray propertyJsonArray = jsonObject.optJSONArray(name);
+        if (propertyJsonArray == null)
+            return null;
+
+        ArrayList<T> arrayList = new ArrayList<>();
+        for (int i = 0; i < propertyJsonArray.length(); i++) {
+            JSONObject itemJsonObject = propertyJsonArray.optJSONObject(i);
+            if (itemJsonObject == null) {
+                arrayList.add(null);
+                continue;
+            }
+
+            T obj = null;
+            try {
+                obj = cls.newInstance();
+            } catch (InstantiationException e) {
+                e.printStackTrace();
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+
+            if (obj == null) {
+                arrayList.add(null);
+                continue;
+            }
+
+            obj.fillPropertiesByJsonObject(itemJsonObject);
+            arrayList.add(obj);
+        }
+        return arrayList;
+    }
+}